@@ -0,0 +1,146 @@
+package com.chiragji.utils.http.cache;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.enums.UnknownCode;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.HttpDates;
+import com.chiragji.utils.http.util.StatusCodeSet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rules deciding whether, and for how long, a response may be reused by a private cache.
+ * <p>
+ * A response with an explicit lifetime, given by the max-age directive of Cache-Control or else by Expires, may be
+ * stored whatever its status, as long as the status is one of the enums' codes. Without one, only the statuses in
+ * {@link #HEURISTICALLY_CACHEABLE} are stored, for a tenth of the time since their Last-Modified date, at most a day.
+ * Responses marked no-store or no-cache are never stored, since reusing them would need revalidation.
+ *
+ * @author Chirag Gupta
+ */
+public final class Cacheability {
+    /**
+     * The statuses cacheable by default, i.e. without explicit freshness information: {@link SuccessCodes#OK},
+     * {@link SuccessCodes#NON_AUTHORITATIVE_INFO}, {@link SuccessCodes#NO_CONTENT},
+     * {@link SuccessCodes#PARTIAL_CONTENT}, {@link RedirectionCodes#MULTIPLE_CHOICES},
+     * {@link RedirectionCodes#MOVED_PERMANENTLY}, {@link ClientCodes#NOT_FOUND},
+     * {@link ClientCodes#METHOD_NOT_ALLOWED}, {@link ClientCodes#GONE}, {@link ClientCodes#REQUEST_URI_TOO_LONG} and {@link ServerError#NOT_IMPLEMENTED}.
+     */
+    public static final StatusCodeSet HEURISTICALLY_CACHEABLE = StatusCodeSet.of(SuccessCodes.OK,
+            SuccessCodes.NON_AUTHORITATIVE_INFO, SuccessCodes.NO_CONTENT, SuccessCodes.PARTIAL_CONTENT,
+            RedirectionCodes.MULTIPLE_CHOICES, RedirectionCodes.MOVED_PERMANENTLY, ClientCodes.NOT_FOUND,
+            ClientCodes.METHOD_NOT_ALLOWED, ClientCodes.GONE, ClientCodes.REQUEST_URI_TOO_LONG,
+            ServerError.NOT_IMPLEMENTED);
+
+    private static final long MAX_HEURISTIC_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private Cacheability() {
+    }
+
+    /**
+     * Computes how long a response stays fresh after it was generated.
+     *
+     * @param status       the status of the response
+     * @param cacheControl the Cache-Control field, its lines joined by commas, or {@code null}
+     * @param expires      the Expires field, or {@code null}
+     * @param date         the Date field, or {@code null}
+     * @param lastModified the Last-Modified field, or {@code null}
+     * @param nowMillis    the current time in epoch milliseconds, used when Date is missing
+     * @return the freshness lifetime in milliseconds, {@code 0} if the response must not be stored
+     */
+    public static long freshnessLifetime(HTTPCodes status, String cacheControl, String expires, String date,
+                                         String lastModified, long nowMillis) {
+        if (status == null || status == UnknownCode.UNKNOWN)
+            return 0;
+        if (cacheControl != null) {
+            if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "no-cache"))
+                return 0;
+            long maxAge = directiveSeconds(cacheControl, "max-age");
+            if (maxAge >= 0)
+                return TimeUnit.SECONDS.toMillis(maxAge);
+        }
+        long dateMillis = date == null ? -1 : HttpDates.parse(date);
+        if (dateMillis < 0)
+            dateMillis = nowMillis;
+        if (expires != null) {
+            // an invalid Expires, e.g. "0", means already expired
+            long expiresMillis = HttpDates.parse(expires);
+            return expiresMillis < 0 ? 0 : Math.max(0, expiresMillis - dateMillis);
+        }
+        if (!HEURISTICALLY_CACHEABLE.contains(status) || lastModified == null)
+            return 0;
+        long lastModifiedMillis = HttpDates.parse(lastModified);
+        if (lastModifiedMillis < 0 || lastModifiedMillis > dateMillis)
+            return 0;
+        return Math.min((dateMillis - lastModifiedMillis) / 10, MAX_HEURISTIC_MILLIS);
+    }
+
+    /**
+     * @param cacheControl a Cache-Control field value
+     * @param name         a directive name, in lower case
+     * @return {@code true} if the directive is present, with or without an argument
+     */
+    public static boolean hasDirective(String cacheControl, String name) {
+        return directiveStart(cacheControl, name) >= 0;
+    }
+
+    /**
+     * @param cacheControl a Cache-Control field value
+     * @param name         the name of a directive taking seconds, such as {@code max-age}, in lower case
+     * @return the seconds given to the directive, {@code -1} if it is absent or malformed
+     */
+    public static long directiveSeconds(String cacheControl, String name) {
+        int i = directiveStart(cacheControl, name);
+        if (i < 0)
+            return -1;
+        i += name.length();
+        int length = cacheControl.length();
+        while (i < length && cacheControl.charAt(i) == ' ')
+            i++;
+        if (i == length || cacheControl.charAt(i) != '=')
+            return -1;
+        i++;
+        while (i < length && cacheControl.charAt(i) == ' ')
+            i++;
+        boolean quoted = i < length && cacheControl.charAt(i) == '"';
+        if (quoted)
+            i++;
+        long seconds = 0;
+        int digits = 0;
+        for (; i < length; i++, digits++) {
+            char c = cacheControl.charAt(i);
+            if (c < '0' || c > '9')
+                break;
+            // delta-seconds too large to represent are taken as the largest value
+            seconds = seconds > Integer.MAX_VALUE ? seconds : seconds * 10 + (c - '0');
+        }
+        return digits == 0 ? -1 : Math.min(seconds, Integer.MAX_VALUE);
+    }
+
+    // index of the directive's name in the value, -1 if absent
+    private static int directiveStart(String cacheControl, String name) {
+        int length = cacheControl.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && (cacheControl.charAt(i) == ' ' || cacheControl.charAt(i) == ','))
+                i++;
+            int start = i;
+            while (i < length && cacheControl.charAt(i) != ',' && cacheControl.charAt(i) != '='
+                    && cacheControl.charAt(i) != ' ')
+                i++;
+            if (i - start == name.length() && cacheControl.regionMatches(true, start, name, 0, name.length()))
+                return start;
+            // skip an argument, which may be a quoted string holding commas
+            boolean quoted = false;
+            while (i < length && (quoted || cacheControl.charAt(i) != ',')) {
+                if (cacheControl.charAt(i) == '"')
+                    quoted = !quoted;
+                i++;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,122 @@
+package com.chiragji.utils.http.cache;
+
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.io.BufferPool;
+import com.chiragji.utils.http.util.NanoClock;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A response held by a {@link ResponseCache}, its body in pooled direct memory.
+ * <p>
+ * Each instance returned by {@link ResponseCache#get(String)} holds a reference on the body, which keeps it from going
+ * back to the pool while it is read even if the cache drops the entry meanwhile. The reference must be given up with
+ * {@link #close()}, exactly once, best with try-with-resources; the body must not be used afterwards.
+ *
+ * @author Chirag Gupta
+ */
+public final class CachedResponse implements AutoCloseable {
+    private final HTTPCodes status;
+    private final Map<String, List<String>> headers;
+    private final ByteBuffer body;
+    private final BufferPool pool;
+    private final NanoClock clock;
+    private final long storedAt;
+    private final long expiresAt;
+    private final long initialAgeNanos;
+    // one reference for the cache, one per reader
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    CachedResponse(HTTPCodes status, Map<String, List<String>> headers, ByteBuffer body, BufferPool pool,
+                   NanoClock clock, long storedAt, long expiresAt, long initialAgeNanos) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.pool = pool;
+        this.clock = clock;
+        this.storedAt = storedAt;
+        this.expiresAt = expiresAt;
+        this.initialAgeNanos = initialAgeNanos;
+    }
+
+    /**
+     * @return the status of the response
+     */
+    public HTTPCodes getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the header fields by case-insensitive name
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @param name the field name, in any case
+     * @return the first value of the field, or {@code null} if absent
+     */
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    /**
+     * @return a read-only view of the body, valid until {@link #close()}
+     */
+    public ByteBuffer getBody() {
+        return body.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the body length in bytes
+     */
+    public int getBodyLength() {
+        return body.remaining();
+    }
+
+    /**
+     * @return a heap copy of the body, usable after {@link #close()}
+     */
+    public byte[] copyBody() {
+        byte[] copy = new byte[body.remaining()];
+        body.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * @return the age to send in the Age field, in seconds
+     */
+    public long getAgeSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(initialAgeNanos + clock.nanoTime() - storedAt);
+    }
+
+    boolean isFresh(long nowNanos) {
+        return nowNanos - expiresAt < 0;
+    }
+
+    // takes a reader reference, failing if the body has already gone back to the pool
+    boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0)
+                return false;
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * Gives up the reference taken by {@link ResponseCache#get(String)}.
+     */
+    @Override
+    public void close() {
+        if (references.decrementAndGet() == 0)
+            pool.release(body);
+    }
+}
@@ -0,0 +1,181 @@
+package com.chiragji.utils.http.cache;
+
+import com.chiragji.utils.http.util.NanoClock;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses identical requests made at the same time into one upstream call, e.g. the many GETs that miss a
+ * {@link ResponseCache} together when an entry expires.
+ * <p>
+ * The first caller for a key, the leader, makes the upstream call; callers arriving while it runs wait for its
+ * outcome instead, be it a response, whatever its status, or a failure. The entry is removed as soon as the leader
+ * finishes, whatever the outcome, so a {@link com.chiragji.utils.http.enums.ServerError} or an exception is never
+ * served to callers arriving later. Waiters give up after the timeout, and an entry older than the timeout is
+ * replaced by the next caller, so a hung upstream call cannot hold up a key for good.
+ * <p>
+ * Only requests without side effects, such as GET and HEAD, should be collapsed. Keys built by
+ * {@link #key(String, URI, Map, String...)} include the request fields named by the Vary field of the responses, so
+ * requests the server could answer differently are kept apart.
+ *
+ * @author Chirag Gupta
+ */
+public final class RequestCoalescer {
+    /**
+     * An upstream call.
+     */
+    @FunctionalInterface
+    public interface Upstream {
+        /**
+         * @return the response
+         * @throws IOException if the call fails
+         */
+        SharedResponse call() throws IOException;
+    }
+
+    private final long timeoutNanos;
+    private final NanoClock clock;
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder upstreamCalls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param timeout how long callers wait for another caller's upstream call
+     * @param unit    the unit of {@code timeout}
+     */
+    public RequestCoalescer(long timeout, TimeUnit unit) {
+        this(timeout, unit, NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param timeout how long callers wait for another caller's upstream call
+     * @param unit    the unit of {@code timeout}
+     * @param clock   the time source used to age entries
+     */
+    public RequestCoalescer(long timeout, TimeUnit unit, NanoClock clock) {
+        if (timeout <= 0)
+            throw new IllegalArgumentException("Timeout must be positive");
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.clock = clock;
+    }
+
+    /**
+     * Builds the key of a request.
+     *
+     * @param method  the request method
+     * @param uri     the request target
+     * @param headers the request header fields
+     * @param vary    the field names listed by Vary in responses for the target, in a fixed order
+     * @return the key
+     */
+    public static String key(String method, URI uri, Map<String, String> headers, String... vary) {
+        StringBuilder key = new StringBuilder(64).append(method.toUpperCase()).append(' ').append(uri);
+        for (String name : vary) {
+            String value = null;
+            for (Map.Entry<String, String> header : headers.entrySet())
+                if (header.getKey().equalsIgnoreCase(name)) {
+                    value = header.getValue();
+                    break;
+                }
+            key.append('\n').append(name.toLowerCase()).append(':');
+            if (value != null)
+                key.append(value);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Makes the upstream call, or waits for the identical call already running.
+     *
+     * @param key      the key of the request
+     * @param upstream the upstream call, run only if no call for the key is running
+     * @return the response, shared with every caller of the same call
+     * @throws IOException if the upstream call fails, or the wait for another caller's call times out or is
+     *                     interrupted
+     */
+    public SharedResponse execute(String key, Upstream upstream) throws IOException {
+        while (true) {
+            long now = clock.nanoTime();
+            Flight flight = flights.get(key);
+            if (flight == null) {
+                Flight mine = new Flight(now);
+                flight = flights.putIfAbsent(key, mine);
+                if (flight == null)
+                    return lead(key, mine, upstream);
+            }
+            if (now - flight.startedAt >= timeoutNanos) {
+                // the leader is stuck, start over rather than queue behind it
+                flights.remove(key, flight);
+                continue;
+            }
+            coalesced.increment();
+            return await(flight, flight.startedAt + timeoutNanos - now);
+        }
+    }
+
+    private SharedResponse lead(String key, Flight flight, Upstream upstream) throws IOException {
+        upstreamCalls.increment();
+        try {
+            SharedResponse response = upstream.call();
+            flight.result.complete(response);
+            return response;
+        } catch (IOException | RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private static SharedResponse await(Flight flight, long timeoutNanos) throws IOException {
+        try {
+            return flight.result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a coalesced request");
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out waiting for a coalesced request", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Coalesced request failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of upstream calls made
+     */
+    public long getUpstreamCalls() {
+        return upstreamCalls.sum();
+    }
+
+    /**
+     * @return the number of callers served by another caller's upstream call
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return the number of upstream calls running
+     */
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    private static final class Flight {
+        private final long startedAt;
+        private final CompletableFuture<SharedResponse> result = new CompletableFuture<>();
+
+        private Flight(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
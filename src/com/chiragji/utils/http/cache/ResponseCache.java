@@ -0,0 +1,379 @@
+package com.chiragji.utils.http.cache;
+
+import com.chiragji.utils.http.client.HttpResponse;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.io.BufferPool;
+import com.chiragji.utils.http.util.HttpDates;
+import com.chiragji.utils.http.util.NanoClock;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory private HTTP cache bounded by bytes, with response bodies kept off the heap in a {@link BufferPool}.
+ * <p>
+ * Whether and how long a response is kept follows {@link Cacheability}. Keys are chosen by the caller, typically the
+ * method and URI, plus the values of the request fields named by Vary; responses with {@code Vary: *} and partial
+ * responses are not stored. A stale entry is not returned, there is no revalidation.
+ * <p>
+ * Eviction is segmented LRU: new entries go to a probation segment and move to a protected segment, which holds up
+ * to 80% of the capacity, when read again, so a scan of one-off responses cannot flush the frequently read ones.
+ * Reads never lock. They are a {@link ConcurrentHashMap} lookup plus a write of the entry into a small lossy buffer
+ * of recent reads, which the writers, and now and then a reader that finds the lock free, replay into the LRU order.
+ *
+ * @author Chirag Gupta
+ */
+public final class ResponseCache {
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int DRAIN_CHANCE_MASK = 15;
+    private static final int HEADER_OVERHEAD = 64;
+
+    private static final int PROBATION = 0;
+    private static final int PROTECTED = 1;
+    private static final int REMOVED = 2;
+
+    private final long maxBytes;
+    private final long maxProtectedBytes;
+    private final long maxEntryBytes;
+    private final BufferPool pool;
+    private final NanoClock clock;
+
+    private final ConcurrentHashMap<String, Node> entries = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final Node probation = new Node(null, null, 0);
+    private final Node protectedSegment = new Node(null, null, 0);
+    private long weightedSize;
+    private long protectedSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache with its own buffer pool, allowed twice the capacity to leave room for size-class rounding and
+     * the pool's free buffers.
+     *
+     * @param maxBytes the capacity, counting bodies and an estimate of the header fields
+     */
+    public ResponseCache(long maxBytes) {
+        this(maxBytes, new BufferPool(1 << 20, 0, 64, Math.max(2 * maxBytes, 1 << 20), false), NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param maxBytes the capacity, counting bodies and an estimate of the header fields
+     * @param pool     the pool holding the bodies; as bodies are released by whichever thread drops the last
+     *                 reference, it should not use thread caches
+     * @param clock    the time source
+     */
+    public ResponseCache(long maxBytes, BufferPool pool, NanoClock clock) {
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.maxBytes = maxBytes;
+        this.maxProtectedBytes = maxBytes * 4 / 5;
+        // a single response may not flush most of the cache
+        this.maxEntryBytes = Math.max(1, maxBytes / 8);
+        this.pool = pool;
+        this.clock = clock;
+        probation.prev = probation.next = probation;
+        protectedSegment.prev = protectedSegment.next = protectedSegment;
+    }
+
+    /**
+     * Looks up a fresh response.
+     *
+     * @param key the key the response was stored under
+     * @return the response, to be closed after use, or {@code null} if there is no fresh one
+     */
+    public CachedResponse get(String key) {
+        Node node = entries.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (!node.response.isFresh(clock.nanoTime())) {
+            misses.increment();
+            if (lock.tryLock()) {
+                try {
+                    if (entries.remove(key, node))
+                        remove(node);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return null;
+        }
+        if (!node.response.retain()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        recordRead(node);
+        return node.response;
+    }
+
+    /**
+     * Stores a response received by {@link com.chiragji.utils.http.client.HttpClient}.
+     *
+     * @param key      the key to store the response under
+     * @param response the response
+     * @return {@code true} if the response was stored
+     */
+    public boolean put(String key, HttpResponse response) {
+        return put(key, response.getStatus(), response.getHeaders(), ByteBuffer.wrap(response.getBody()));
+    }
+
+    /**
+     * Stores a response if it is cacheable, replacing any response stored under the same key.
+     *
+     * @param key     the key to store the response under
+     * @param status  the status of the response
+     * @param headers the header fields of the response
+     * @param body    the body, copied from its position to its limit
+     * @return {@code true} if the response was stored
+     */
+    public boolean put(String key, HTTPCodes status, Map<String, List<String>> headers, ByteBuffer body) {
+        if (status == SuccessCodes.PARTIAL_CONTENT)
+            return false;
+        Map<String, List<String>> fields = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        long headerBytes = HEADER_OVERHEAD;
+        for (Map.Entry<String, List<String>> field : headers.entrySet()) {
+            List<String> values = fields.computeIfAbsent(field.getKey(), k -> new ArrayList<>(1));
+            values.addAll(field.getValue());
+            for (String value : field.getValue())
+                headerBytes += 2L * (field.getKey().length() + value.length());
+        }
+        for (Map.Entry<String, List<String>> field : fields.entrySet())
+            field.setValue(Collections.unmodifiableList(field.getValue()));
+        if ("*".equals(joined(fields, "Vary")))
+            return false;
+
+        long nowMillis = System.currentTimeMillis();
+        String date = joined(fields, "Date");
+        long lifetimeNanos = TimeUnit.MILLISECONDS.toNanos(Cacheability.freshnessLifetime(status,
+                joined(fields, "Cache-Control"), joined(fields, "Expires"), date, joined(fields, "Last-Modified"),
+                nowMillis));
+        long ageNanos = initialAge(fields, date, nowMillis);
+        if (lifetimeNanos <= ageNanos)
+            return false;
+
+        int length = body.remaining();
+        if (length + headerBytes > maxEntryBytes)
+            return false;
+        ByteBuffer stored;
+        try {
+            stored = pool.acquire(length);
+        } catch (IllegalStateException e) {
+            return false;
+        }
+        stored.put(body.duplicate()).flip();
+        long now = clock.nanoTime();
+        CachedResponse response = new CachedResponse(status, Collections.unmodifiableMap(fields), stored, pool,
+                clock, now, now + lifetimeNanos - ageNanos, ageNanos);
+        Node node = new Node(key, response, stored.capacity() + headerBytes);
+
+        lock.lock();
+        try {
+            drainReads();
+            Node replaced = entries.put(key, node);
+            if (replaced != null)
+                remove(replaced);
+            link(probation, node);
+            node.segment = PROBATION;
+            weightedSize += node.weight;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    // age of the response when received, from the Age field and the Date field
+    private static long initialAge(Map<String, List<String>> fields, String date, long nowMillis) {
+        long ageSeconds = 0;
+        String age = joined(fields, "Age");
+        if (age != null) {
+            try {
+                ageSeconds = Math.max(0, Long.parseLong(age.trim()));
+            } catch (NumberFormatException ignored) {
+                // an invalid Age is ignored
+            }
+        }
+        long dateMillis = date == null ? -1 : HttpDates.parse(date);
+        long apparentMillis = dateMillis < 0 ? 0 : Math.max(0, nowMillis - dateMillis);
+        return Math.max(TimeUnit.SECONDS.toNanos(ageSeconds), TimeUnit.MILLISECONDS.toNanos(apparentMillis));
+    }
+
+    private static String joined(Map<String, List<String>> fields, String name) {
+        List<String> values = fields.get(name);
+        if (values == null || values.isEmpty())
+            return null;
+        return values.size() == 1 ? values.get(0) : String.join(", ", values);
+    }
+
+    /**
+     * Drops the response stored under a key, if any.
+     *
+     * @param key the key
+     */
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            Node node = entries.remove(key);
+            if (node != null)
+                remove(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every response.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            drainReads();
+            for (Node node : entries.values())
+                if (entries.remove(node.key, node))
+                    remove(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordRead(Node node) {
+        int random = ThreadLocalRandom.current().nextInt();
+        // lossy by design: a read overwriting another only costs a little LRU precision
+        readBuffer.lazySet(random & (READ_BUFFER_SIZE - 1), node);
+        if ((random >>> 16 & DRAIN_CHANCE_MASK) == 0 && lock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void drainReads() {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            Node node = readBuffer.getAndSet(i, null);
+            if (node == null || node.segment == REMOVED)
+                continue;
+            unlink(node);
+            if (node.segment == PROBATION) {
+                node.segment = PROTECTED;
+                protectedSize += node.weight;
+            }
+            link(protectedSegment, node);
+            // the least recently read protected entries get one more chance in probation
+            while (protectedSize > maxProtectedBytes) {
+                Node demoted = protectedSegment.prev;
+                unlink(demoted);
+                demoted.segment = PROBATION;
+                protectedSize -= demoted.weight;
+                link(probation, demoted);
+            }
+        }
+    }
+
+    private void evict() {
+        while (weightedSize > maxBytes) {
+            Node victim = probation.prev != probation ? probation.prev : protectedSegment.prev;
+            entries.remove(victim.key, victim);
+            remove(victim);
+            evictions.increment();
+        }
+    }
+
+    private void remove(Node node) {
+        unlink(node);
+        weightedSize -= node.weight;
+        if (node.segment == PROTECTED)
+            protectedSize -= node.weight;
+        node.segment = REMOVED;
+        node.response.close();
+    }
+
+    // inserts the node as the most recently used of the segment
+    private static void link(Node head, Node node) {
+        node.prev = head;
+        node.next = head.next;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+    private static void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+    }
+
+    /**
+     * @return the number of responses stored
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the bytes accounted to the stored responses
+     */
+    public long getWeightedSize() {
+        lock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of lookups that returned a response
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that found no fresh response
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of responses dropped to stay within the capacity
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // entry of the segment lists; the heads of the two segments are nodes without a response
+    private static final class Node {
+        private final String key;
+        private final CachedResponse response;
+        private final long weight;
+        private int segment;
+        private Node prev;
+        private Node next;
+
+        private Node(String key, CachedResponse response, long weight) {
+            this.key = key;
+            this.response = response;
+            this.weight = weight;
+        }
+    }
+}
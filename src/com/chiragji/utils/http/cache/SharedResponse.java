@@ -0,0 +1,70 @@
+package com.chiragji.utils.http.cache;
+
+import com.chiragji.utils.http.client.HttpResponse;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable response handed to every caller of a request collapsed by {@link RequestCoalescer}. The body is held
+ * once in a read-only buffer and each caller gets its own view of it.
+ *
+ * @author Chirag Gupta
+ */
+public final class SharedResponse {
+    private final HTTPCodes status;
+    private final Map<String, List<String>> headers;
+    private final ByteBuffer body;
+
+    /**
+     * @param status  the status of the response
+     * @param headers the header fields, which must not be modified afterwards
+     * @param body    the body from its position to its limit, which must not be modified afterwards
+     */
+    public SharedResponse(HTTPCodes status, Map<String, List<String>> headers, ByteBuffer body) {
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @param response a response received by {@link com.chiragji.utils.http.client.HttpClient}
+     * @return the response in shareable form, its body not copied
+     */
+    public static SharedResponse of(HttpResponse response) {
+        return new SharedResponse(response.getStatus(), response.getHeaders(), ByteBuffer.wrap(response.getBody()));
+    }
+
+    /**
+     * @return the status of the response
+     */
+    public HTTPCodes getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the header fields
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @param name the field name; lookups ignore case only if the fields were given in a case-insensitive map
+     * @return the first value of the field, or {@code null} if absent
+     */
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    /**
+     * @return a read-only view of the body with its own position, so callers do not disturb each other
+     */
+    public ByteBuffer getBody() {
+        return body.duplicate();
+    }
+}
@@ -0,0 +1,203 @@
+package com.chiragji.utils.http.client;
+
+import com.chiragji.utils.http.util.StatusLineParser;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A blocking connection to an HTTP server, with the read buffer and status line parser it reuses across the requests
+ * sent on it. Connections are opened by {@link HttpClient} and kept between requests by a {@link ConnectionPool}.
+ * <p>
+ * A connection is used by one request at a time. It relies on the socket's own timeouts rather than on any monitor,
+ * so a thread blocked in it, virtual threads included, never holds a lock.
+ *
+ * @author Chirag Gupta
+ */
+public final class Connection implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String host;
+    private final int port;
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final StatusLineParser statusLineParser = new StatusLineParser();
+    private int position;
+    private int limit;
+    private long bytesRead;
+    private int idleReturns;
+    private volatile long lastUsed;
+    private final AtomicBoolean expiryScheduled = new AtomicBoolean();
+
+    private Connection(String host, int port, Socket socket) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.socket = socket;
+        this.in = socket.getInputStream();
+        this.out = socket.getOutputStream();
+    }
+
+    /**
+     * Opens a connection.
+     *
+     * @param host                 the host name or address of the server
+     * @param port                 the port of the server
+     * @param connectTimeoutMillis the connect timeout, {@code 0} for none
+     * @param readTimeoutMillis    the timeout of each read, {@code 0} for none
+     * @return the open connection
+     * @throws IOException if the server cannot be reached
+     */
+    public static Connection open(String host, int port, int connectTimeoutMillis, int readTimeoutMillis)
+            throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(readTimeoutMillis);
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            return new Connection(host, port, socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the host the connection was opened to
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the port the connection was opened to
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return {@code true} until the connection is closed
+     */
+    public boolean isOpen() {
+        return !socket.isClosed();
+    }
+
+    /**
+     * @return the pool clock time at which the connection was last returned to a pool as idle
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    void markUsed(long nanoTime) {
+        lastUsed = nanoTime;
+        idleReturns++;
+    }
+
+    // claims the single idle-timeout entry a pool may keep for the connection
+    boolean scheduleExpiry() {
+        return expiryScheduled.compareAndSet(false, true);
+    }
+
+    void expiryDropped() {
+        expiryScheduled.set(false);
+    }
+
+    // true once the connection has been idle in a pool, i.e. the server may have closed it meanwhile
+    boolean isReused() {
+        return idleReturns > 0;
+    }
+
+    StatusLineParser statusLineParser() {
+        return statusLineParser;
+    }
+
+    void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    // bytes received since the last call, used to tell a stale pooled connection from a failed exchange
+    long takeBytesRead() {
+        long read = bytesRead;
+        bytesRead = 0;
+        return read;
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int position() {
+        return position;
+    }
+
+    int available() {
+        return limit - position;
+    }
+
+    void skip(int count) {
+        position += count;
+    }
+
+    /**
+     * Reads more bytes into the buffer, moving the unread ones to its start first.
+     *
+     * @return {@code false} at the end of the stream
+     */
+    boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length)
+            throw new IOException("Line longer than " + buffer.length + " bytes");
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0)
+            return false;
+        limit += read;
+        bytesRead += read;
+        return true;
+    }
+
+    int read() throws IOException {
+        if (position == limit && !fill())
+            throw new EOFException("Connection closed by server");
+        return buffer[position++] & 0xff;
+    }
+
+    /**
+     * Reads up to {@code length} bytes, from the buffer first and then straight from the socket.
+     *
+     * @return the number of bytes read, {@code -1} at the end of the stream
+     */
+    int read(byte[] dst, int offset, int length) throws IOException {
+        if (position < limit) {
+            int count = Math.min(length, limit - position);
+            System.arraycopy(buffer, position, dst, offset, count);
+            position += count;
+            return count;
+        }
+        int read = in.read(dst, offset, length);
+        if (read > 0)
+            bytesRead += read;
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
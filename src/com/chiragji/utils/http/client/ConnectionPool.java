@@ -0,0 +1,422 @@
+package com.chiragji.utils.http.client;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.NanoClock;
+import com.chiragji.utils.http.util.StatusCodeSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps persistent connections per host and port for reuse by later requests, and bounds how many are in use.
+ * <p>
+ * At most {@code maxPerHost} connections per host and {@code maxTotal} overall are checked out at a time; a checkout
+ * beyond either limit waits up to a configured time for a connection to be handed back. Idle connections are capped
+ * by the same numbers. Checkout and checkin only touch concurrent deques, atomics and semaphores, so there is no
+ * lock to contend on and a virtual thread waiting for a connection is never pinned to its carrier.
+ * <p>
+ * Idle connections are closed once unused for the idle timeout. Their deadlines sit in a hashed timer wheel that is
+ * advanced by the checkouts and checkins themselves, so no background thread is needed; {@link #evictIdle()} can be
+ * called periodically for pools that go quiet. A connection has at most one entry in the wheel: a checkin only
+ * records the time, and an entry coming due checks it and moves itself to the connection's current deadline if that
+ * is later. Connections are also dropped instead of kept after a response whose
+ * status is in the drop set, {@link #DEFAULT_DROP_CODES} unless configured otherwise, as such a status suggests the
+ * peer or the path to it is broken.
+ *
+ * @author Chirag Gupta
+ */
+public final class ConnectionPool implements Closeable {
+    /**
+     * The statuses after which a connection is not reused: {@link ServerError#BAD_GATEWAY},
+     * {@link ServerError#NETWORK_READ_TIMEOUT_ERROR}, {@link ServerError#NETWORK_CONNECT_TIMEOUT_ERROR} and
+     * {@link ClientCodes#CLIENT_CLOSED_REQUEST}.
+     */
+    public static final StatusCodeSet DEFAULT_DROP_CODES = StatusCodeSet.of(ServerError.BAD_GATEWAY,
+            ServerError.NETWORK_READ_TIMEOUT_ERROR, ServerError.NETWORK_CONNECT_TIMEOUT_ERROR,
+            ClientCodes.CLIENT_CLOSED_REQUEST);
+
+    private static final int WHEEL_SLOTS = 64;
+
+    private final int maxPerHost;
+    private final int maxTotal;
+    private final long idleNanos;
+    private final long maxWaitNanos;
+    private final long tickNanos;
+    private final StatusCodeSet dropCodes;
+    private final NanoClock clock;
+
+    private final ConcurrentHashMap<String, Host> hosts = new ConcurrentHashMap<>();
+    private final Semaphore inUse;
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final Queue<Expiry>[] wheel;
+    private final AtomicLong wheelTick;
+    private volatile boolean closed;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder checkoutNanos = new LongAdder();
+    private final LongAccumulator maxCheckoutNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a pool allowing 8 connections per host and 256 in total, closing connections idle for 60 seconds and
+     * waiting up to 10 seconds for a connection at the limits.
+     */
+    public ConnectionPool() {
+        this(8, 256, 60, 10, TimeUnit.SECONDS, DEFAULT_DROP_CODES, NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param maxPerHost  the most connections checked out to one host and port at a time
+     * @param maxTotal    the most connections checked out at a time
+     * @param idleTimeout how long a connection may stay idle before it is closed
+     * @param maxWait     how long a checkout waits at the limits before it fails
+     * @param unit        the unit of {@code idleTimeout} and {@code maxWait}
+     * @param dropCodes   the statuses after which a connection is closed rather than kept
+     * @param clock       the time source
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConnectionPool(int maxPerHost, int maxTotal, long idleTimeout, long maxWait, TimeUnit unit,
+                          StatusCodeSet dropCodes, NanoClock clock) {
+        if (maxPerHost <= 0 || maxTotal <= 0 || idleTimeout <= 0 || maxWait < 0)
+            throw new IllegalArgumentException("Invalid connection pool settings");
+        this.maxPerHost = maxPerHost;
+        this.maxTotal = maxTotal;
+        this.idleNanos = unit.toNanos(idleTimeout);
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        // a deadline is at most half a turn ahead, so every entry in a slot due now belongs to this turn or the next
+        this.tickNanos = Math.max(1, idleNanos / (WHEEL_SLOTS / 2));
+        this.dropCodes = dropCodes;
+        this.clock = clock;
+        this.inUse = new Semaphore(maxTotal);
+        this.wheel = new Queue[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++)
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        this.wheelTick = new AtomicLong(Math.floorDiv(clock.nanoTime(), tickNanos));
+    }
+
+    private static String key(String host, int port) {
+        return host + ':' + port;
+    }
+
+    /**
+     * Checks out a connection to the given server: the most recently used idle one, or else a new one.
+     *
+     * @param host                 the host of the server
+     * @param port                 the port of the server
+     * @param connectTimeoutMillis the connect timeout for a new connection, {@code 0} for none
+     * @param readTimeoutMillis    the read timeout for a new connection, {@code 0} for none
+     * @return a connection, to be handed back with {@link #release(Connection, HTTPCodes, boolean)}
+     * @throws IOException if the limits stay reached for the maximum wait, or a new connection cannot be opened
+     */
+    public Connection acquire(String host, int port, int connectTimeoutMillis, int readTimeoutMillis)
+            throws IOException {
+        return acquire(host, port, connectTimeoutMillis, readTimeoutMillis, false);
+    }
+
+    // a fresh checkout opens a new connection even if idle ones are kept, e.g. after one of them turned out stale
+    Connection acquire(String host, int port, int connectTimeoutMillis, int readTimeoutMillis, boolean fresh)
+            throws IOException {
+        if (closed)
+            throw new IllegalStateException("Connection pool is closed");
+        long start = clock.nanoTime();
+        advance(start);
+        Host pool;
+        // a host found with no connections left may be removed under us, then a new one is put in its place
+        do
+            pool = hosts.computeIfAbsent(key(host, port), k -> new Host(k, maxPerHost));
+        while (!pool.retain());
+        try {
+            reserve(pool, host, port);
+        } catch (IOException | RuntimeException e) {
+            unref(pool);
+            throw e;
+        }
+        try {
+            Connection connection;
+            while (!fresh && (connection = pool.idle.pollFirst()) != null) {
+                pool.idleCount.decrementAndGet();
+                idleCount.decrementAndGet();
+                // the checkout holds its own reference
+                unref(pool);
+                if (connection.isOpen()) {
+                    reused.increment();
+                    recordCheckout(start);
+                    return connection;
+                }
+                closeQuietly(connection);
+            }
+            connection = Connection.open(host, port, connectTimeoutMillis, readTimeoutMillis);
+            created.increment();
+            recordCheckout(start);
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            pool.permits.release();
+            inUse.release();
+            unref(pool);
+            throw e;
+        }
+    }
+
+    private void reserve(Host pool, String host, int port) throws IOException {
+        long deadline = clock.nanoTime() + maxWaitNanos;
+        try {
+            if (!pool.permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS))
+                throw new IOException("No connection to " + key(host, port) + " freed within the wait limit");
+            if (!inUse.tryAcquire(Math.max(0, deadline - clock.nanoTime()), TimeUnit.NANOSECONDS)) {
+                pool.permits.release();
+                throw new IOException("No connection freed within the wait limit");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    private void recordCheckout(long start) {
+        long elapsed = clock.nanoTime() - start;
+        checkoutNanos.add(elapsed);
+        maxCheckoutNanos.accumulate(elapsed);
+    }
+
+    /**
+     * Hands back a connection without a status, e.g. after a failed exchange.
+     *
+     * @param connection the connection
+     * @param reusable   {@code true} if the exchange left the connection ready for another request
+     * @throws IllegalArgumentException if the connection was not checked out from this pool; it is closed
+     */
+    public void release(Connection connection, boolean reusable) {
+        release(connection, null, reusable);
+    }
+
+    /**
+     * Hands back a connection after a request. It is kept as idle only if reusable, the status is not in the drop
+     * set and the idle caps allow it; otherwise it is closed.
+     *
+     * @param connection the connection
+     * @param status     the status of the response, or {@code null} if none was received
+     * @param reusable   {@code true} if the exchange left the connection ready for another request
+     * @throws IllegalArgumentException if the connection was not checked out from this pool; it is closed
+     */
+    public void release(Connection connection, HTTPCodes status, boolean reusable) {
+        Host pool = hosts.get(key(connection.getHost(), connection.getPort()));
+        // a checkout holds its host, so no entry means the connection is not ours
+        if (pool == null) {
+            closeQuietly(connection);
+            throw new IllegalArgumentException("Connection to " + key(connection.getHost(), connection.getPort())
+                    + " was not checked out from this pool");
+        }
+        boolean keep = reusable && !closed && connection.isOpen() && (status == null || !dropCodes.contains(status));
+        if (keep && pool.idleCount.incrementAndGet() > maxPerHost) {
+            pool.idleCount.decrementAndGet();
+            keep = false;
+        }
+        if (keep && idleCount.incrementAndGet() > maxTotal) {
+            idleCount.decrementAndGet();
+            pool.idleCount.decrementAndGet();
+            keep = false;
+        }
+        long now = clock.nanoTime();
+        // an idle connection keeps the reference of its checkout
+        if (keep) {
+            connection.markUsed(now);
+            pool.idle.addFirst(connection);
+            schedule(pool, connection);
+        } else
+            closeQuietly(connection);
+        pool.permits.release();
+        inUse.release();
+        if (!keep)
+            unref(pool);
+        // a close racing with the checkin may have missed the connection
+        else if (closed && pool.idle.removeFirstOccurrence(connection)) {
+            pool.idleCount.decrementAndGet();
+            idleCount.decrementAndGet();
+            closeQuietly(connection);
+            unref(pool);
+        }
+        advance(now);
+    }
+
+    /**
+     * Closes the connections whose idle timeout has passed. Checkouts and checkins do this as they go; an explicit
+     * call is only needed to reclaim connections from a pool that is no longer used.
+     */
+    public void evictIdle() {
+        advance(clock.nanoTime());
+    }
+
+    private void schedule(Host pool, Connection connection) {
+        if (connection.scheduleExpiry()) {
+            long deadline = connection.getLastUsed() + idleNanos;
+            wheel[slot(deadline)].offer(new Expiry(pool, connection, deadline));
+        }
+    }
+
+    // index of the slot for the first tick at or after the given time
+    private int slot(long nanoTime) {
+        return (int) (-Math.floorDiv(-nanoTime, tickNanos) & (WHEEL_SLOTS - 1));
+    }
+
+    private void advance(long now) {
+        long target = Math.floorDiv(now, tickNanos);
+        long current = wheelTick.get();
+        // one thread runs the due ticks, the others move on
+        if (target <= current || !wheelTick.compareAndSet(current, target))
+            return;
+        for (long tick = Math.max(current + 1, target - WHEEL_SLOTS + 1); tick <= target; tick++)
+            expire(wheel[(int) (tick & (WHEEL_SLOTS - 1))], now);
+    }
+
+    private void expire(Queue<Expiry> slot, long now) {
+        List<Expiry> due = new ArrayList<>();
+        Expiry expiry;
+        while ((expiry = slot.poll()) != null)
+            due.add(expiry);
+        for (Expiry entry : due) {
+            // a checkin since the entry was queued pushed the deadline back
+            entry.deadline = entry.connection.getLastUsed() + idleNanos;
+            if (entry.deadline > now) {
+                wheel[slot(entry.deadline)].offer(entry);
+            } else if (entry.pool.idle.removeFirstOccurrence(entry.connection)) {
+                entry.pool.idleCount.decrementAndGet();
+                idleCount.decrementAndGet();
+                closeQuietly(entry.connection);
+                unref(entry.pool);
+            } else {
+                // checked out or closed; a checkin racing with this finds the entry gone and queues a new one
+                entry.connection.expiryDropped();
+                if (entry.pool.idle.contains(entry.connection))
+                    schedule(entry.pool, entry.connection);
+            }
+        }
+    }
+
+    /**
+     * @return the fraction, from 0 to 1, of checkouts served by an idle connection rather than a new one
+     */
+    public double getReuseRate() {
+        long reuse = reused.sum();
+        long total = reuse + created.sum();
+        return total == 0 ? 0 : (double) reuse / total;
+    }
+
+    /**
+     * @return the number of successful checkouts
+     */
+    public long getCheckouts() {
+        return reused.sum() + created.sum();
+    }
+
+    /**
+     * @return the mean time a successful checkout took, including any wait and connect, in nanoseconds
+     */
+    public double getAverageCheckoutNanos() {
+        long checkouts = getCheckouts();
+        return checkouts == 0 ? 0 : (double) checkoutNanos.sum() / checkouts;
+    }
+
+    /**
+     * @return the longest time a successful checkout took, in nanoseconds
+     */
+    public long getMaxCheckoutNanos() {
+        return maxCheckoutNanos.get();
+    }
+
+    /**
+     * @return the number of connections checked out
+     */
+    public int getInUse() {
+        return maxTotal - inUse.availablePermits();
+    }
+
+    /**
+     * @return the number of idle connections kept
+     */
+    public int getIdle() {
+        return idleCount.get();
+    }
+
+    /**
+     * Closes every idle connection and makes the pool close connections handed back from now on.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Host pool : hosts.values()) {
+            Connection connection;
+            while ((connection = pool.idle.pollFirst()) != null) {
+                pool.idleCount.decrementAndGet();
+                idleCount.decrementAndGet();
+                closeQuietly(connection);
+                unref(pool);
+            }
+        }
+    }
+
+    // drops a reference to the host, and the host itself once no connection or checkout refers to it
+    private void unref(Host pool) {
+        if (pool.references.decrementAndGet() == 0 && pool.references.compareAndSet(0, -1))
+            hosts.remove(pool.key, pool);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+            // nothing useful to do with a failure to close
+        }
+    }
+
+    // connections of one host and port
+    private static final class Host {
+        private final String key;
+        private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final Semaphore permits;
+        // checkouts in progress, connections checked out and idle connections; -1 once removed from the map
+        private final AtomicInteger references = new AtomicInteger();
+
+        private Host(String key, int maxPerHost) {
+            this.key = key;
+            this.permits = new Semaphore(maxPerHost);
+        }
+
+        private boolean retain() {
+            while (true) {
+                int count = references.get();
+                if (count < 0)
+                    return false;
+                if (references.compareAndSet(count, count + 1))
+                    return true;
+            }
+        }
+    }
+
+    // timer wheel entry of an idle connection
+    private static final class Expiry {
+        private final Host pool;
+        private final Connection connection;
+        private long deadline;
+
+        private Expiry(Host pool, Connection connection, long deadline) {
+            this.pool = pool;
+            this.connection = connection;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.chiragji.utils.http.client;
+
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.HeaderFields;
+import com.chiragji.utils.http.util.StatusLineParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Minimal blocking HTTP/1.1 client, built to run one request per thread and in particular one per virtual thread.
+ * <p>
+ * Each call blocks its thread on plain socket I/O. No monitor is held around that I/O and the {@link ConnectionPool}
+ * checks connections in and out without locks, so a virtual thread parked on the network frees its carrier. The
+ * status line of each response is resolved straight to the {@code HTTPCodes} constants by {@link StatusLineParser}.
+ * Only plain {@code http} URIs are supported.
+ * <p>
+ * Bodies are read fully into memory. A request holds the 8 KiB read buffer of its connection, the fields of a response
+ * head of at most 64 KiB and the body, at most {@code maxBodySize} bytes and 1 MiB by default. A chunked or
+ * close-delimited body is collected in a growing buffer and copied once at the end, which briefly takes up to three
+ * times its size. A request waiting for a connection holds none of this, so however many threads share a client, the
+ * memory of the requests in flight is bounded by the pool's {@code maxTotal} times that amount.
+ * <p>
+ * A request that fails on a pooled connection before any response byte arrived, which is how a connection closed by
+ * the server while idle shows up, is sent once more on a newly opened connection if its method is idempotent. The
+ * other idle connections to the server were likely closed as well, so the retry does not take one of them.
+ * <p>
+ * The method and header names must be tokens and header values ISO-8859-1 text without CR, LF or NUL, as checked by
+ * {@link HeaderFields}, so no caller-supplied text can end a header line early and inject fields or a second request.
+ *
+ * @author Chirag Gupta
+ */
+public final class HttpClient implements Closeable {
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final int maxBodySize;
+    private final ConnectionPool pool;
+
+    /**
+     * Creates a client with 10 second timeouts, a 1 MiB body limit and a {@link ConnectionPool} with default
+     * settings.
+     */
+    public HttpClient() {
+        this(10_000, 10_000, 1 << 20, new ConnectionPool());
+    }
+
+    /**
+     * @param connectTimeoutMillis the connect timeout, {@code 0} for none
+     * @param readTimeoutMillis    the timeout of each read, {@code 0} for none
+     * @param maxBodySize          the largest response body accepted, in bytes
+     * @param pool                 the pool keeping persistent connections
+     */
+    public HttpClient(int connectTimeoutMillis, int readTimeoutMillis, int maxBodySize, ConnectionPool pool) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.maxBodySize = maxBodySize;
+        this.pool = pool;
+    }
+
+    /**
+     * @param uri the resource to fetch
+     * @return the response
+     * @throws IOException if the exchange fails
+     */
+    public HttpResponse get(URI uri) throws IOException {
+        return execute("GET", uri, Collections.<String, String>emptyMap(), null);
+    }
+
+    /**
+     * Sends a request and reads its response.
+     *
+     * @param method  the request method, e.g. {@code GET}
+     * @param uri     the target, an absolute {@code http} URI
+     * @param headers extra header fields; Host and Content-Length are added by the client
+     * @param body    the request body, or {@code null} for none
+     * @return the response
+     * @throws IOException              if the exchange fails, e.g. with a {@link ProtocolException} if the response
+     *                                  is malformed
+     * @throws IllegalArgumentException if the URI is not an absolute http URI, or the method or a header field is
+     *                                  malformed
+     */
+    public HttpResponse execute(String method, URI uri, Map<String, String> headers, byte[] body)
+            throws IOException {
+        if (!"http".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null)
+            throw new IllegalArgumentException("Only absolute http URIs are supported: " + uri);
+        String host = uri.getHost();
+        int port = uri.getPort() < 0 ? 80 : uri.getPort();
+        byte[] head = requestHead(method, uri, port, headers, body);
+        boolean retryOnStale = isIdempotent(method);
+        boolean retried = false;
+        while (true) {
+            Connection connection = pool.acquire(host, port, connectTimeoutMillis, readTimeoutMillis, retried);
+            boolean pooled = connection.isReused();
+            connection.takeBytesRead();
+            HTTPCodes status = null;
+            boolean reusable = false;
+            try {
+                connection.write(head);
+                if (body != null)
+                    connection.write(body);
+                connection.flush();
+                Exchange exchange = readResponse(connection, uri, "HEAD".equalsIgnoreCase(method));
+                status = exchange.response.getStatus();
+                reusable = exchange.reusable;
+                return exchange.response;
+            } catch (IOException e) {
+                if (pooled && retryOnStale && !retried && connection.takeBytesRead() == 0) {
+                    retried = true;
+                    continue;
+                }
+                throw e;
+            } finally {
+                pool.release(connection, status, reusable);
+            }
+        }
+    }
+
+    private static boolean isIdempotent(String method) {
+        switch (method.toUpperCase()) {
+            case "GET":
+            case "HEAD":
+            case "PUT":
+            case "DELETE":
+            case "OPTIONS":
+            case "TRACE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static byte[] requestHead(String method, URI uri, int port, Map<String, String> headers, byte[] body) {
+        if (!HeaderFields.isToken(method))
+            throw new IllegalArgumentException("Malformed request method: " + method);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (!HeaderFields.isToken(header.getKey()))
+                throw new IllegalArgumentException("Malformed header name: " + header.getKey());
+            if (!HeaderFields.isFieldValue(header.getValue()))
+                throw new IllegalArgumentException("Malformed value of header " + header.getKey());
+        }
+        String target = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null)
+            target += '?' + uri.getRawQuery();
+        StringBuilder head = new StringBuilder(128).append(method).append(' ').append(target).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(uri.getHost());
+        if (port != 80)
+            head.append(':').append(port);
+        head.append("\r\n");
+        for (Map.Entry<String, String> header : headers.entrySet())
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        if (body != null)
+            head.append("Content-Length: ").append(body.length).append("\r\n");
+        return head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private Exchange readResponse(Connection connection, URI uri, boolean headRequest) throws IOException {
+        StatusLineParser parser = connection.statusLineParser();
+        while (true) {
+            parser.reset();
+            while (true) {
+                int consumed;
+                try {
+                    consumed = parser.parse(connection.buffer(), connection.position(), connection.available());
+                } catch (IllegalArgumentException e) {
+                    ProtocolException malformed = new ProtocolException(e.getMessage());
+                    malformed.initCause(e);
+                    throw malformed;
+                }
+                connection.skip(consumed);
+                if (parser.isComplete())
+                    break;
+                if (!connection.fill())
+                    throw new EOFException("Connection closed before the status line was complete");
+            }
+            Map<String, List<String>> headers = readHeaders(connection);
+            int code = parser.getCode();
+            // interim responses such as 100 Continue precede the final one; 101 ends HTTP on this connection
+            if (code >= 100 && code < 200 && code != 101)
+                continue;
+            boolean http11 = parser.getMajorVersion() == 1 && parser.getMinorVersion() >= 1;
+            boolean keepAlive = http11 ? !hasToken(headers, "Connection", "close")
+                    : hasToken(headers, "Connection", "keep-alive");
+            byte[] body;
+            if (headRequest || code == 204 || code == 304 || code < 200)
+                body = new byte[0];
+            else if (hasToken(headers, "Transfer-Encoding", "chunked"))
+                body = readChunked(connection);
+            else if (first(headers, "Content-Length") != null)
+                body = readFixed(connection, parseLength(first(headers, "Content-Length")));
+            else {
+                body = readToEnd(connection);
+                keepAlive = false;
+            }
+            HttpResponse response = new HttpResponse(uri, parser.getStatus(), code, headers, body);
+            return new Exchange(response, keepAlive && code != 101);
+        }
+    }
+
+    private static Map<String, List<String>> readHeaders(Connection connection) throws IOException {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        StringBuilder line = new StringBuilder(64);
+        int total = 0;
+        while (true) {
+            line.setLength(0);
+            int b;
+            while ((b = connection.read()) != '\n') {
+                if (++total > MAX_HEAD_SIZE)
+                    throw new IOException("Response head exceeds " + MAX_HEAD_SIZE + " bytes");
+                if (b != '\r')
+                    line.append((char) b);
+            }
+            if (line.length() == 0)
+                return headers;
+            int colon = line.indexOf(":");
+            if (colon <= 0)
+                throw new IOException("Malformed header field: " + line);
+            headers.computeIfAbsent(line.substring(0, colon).trim(), k -> new ArrayList<>(1))
+                    .add(line.substring(colon + 1).trim());
+        }
+    }
+
+    private static String first(Map<String, List<String>> headers, String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    private static boolean hasToken(Map<String, List<String>> headers, String name, String token) {
+        List<String> values = headers.get(name);
+        if (values != null)
+            for (String value : values)
+                for (String part : value.split(","))
+                    if (part.trim().equalsIgnoreCase(token))
+                        return true;
+        return false;
+    }
+
+    private long parseLength(String value) throws IOException {
+        try {
+            long length = Long.parseLong(value);
+            if (length < 0)
+                throw new IOException("Negative Content-Length: " + value);
+            return length;
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed Content-Length: " + value, e);
+        }
+    }
+
+    private byte[] readFixed(Connection connection, long length) throws IOException {
+        if (length > maxBodySize)
+            throw new IOException("Response body of " + length + " bytes exceeds " + maxBodySize);
+        byte[] body = new byte[(int) length];
+        readFully(connection, body, 0, body.length);
+        return body;
+    }
+
+    private byte[] readChunked(Connection connection) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        while (true) {
+            long size = 0;
+            int b;
+            // chunk size in hex, then optional extensions up to the line end
+            while ((b = connection.read()) != '\r' && b != '\n' && b != ';') {
+                int digit = Character.digit(b, 16);
+                if (digit < 0 || size > maxBodySize)
+                    throw new IOException("Malformed chunk size");
+                size = size * 16 + digit;
+            }
+            while (b != '\n')
+                b = connection.read();
+            if (size == 0)
+                break;
+            if (body.size() + size > maxBodySize)
+                throw new IOException("Response body exceeds " + maxBodySize + " bytes");
+            for (long remaining = size; remaining > 0; ) {
+                int count = (int) Math.min(remaining, chunk.length);
+                readFully(connection, chunk, 0, count);
+                body.write(chunk, 0, count);
+                remaining -= count;
+            }
+            if (connection.read() != '\r' || connection.read() != '\n')
+                throw new IOException("Missing line end after chunk");
+        }
+        // trailer fields, ignored
+        readHeaders(connection);
+        return body.toByteArray();
+    }
+
+    private byte[] readToEnd(Connection connection) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = connection.read(chunk, 0, chunk.length)) >= 0) {
+            if (body.size() + read > maxBodySize)
+                throw new IOException("Response body exceeds " + maxBodySize + " bytes");
+            body.write(chunk, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private static void readFully(Connection connection, byte[] dst, int offset, int length) throws IOException {
+        while (length > 0) {
+            int read = connection.read(dst, offset, length);
+            if (read < 0)
+                throw new EOFException("Connection closed in the middle of the body");
+            offset += read;
+            length -= read;
+        }
+    }
+
+    /**
+     * Closes the idle connections of the pool.
+     */
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    private static final class Exchange {
+        private final HttpResponse response;
+        private final boolean reusable;
+
+        private Exchange(HttpResponse response, boolean reusable) {
+            this.response = response;
+            this.reusable = reusable;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.chiragji.utils.http.client;
+
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A response received by {@link HttpClient}, with its body fully read.
+ *
+ * @author Chirag Gupta
+ */
+public final class HttpResponse {
+    private final URI uri;
+    private final HTTPCodes status;
+    private final int code;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+
+    HttpResponse(URI uri, HTTPCodes status, int code, Map<String, List<String>> headers, byte[] body) {
+        this.uri = uri;
+        this.status = status;
+        this.code = code;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+    }
+
+    /**
+     * @return the URI the request was sent to
+     */
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the status constant, or {@link com.chiragji.utils.http.enums.UnknownCode#UNKNOWN} for a code no enum
+     * defines
+     */
+    public HTTPCodes getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the numeric status code as received, also for unknown codes
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return the header fields by case-insensitive name
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @param name the field name, in any case
+     * @return the first value of the field, or {@code null} if absent
+     */
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    /**
+     * @return the body, empty if the response had none
+     */
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,180 @@
+package com.chiragji.utils.http.client;
+
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.NanoClock;
+import com.chiragji.utils.http.util.SampledEviction;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of permanent redirects, {@link RedirectionCodes#MOVED_PERMANENTLY} and
+ * {@link RedirectionCodes#PERMANENT_REDIRECT}, so that {@link RedirectFollower} can send a repeated request straight to
+ * the target instead of asking the old location first.
+ * <p>
+ * Entries expire after a fixed TTL, since a "permanent" redirect can still be changed by the server. The entries live
+ * in a {@link ConcurrentHashMap}; when it is full a new entry evicts the least recently read of a small random sample
+ * of entries, see {@link SampledEviction}, the same approximation of LRU as
+ * {@link com.chiragji.utils.http.resilience.RateLimiter}. As there, the read time is only refreshed once it is a
+ * sixteenth of the TTL old, so hot entries skip most writes.
+ *
+ * @author Chirag Gupta
+ */
+public final class RedirectCache {
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long touchGranularity;
+    private final NanoClock clock;
+    private final ConcurrentHashMap<String, Redirect> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache of up to 10000 redirects kept for one hour.
+     */
+    public RedirectCache() {
+        this(10_000, 1, TimeUnit.HOURS, NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param maxEntries the maximum number of redirects kept
+     * @param ttl        how long a redirect is kept
+     * @param unit       the unit of {@code ttl}
+     * @param clock      the time source
+     */
+    public RedirectCache(int maxEntries, long ttl, TimeUnit unit, NanoClock clock) {
+        if (maxEntries <= 0 || ttl <= 0)
+            throw new IllegalArgumentException("Entry limit and TTL must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.touchGranularity = Math.max(1, ttlNanos / 16);
+        this.clock = clock;
+    }
+
+    // the fragment is never sent, so it does not take part in the lookup
+    private static String key(URI uri) {
+        String key = uri.toString();
+        int hash = key.indexOf('#');
+        return hash < 0 ? key : key.substring(0, hash);
+    }
+
+    /**
+     * @param status a redirect status
+     * @return {@code true} for the statuses this cache keeps
+     */
+    public static boolean isPermanent(HTTPCodes status) {
+        return status == RedirectionCodes.MOVED_PERMANENTLY || status == RedirectionCodes.PERMANENT_REDIRECT;
+    }
+
+    /**
+     * Remembers a redirect. Statuses other than the permanent ones are ignored.
+     *
+     * @param source the URI that answered with the redirect
+     * @param target the resolved Location of the redirect
+     * @param status the redirect status
+     */
+    public void put(URI source, URI target, HTTPCodes status) {
+        if (!isPermanent(status))
+            return;
+        String key = key(source);
+        long now = clock.nanoTime();
+        entries.put(key, new Redirect(target, (RedirectionCodes) status, now + ttlNanos, now));
+        while (entries.size() > maxEntries)
+            if (!SampledEviction.evictOne(entries, EVICTION_SAMPLE, redirect -> redirect.lastRead, key))
+                break;
+    }
+
+    /**
+     * @param source the URI about to be requested
+     * @return the cached redirect for the URI, or {@code null} if there is none or it has expired
+     */
+    public Redirect get(URI source) {
+        String key = key(source);
+        Redirect redirect = entries.get(key);
+        if (redirect != null) {
+            long now = clock.nanoTime();
+            if (now - redirect.expiresAt >= 0) {
+                entries.remove(key, redirect);
+                redirect = null;
+            } else if (now - redirect.lastRead >= touchGranularity)
+                redirect.lastRead = now;
+        }
+        (redirect == null ? misses : hits).increment();
+        return redirect;
+    }
+
+    /**
+     * Forgets the redirect of a URI, e.g. when the target turned out to be gone.
+     *
+     * @param source the URI
+     */
+    public void invalidate(URI source) {
+        entries.remove(key(source));
+    }
+
+    /**
+     * Drops every expired redirect. This scans all the entries, so it is meant to be run periodically from a
+     * maintenance thread rather than on the request path.
+     */
+    public void evictExpired() {
+        long now = clock.nanoTime();
+        entries.values().removeIf(redirect -> now - redirect.expiresAt >= 0);
+    }
+
+    /**
+     * @return the number of redirects currently kept
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups that found a redirect, each one a request not sent
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that found nothing
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * A cached redirect.
+     */
+    public static final class Redirect {
+        private final URI target;
+        private final RedirectionCodes status;
+        private final long expiresAt;
+        private volatile long lastRead;
+
+        private Redirect(URI target, RedirectionCodes status, long expiresAt, long lastRead) {
+            this.target = target;
+            this.status = status;
+            this.expiresAt = expiresAt;
+            this.lastRead = lastRead;
+        }
+
+        /**
+         * @return the URI redirected to
+         */
+        public URI getTarget() {
+            return target;
+        }
+
+        /**
+         * @return {@link RedirectionCodes#MOVED_PERMANENTLY} or {@link RedirectionCodes#PERMANENT_REDIRECT}
+         */
+        public RedirectionCodes getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.chiragji.utils.http.client;
+
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.StatusCodeSet;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sends requests through an {@link HttpClient} and follows the redirects they are answered with.
+ * <p>
+ * The statuses in {@link #FOLLOWED} are followed to their Location, resolved against the URI that answered. The
+ * method is rewritten the way user agents do: {@link RedirectionCodes#SEE_OTHER} turns every method but HEAD into a
+ * GET without body, {@link RedirectionCodes#MOVED_PERMANENTLY} and {@link RedirectionCodes#FOUND} turn a POST into a
+ * GET, and {@link RedirectionCodes#TEMP_REDIRECT} and {@link RedirectionCodes#PERMANENT_REDIRECT} keep the method and
+ * body as they are. Credentials and cookies are not sent on to another host. A redirect without a usable Location, or
+ * to a scheme the client does not speak, is returned as the response.
+ * <p>
+ * Following stops with an {@link IOException} when a request would be repeated, which means the redirects loop, or
+ * after the maximum number of hops. Permanent redirects are remembered in a {@link RedirectCache} and applied before
+ * later requests are sent, saving the round-trip to the old location.
+ *
+ * @author Chirag Gupta
+ */
+public final class RedirectFollower {
+    /**
+     * The statuses that are followed: {@link RedirectionCodes#MOVED_PERMANENTLY}, {@link RedirectionCodes#FOUND},
+     * {@link RedirectionCodes#SEE_OTHER}, {@link RedirectionCodes#TEMP_REDIRECT} and
+     * {@link RedirectionCodes#PERMANENT_REDIRECT}.
+     */
+    public static final StatusCodeSet FOLLOWED = StatusCodeSet.of(RedirectionCodes.MOVED_PERMANENTLY,
+            RedirectionCodes.FOUND, RedirectionCodes.SEE_OTHER, RedirectionCodes.TEMP_REDIRECT,
+            RedirectionCodes.PERMANENT_REDIRECT);
+
+    private static final String[] CREDENTIAL_HEADERS = {"Authorization", "Proxy-Authorization", "Cookie"};
+    private static final String[] BODY_HEADERS = {"Content-Type", "Content-Encoding", "Content-Language"};
+
+    private final HttpClient client;
+    private final RedirectCache cache;
+    private final int maxRedirects;
+
+    /**
+     * Creates a follower allowing 10 redirects per request, with a {@link RedirectCache} of default settings.
+     *
+     * @param client the client sending the requests
+     */
+    public RedirectFollower(HttpClient client) {
+        this(client, new RedirectCache(), 10);
+    }
+
+    /**
+     * @param client       the client sending the requests
+     * @param cache        the cache of permanent redirects, or {@code null} to always ask the old location
+     * @param maxRedirects the most redirects followed for one request
+     */
+    public RedirectFollower(HttpClient client, RedirectCache cache, int maxRedirects) {
+        if (maxRedirects < 0)
+            throw new IllegalArgumentException("Redirect limit must not be negative");
+        this.client = client;
+        this.cache = cache;
+        this.maxRedirects = maxRedirects;
+    }
+
+    /**
+     * @param uri the resource to fetch
+     * @return the final response
+     * @throws IOException if an exchange fails, or the redirects loop or exceed the limit
+     */
+    public HttpResponse get(URI uri) throws IOException {
+        return execute("GET", uri, Collections.<String, String>emptyMap(), null);
+    }
+
+    /**
+     * Sends a request and follows the redirects it is answered with.
+     *
+     * @param method  the request method
+     * @param uri     the target, an absolute {@code http} URI
+     * @param headers extra header fields
+     * @param body    the request body, or {@code null} for none
+     * @return the final response; {@link HttpResponse#getUri()} tells where it came from
+     * @throws IOException if an exchange fails, or the redirects loop or exceed the limit
+     */
+    public HttpResponse execute(String method, URI uri, Map<String, String> headers, byte[] body)
+            throws IOException {
+        Hop hop = new Hop(method, uri, headers, body);
+        while (true) {
+            if (cache != null) {
+                RedirectCache.Redirect cached;
+                while ((cached = cache.get(hop.uri)) != null)
+                    hop.follow(cached.getStatus(), cached.getTarget());
+            }
+            HttpResponse response = client.execute(hop.method, hop.uri, hop.headers, hop.body);
+            HTTPCodes status = response.getStatus();
+            if (!FOLLOWED.contains(status))
+                return response;
+            URI target = location(response);
+            if (target == null)
+                return response;
+            if (cache != null)
+                cache.put(hop.uri, target, status);
+            hop.follow(status, target);
+        }
+    }
+
+    private static URI location(HttpResponse response) {
+        String location = response.getHeader("Location");
+        if (location == null)
+            return null;
+        try {
+            URI target = response.getUri().resolve(location.trim());
+            return "http".equalsIgnoreCase(target.getScheme()) && target.getHost() != null ? target : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gives the method a redirected request is sent with.
+     *
+     * @param status the redirect status
+     * @param method the method of the redirected request
+     * @return the method to use at the Location
+     */
+    public static String rewriteMethod(HTTPCodes status, String method) {
+        if (status == RedirectionCodes.SEE_OTHER)
+            return "HEAD".equalsIgnoreCase(method) ? method : "GET";
+        if ((status == RedirectionCodes.MOVED_PERMANENTLY || status == RedirectionCodes.FOUND)
+                && "POST".equalsIgnoreCase(method))
+            return "GET";
+        return method;
+    }
+
+    private static Map<String, String> without(Map<String, String> headers, String[] names) {
+        Map<String, String> kept = new LinkedHashMap<>(headers);
+        kept.keySet().removeIf(name -> {
+            for (String removed : names)
+                if (removed.equalsIgnoreCase(name))
+                    return true;
+            return false;
+        });
+        return kept;
+    }
+
+    // the request about to be sent, updated at each redirect
+    private final class Hop {
+        private final Set<String> visited = new HashSet<>();
+        private String method;
+        private URI uri;
+        private Map<String, String> headers;
+        private byte[] body;
+        private int redirects;
+
+        private Hop(String method, URI uri, Map<String, String> headers, byte[] body) {
+            this.method = method;
+            this.uri = uri;
+            this.headers = headers;
+            this.body = body;
+            visited.add(method.toUpperCase() + ' ' + uri);
+        }
+
+        private void follow(HTTPCodes status, URI target) throws IOException {
+            if (++redirects > maxRedirects)
+                throw new IOException("More than " + maxRedirects + " redirects, the last to " + target);
+            String rewritten = rewriteMethod(status, method);
+            if (!rewritten.equals(method)) {
+                body = null;
+                headers = without(headers, BODY_HEADERS);
+            }
+            if (!target.getHost().equalsIgnoreCase(uri.getHost()) || target.getPort() != uri.getPort())
+                headers = without(headers, CREDENTIAL_HEADERS);
+            method = rewritten;
+            uri = target;
+            if (!visited.add(method.toUpperCase() + ' ' + uri))
+                throw new IOException("Redirect loop at " + method + ' ' + uri);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.chiragji.utils.http.enums;
 
 import com.chiragji.utils.http.interfaces.ErrorCode;
+import com.chiragji.utils.http.util.StatusLines;
+
+import java.nio.ByteBuffer;
 
 /**
  * The 4xx class of status code is intended for cases in which the client seems to have erred. Except when responding to
@@ -177,13 +180,13 @@ public enum ClientCodes implements ErrorCode {
      * implementations do exist. An Nginx HTTP server uses this code to simulate goto-like behaviour in its
      * configuration.
      */
-    I_M_A_TEAPOT(418, "I'm a teapot (RFC 2324)"),
+    I_M_A_TEAPOT(418, "I'm a teapot (RFC 2324)", "I'm a teapot"),
     /**
      * Returned by the Twitter Search and Trends API when the client is being rate limited. The text is a quote from
      * 'Demolition Man' and the '420' code is likely a reference to this number's association with marijuana. Other
      * services may wish to implement the 429 Too Many Requests response code instead.
      */
-    ENHANCE_YOUR_CALM(420, "Enhance Your Calm (Twitter)"),
+    ENHANCE_YOUR_CALM(420, "Enhance Your Calm (Twitter)", "Enhance Your Calm"),
     /**
      * The 422 (Unprocessable Entity) status code means the server understands the content type of the request entity
      * (hence a 415(Unsupported Media Type) status code is inappropriate), and the syntax of the request entity is
@@ -191,19 +194,19 @@ public enum ClientCodes implements ErrorCode {
      * instructions. For example, this error condition may occur if an XML request body contains well-formed
      * (i.e., syntactically correct), but semantically erroneous, XML instructions.
      */
-    UNPROCESSABLE_ENTITY(422, "Unprocessable Entity (WebDAV)"),
+    UNPROCESSABLE_ENTITY(422, "Unprocessable Entity (WebDAV)", "Unprocessable Entity"),
     /**
      * The 423 (Locked) status code means the source or destination resource of a method is locked. This response
      * SHOULD contain an appropriate precondition or postcondition code, such as 'lock-token-submitted' or
      * 'no-conflicting-lock'.
      */
-    LOCKED(423, "Locked (WebDAV)"),
+    LOCKED(423, "Locked (WebDAV)", "Locked"),
     /**
      * The 424 (Failed Dependency) status code means that the method could not be performed on the resource because the
      * requested action depended on another action and that action failed. For example, if a command in a PROPPATCH
      * method fails, then, at minimum, the rest of the commands will also fail with 424 (Failed Dependency).
      */
-    FAILED_DEPENDENCY(424, "Failed Dependency (WebDAV)"),
+    FAILED_DEPENDENCY(424, "Failed Dependency (WebDAV)", "Failed Dependency"),
     /**
      * Slein, J., Whitehead, E.J., et al., "WebDAV Advanced Collections Protocol", Work In Progress.
      * <p>
@@ -260,16 +263,17 @@ public enum ClientCodes implements ErrorCode {
      * An Nginx HTTP server extension. The server returns no information to the client and closes the connection
      * (useful as a deterrent for malware).
      */
-    NO_RESPONSE(444, "No Response (Nginx)"),
+    NO_RESPONSE(444, "No Response (Nginx)", "No Response"),
     /**
      * A Microsoft extension. The request should be retried after performing the appropriate action.
      */
-    RETRY_WITH(449, "Retry With (Microsoft)"),
+    RETRY_WITH(449, "Retry With (Microsoft)", "Retry With"),
     /**
      * A Microsoft extension. This error is given when Windows Parental Controls are turned on and are blocking access
      * to the given webpage.
      */
-    BLOCK_BY_WIN_PARENTAL_CONTROLS(450, "Blocked by Windows Parental Controls (Microsoft)"),
+    BLOCK_BY_WIN_PARENTAL_CONTROLS(450, "Blocked by Windows Parental Controls (Microsoft)",
+            "Blocked by Windows Parental Controls"),
     /**
      * Intended to be used when resource access is denied for legal reasons, e.g. censorship or government-mandated
      * blocked access. A reference to the 1953 dystopian novel Fahrenheit 451, where books are outlawed, and the
@@ -280,14 +284,22 @@ public enum ClientCodes implements ErrorCode {
      * An Nginx HTTP server extension. This code is introduced to log the case when the connection is closed by client
      * while HTTP server is processing its request, making server unable to send the HTTP header back.
      */
-    CLIENT_CLOSED_REQUEST(499, "Client Closed Request (Nginx)");
+    CLIENT_CLOSED_REQUEST(499, "Client Closed Request (Nginx)", "Client Closed Request");
 
     private final int code;
     private final String description;
+    private final String reasonPhrase;
+    private final ByteBuffer statusLine;
 
     ClientCodes(int code, String description) {
+        this(code, description, description);
+    }
+
+    ClientCodes(int code, String description, String reasonPhrase) {
         this.code = code;
         this.description = description;
+        this.reasonPhrase = reasonPhrase;
+        this.statusLine = StatusLines.encode(code, reasonPhrase);
     }
 
     public int getCode() {
@@ -296,4 +308,21 @@ public enum ClientCodes implements ErrorCode {
 
     public String getDescription() {
         return description;
-    }}
+    }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public ByteBuffer getStatusLine() {
+        return statusLine.duplicate();
+    }
+
+    public void copyStatusLine(ByteBuffer dst) {
+        StatusLines.copy(statusLine, dst);
+    }
+
+    public StatusClass getStatusClass() {
+        return StatusClass.CLIENT_ERROR;
+    }
+}
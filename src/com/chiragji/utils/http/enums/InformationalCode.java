@@ -1,6 +1,9 @@
 package com.chiragji.utils.http.enums;
 
 import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.StatusLines;
+
+import java.nio.ByteBuffer;
 
 /**
  * This class of status code indicates a provisional response, consisting only of the Status-Line and optional headers,
@@ -48,14 +51,22 @@ public enum InformationalCode implements HTTPCodes {
      * In such cases the client may time-out the connection while waiting for a response. To prevent this the server
      * may return a 102 (Processing) status code to indicate to the client that the server is still processing the method.
      */
-    PROCESSING_WebDAV(102, "Processing (WebDAV)");
+    PROCESSING_WebDAV(102, "Processing (WebDAV)", "Processing");
 
     private final int code;
     private final String description;
+    private final String reasonPhrase;
+    private final ByteBuffer statusLine;
 
     InformationalCode(int code, String description) {
+        this(code, description, description);
+    }
+
+    InformationalCode(int code, String description, String reasonPhrase) {
         this.code = code;
         this.description = description;
+        this.reasonPhrase = reasonPhrase;
+        this.statusLine = StatusLines.encode(code, reasonPhrase);
     }
 
     public int getCode() {
@@ -65,4 +76,20 @@ public enum InformationalCode implements HTTPCodes {
     public String getDescription() {
         return description;
     }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public ByteBuffer getStatusLine() {
+        return statusLine.duplicate();
+    }
+
+    public void copyStatusLine(ByteBuffer dst) {
+        StatusLines.copy(statusLine, dst);
+    }
+
+    public StatusClass getStatusClass() {
+        return StatusClass.INFORMATIONAL;
+    }
 }
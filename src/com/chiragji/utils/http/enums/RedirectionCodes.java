@@ -1,6 +1,9 @@
 package com.chiragji.utils.http.enums;
 
 import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.StatusLines;
+
+import java.nio.ByteBuffer;
 
 /**
  * This class of status code indicates that further action needs to be taken by the user agent in order to fulfill the
@@ -128,7 +131,7 @@ public enum RedirectionCodes implements HTTPCodes {
      * The 306 status code was used in a previous version of the specification, is no longer used, and the code is
      * reserved.
      */
-    UNUSED(306, "(Unused)"),
+    UNUSED(306, "(Unused)", "Unused"),
     /**
      * The requested resource resides temporarily under a different URI. Since the redirection MAY be altered on
      * occasion, the client SHOULD continue to use the Request-URI for future requests. This response is only cacheable
@@ -150,14 +153,22 @@ public enum RedirectionCodes implements HTTPCodes {
      * behaviours of 302 and 301, but do not require the HTTP method to change. So, for example, submitting a form to a
      * permanently redirected resource may continue smoothly.
      */
-    PERMANENT_REDIRECT(308, "Permanent Redirect (experimental)");
+    PERMANENT_REDIRECT(308, "Permanent Redirect (experimental)", "Permanent Redirect");
 
     private final int code;
     private final String description;
+    private final String reasonPhrase;
+    private final ByteBuffer statusLine;
 
     RedirectionCodes(int code, String description) {
+        this(code, description, description);
+    }
+
+    RedirectionCodes(int code, String description, String reasonPhrase) {
         this.code = code;
         this.description = description;
+        this.reasonPhrase = reasonPhrase;
+        this.statusLine = StatusLines.encode(code, reasonPhrase);
     }
 
     public String getDescription() {
@@ -167,4 +178,20 @@ public enum RedirectionCodes implements HTTPCodes {
     public int getCode() {
         return code;
     }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public ByteBuffer getStatusLine() {
+        return statusLine.duplicate();
+    }
+
+    public void copyStatusLine(ByteBuffer dst) {
+        StatusLines.copy(statusLine, dst);
+    }
+
+    public StatusClass getStatusClass() {
+        return StatusClass.REDIRECTION;
+    }
 }
@@ -1,6 +1,9 @@
 package com.chiragji.utils.http.enums;
 
 import com.chiragji.utils.http.interfaces.ErrorCode;
+import com.chiragji.utils.http.util.StatusLines;
+
+import java.nio.ByteBuffer;
 
 /**
  * Response status codes beginning with the digit "5" indicate cases in which the server is aware that it has erred or
@@ -57,25 +60,25 @@ public enum ServerError implements ErrorCode {
      * configured to engage in transparent content negotiation itself, and is therefore not a proper end point in the
      * negotiation process.
      */
-    VARIANT_ALSO_NEGOTIATES(506, "Variant Also Negotiates (Experimental)"),
+    VARIANT_ALSO_NEGOTIATES(506, "Variant Also Negotiates (Experimental)", "Variant Also Negotiates"),
     /**
      * The 507 (Insufficient Storage) status code means the method could not be performed on the resource because the
      * server is unable to store the representation needed to successfully complete the request. This condition is
      * considered to be temporary. If the request that received this status code was the result of a user action, the
      * request MUST NOT be repeated until it is requested by a separate user action.
      */
-    INSUFFICIENT_STORAGE(507, "Insufficient Storage (WebDAV)"),
+    INSUFFICIENT_STORAGE(507, "Insufficient Storage (WebDAV)", "Insufficient Storage"),
     /**
      * The 508 (Loop Detected) status code indicates that the server terminated an operation because it encountered an
      * infinite loop while processing a request with "Depth: infinity". This status indicates that the entire operation
      * failed.
      */
-    LOOP_DETECTED(508, "Loop Detected (WebDAV)"),
+    LOOP_DETECTED(508, "Loop Detected (WebDAV)", "Loop Detected"),
     /**
      * Wikipedia
      * This status code, while used by many servers, is not specified in any RFCs.
      */
-    BANDWIDTH_LIMIT_EXCEED(509, "Bandwidth Limit Exceeded (Apache)"),
+    BANDWIDTH_LIMIT_EXCEED(509, "Bandwidth Limit Exceeded (Apache)", "Bandwidth Limit Exceeded"),
     /**
      * The policy for accessing the resource has not been met in the request. The server should send back all the
      * information necessary for the client to issue an extended request. It is outside the scope of this specification
@@ -140,10 +143,18 @@ public enum ServerError implements ErrorCode {
 
     private final int code;
     private final String description;
+    private final String reasonPhrase;
+    private final ByteBuffer statusLine;
 
     ServerError(int code, String description) {
+        this(code, description, description);
+    }
+
+    ServerError(int code, String description, String reasonPhrase) {
         this.code = code;
         this.description = description;
+        this.reasonPhrase = reasonPhrase;
+        this.statusLine = StatusLines.encode(code, reasonPhrase);
     }
 
     public int getCode() {
@@ -153,4 +164,20 @@ public enum ServerError implements ErrorCode {
     public String getDescription() {
         return description;
     }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public ByteBuffer getStatusLine() {
+        return statusLine.duplicate();
+    }
+
+    public void copyStatusLine(ByteBuffer dst) {
+        StatusLines.copy(statusLine, dst);
+    }
+
+    public StatusClass getStatusClass() {
+        return StatusClass.SERVER_ERROR;
+    }
 }
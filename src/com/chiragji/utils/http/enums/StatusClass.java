@@ -0,0 +1,68 @@
+package com.chiragji.utils.http.enums;
+
+/**
+ * The first digit of the Status-Code defines the class of response. The last two digits do not have any
+ * categorization role.
+ *
+ * @author Chirag Gupta
+ * @see com.chiragji.utils.http.interfaces.HTTPCodes#getStatusClass()
+ */
+public enum StatusClass {
+    /**
+     * Status codes that are not in the 100-599 range.
+     */
+    UNKNOWN(0),
+    /**
+     * 1xx: Request received, continuing process.
+     */
+    INFORMATIONAL(1),
+    /**
+     * 2xx: The action was successfully received, understood, and accepted.
+     */
+    SUCCESS(2),
+    /**
+     * 3xx: Further action must be taken in order to complete the request.
+     */
+    REDIRECTION(3),
+    /**
+     * 4xx: The request contains bad syntax or cannot be fulfilled.
+     */
+    CLIENT_ERROR(4),
+    /**
+     * 5xx: The server failed to fulfill an apparently valid request.
+     */
+    SERVER_ERROR(5);
+
+    private static final StatusClass[] BY_DIGIT = {UNKNOWN, INFORMATIONAL, SUCCESS, REDIRECTION, CLIENT_ERROR,
+            SERVER_ERROR};
+
+    private final int digit;
+
+    StatusClass(int digit) {
+        this.digit = digit;
+    }
+
+    /**
+     * @return the leading digit shared by every status code of this class, or {@code 0} for {@link #UNKNOWN}
+     */
+    public int getDigit() {
+        return digit;
+    }
+
+    /**
+     * @return {@code true} for {@link #CLIENT_ERROR} and {@link #SERVER_ERROR}
+     */
+    public boolean isError() {
+        return this == CLIENT_ERROR || this == SERVER_ERROR;
+    }
+
+    /**
+     * Classifies a numeric status code by its leading digit.
+     *
+     * @param code the numeric status code
+     * @return the class of the code, or {@link #UNKNOWN} when the code is outside 100-599
+     */
+    public static StatusClass of(int code) {
+        return code >= 100 && code <= 599 ? BY_DIGIT[code / 100] : UNKNOWN;
+    }
+}
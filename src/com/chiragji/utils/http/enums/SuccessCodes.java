@@ -1,6 +1,9 @@
 package com.chiragji.utils.http.enums;
 
 import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.StatusLines;
+
+import java.nio.ByteBuffer;
 
 /**
  * This class of status code indicates that the client's request was successfully received, understood, and accepted.
@@ -122,14 +125,14 @@ public enum SuccessCodes implements HTTPCodes {
     /**
      * The 207 (Multi-Status) status code provides status for multiple independent operations (section 11).
      */
-    MULTI_STATUS(207, "Multi-Status (WebDAV)"),
+    MULTI_STATUS(207, "Multi-Status (WebDAV)", "Multi-Status"),
     /**
      * The 208 (Already Reported) status code can be used inside a DAV: propstat response element to avoid enumerating
      * the internal members of multiple bindings to the same collection repeatedly. For each binding to a collection
      * inside the request's scope, only one will be reported with a 200 status, while subsequent DAV:response elements
      * for all other bindings will use the 208 status, and no DAV:response elements for their descendants are included.
      */
-    ALREADY_REPORTED(208, "Already Reported (WebDAV)"),
+    ALREADY_REPORTED(208, "Already Reported (WebDAV)", "Already Reported"),
     /**
      * The server has fulfilled a GET request for the resource, and the response is a representation of the result of
      * one or more instance-manipulations applied to the current instance. The actual current instance might not be
@@ -151,10 +154,18 @@ public enum SuccessCodes implements HTTPCodes {
 
     private final int code;
     private final String description;
+    private final String reasonPhrase;
+    private final ByteBuffer statusLine;
 
     SuccessCodes(int code, String description) {
+        this(code, description, description);
+    }
+
+    SuccessCodes(int code, String description, String reasonPhrase) {
         this.code = code;
         this.description = description;
+        this.reasonPhrase = reasonPhrase;
+        this.statusLine = StatusLines.encode(code, reasonPhrase);
     }
 
     public int getCode() {
@@ -164,4 +175,20 @@ public enum SuccessCodes implements HTTPCodes {
     public String getDescription() {
         return description;
     }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public ByteBuffer getStatusLine() {
+        return statusLine.duplicate();
+    }
+
+    public void copyStatusLine(ByteBuffer dst) {
+        StatusLines.copy(statusLine, dst);
+    }
+
+    public StatusClass getStatusClass() {
+        return StatusClass.SUCCESS;
+    }
 }
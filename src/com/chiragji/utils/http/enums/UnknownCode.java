@@ -0,0 +1,58 @@
+package com.chiragji.utils.http.enums;
+
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Sentinel returned wherever a numeric status code has to be resolved to one of the known {@link HTTPCodes} constants
+ * but none of the defined enums carries that code. Using a constant instead of {@code null} lets callers compare with
+ * {@code ==} and keeps lookups free of null checks.
+ *
+ * @author Chirag Gupta
+ * @see com.chiragji.utils.http.util.HTTPCodeRegistry
+ */
+public enum UnknownCode implements HTTPCodes {
+    /**
+     * The status code is outside the 100-599 range or is not defined by any of the status code enums.
+     */
+    UNKNOWN(0, "Unknown");
+
+    private final int code;
+    private final String description;
+
+    UnknownCode(int code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getReasonPhrase() {
+        return description;
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, an unknown code has no status line to send
+     */
+    public ByteBuffer getStatusLine() {
+        throw new UnsupportedOperationException("No status line for an unknown status code");
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, an unknown code has no status line to send
+     */
+    public void copyStatusLine(ByteBuffer dst) {
+        throw new UnsupportedOperationException("No status line for an unknown status code");
+    }
+
+    public StatusClass getStatusClass() {
+        return StatusClass.UNKNOWN;
+    }
+}
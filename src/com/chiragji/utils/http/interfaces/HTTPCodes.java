@@ -1,9 +1,60 @@
 package com.chiragji.utils.http.interfaces;
 
+import com.chiragji.utils.http.enums.StatusClass;
+
+import java.nio.ByteBuffer;
+
 /**
  * This class represents all the status codes that are used widely in the HTTP Response from the server
+ * <p>
+ * The accessors are declared here so code holding an {@code HTTPCodes} can read the code without casting to the
+ * concrete enum.
+ * <p>
+ * The constants are spread over six enums, so a call site that sees several of them dispatches through the interface
+ * rather than a single receiver type. Code on a hot path reads {@link #getCode()} once and works on the number from
+ * there, as {@link com.chiragji.utils.http.util.StatusCodeSet} and
+ * {@link com.chiragji.utils.http.util.HTTPCodeRegistry} do.
  *
  * @author Chirag Gupta
  */
 public interface HTTPCodes {
+    /**
+     * @return the numeric status code, e.g. {@code 404}
+     */
+    int getCode();
+
+    /**
+     * @return the human readable description of the status code
+     */
+    String getDescription();
+
+    /**
+     * The description may carry annotations such as "(WebDAV)" or "(Nginx)"; the reason phrase is the bare text that
+     * is sent on the wire.
+     *
+     * @return the canonical reason phrase of the status code, e.g. {@code Not Found}
+     */
+    String getReasonPhrase();
+
+    /**
+     * The encoded {@code HTTP/1.1 <code> <reason-phrase>\r\n} line is built once per constant. This returns a
+     * read-only view over those bytes with its own position and limit, so it can be handed straight to a channel
+     * without encoding or copying.
+     *
+     * @return a read-only buffer positioned at the start of the status line
+     */
+    ByteBuffer getStatusLine();
+
+    /**
+     * Copies the cached status line into the given buffer.
+     *
+     * @param dst the buffer to write into; its position is advanced by the length of the line
+     * @throws java.nio.BufferOverflowException if {@code dst} does not have enough space remaining
+     */
+    void copyStatusLine(ByteBuffer dst);
+
+    /**
+     * @return the class of the status code, as given by its first digit
+     */
+    StatusClass getStatusClass();
 }
@@ -0,0 +1,352 @@
+package com.chiragji.utils.http.io;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of direct {@link ByteBuffer}s in power-of-two size classes, for the scratch buffers of encoders and parsers.
+ * <p>
+ * A request is rounded up to its size class and served, in order, from a small per-thread cache, from a shared
+ * lock-free queue for the class, and only then by {@link ByteBuffer#allocateDirect(int)}. Released buffers go back
+ * the same way, and buffers beyond what the caches may hold are dropped for the garbage collector to free. Requests
+ * larger than the biggest class are allocated and dropped without pooling. All direct memory the pool has allocated
+ * and not dropped, whether handed out or cached, counts against a configurable cap; past it {@link #acquire(int)}
+ * fails instead of growing the process.
+ * <p>
+ * The per-thread caches suit long-lived threads such as event loops, and are off unless a thread cache size is given.
+ * Buffers cached by a thread that ends are only given back to the cap once the garbage collector has found them
+ * unreachable, so pools used from short-lived or virtual threads should leave them off.
+ * <p>
+ * The pool knows every buffer it has allocated and rejects buffers released twice or not acquired from it, which
+ * would otherwise end up cached and handed to two users at once. Each buffer has a slot in a table indexed by its
+ * identity hash, holding a weak reference to it and whether it is handed out; acquiring and releasing only look the
+ * slot up and flip that state, and the table itself is only changed when a buffer is allocated or dropped. In debug
+ * mode the pool also remembers where each outstanding buffer was acquired and lists unreleased buffers through
+ * {@link #leaks()}.
+ *
+ * @author Chirag Gupta
+ */
+public final class BufferPool {
+    private static final int MIN_SHIFT = 8;
+    private static final int MIN_SLOT_BUCKETS = 64;
+    private static final int MAX_SLOT_BUCKETS = 1 << 16;
+
+    private final int maxShift;
+    private final int threadCacheSize;
+    private final int sharedCacheSize;
+    private final long maxReservedBytes;
+    private final boolean debug;
+
+    private final Queue<ByteBuffer>[] shared;
+    private final AtomicInteger[] sharedSizes;
+    private final ThreadLocal<ThreadCache> threadCaches;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder outstanding = new LongAdder();
+    // chains of the slots of every buffer allocated and not dropped; changed only while holding the array's lock
+    private final AtomicReferenceArray<Slot> slots;
+    private final ReferenceQueue<ByteBuffer> collected = new ReferenceQueue<>();
+    private final ConcurrentHashMap<Identity, Throwable> tracked;
+
+    /**
+     * Creates a pool with classes from 256 bytes to 1 MiB, no thread caches, 256 buffers per class shared, a 256 MiB
+     * cap and debug mode off.
+     */
+    public BufferPool() {
+        this(1 << 20, 0, 256, 256L << 20, false);
+    }
+
+    /**
+     * @param maxPooledSize    the largest size class; bigger requests bypass the pool
+     * @param threadCacheSize  the buffers per class each thread keeps for itself, {@code 0} to disable thread caches
+     * @param sharedCacheSize  the buffers per class kept in the shared queues
+     * @param maxReservedBytes the cap on direct memory allocated by the pool and not yet dropped
+     * @param debug            {@code true} to track outstanding buffers for leak detection
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(int maxPooledSize, int threadCacheSize, int sharedCacheSize, long maxReservedBytes,
+                      boolean debug) {
+        if (maxPooledSize < 1 << MIN_SHIFT || threadCacheSize < 0 || sharedCacheSize < 0 || maxReservedBytes <= 0)
+            throw new IllegalArgumentException("Invalid buffer pool settings");
+        this.maxShift = 32 - Integer.numberOfLeadingZeros(maxPooledSize - 1);
+        this.threadCacheSize = threadCacheSize;
+        this.sharedCacheSize = sharedCacheSize;
+        this.maxReservedBytes = maxReservedBytes;
+        this.debug = debug;
+        int classes = maxShift - MIN_SHIFT + 1;
+        this.shared = new Queue[classes];
+        this.sharedSizes = new AtomicInteger[classes];
+        for (int i = 0; i < classes; i++) {
+            shared[i] = new ConcurrentLinkedQueue<>();
+            sharedSizes[i] = new AtomicInteger();
+        }
+        this.threadCaches = ThreadLocal.withInitial(() -> new ThreadCache(classes, threadCacheSize));
+        // about one bucket per buffer the caches can hold
+        long cached = (long) classes * sharedCacheSize;
+        this.slots = new AtomicReferenceArray<>(
+                Integer.highestOneBit((int) Math.max(MIN_SLOT_BUCKETS, Math.min(MAX_SLOT_BUCKETS, cached)) * 2 - 1));
+        this.tracked = debug ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Takes a buffer of at least the requested size. The buffer is cleared and its limit set to {@code size}; its
+     * capacity may be larger.
+     *
+     * @param size the number of bytes needed
+     * @return a direct buffer, to be given back with {@link #release(ByteBuffer)}
+     * @throws IllegalStateException if allocating would exceed the cap on direct memory
+     */
+    public ByteBuffer acquire(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("Negative size: " + size);
+        int sizeClass = sizeClass(size);
+        ByteBuffer buffer = sizeClass < 0 ? null : take(sizeClass);
+        Slot slot;
+        if (buffer != null) {
+            hits.increment();
+            slot = find(buffer);
+        } else {
+            misses.increment();
+            buffer = allocate(sizeClass < 0 ? size : 1 << (sizeClass + MIN_SHIFT));
+            slot = register(buffer);
+        }
+        slot.outstanding = 1;
+        buffer.clear().limit(size);
+        outstanding.increment();
+        if (debug)
+            tracked.put(new Identity(buffer), new Throwable("Buffer of " + size + " bytes acquired here"));
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back to the pool. It must not be used afterwards.
+     *
+     * @param buffer a buffer obtained from {@link #acquire(int)} of this pool
+     * @throws IllegalStateException if the buffer is not outstanding from this pool
+     */
+    public void release(ByteBuffer buffer) {
+        Slot slot = buffer == null ? null : find(buffer);
+        if (slot == null || !Slot.OUTSTANDING.compareAndSet(slot, 1, 0))
+            throw new IllegalStateException("Buffer released twice or not acquired from this pool");
+        if (debug)
+            tracked.remove(new Identity(buffer));
+        outstanding.decrement();
+        int capacity = buffer.capacity();
+        int sizeClass = Integer.bitCount(capacity) == 1 ? sizeClass(capacity) : -1;
+        if (sizeClass < 0 || !offer(sizeClass, buffer)) {
+            // cleared so the collector does not queue it and count its bytes a second time
+            slot.clear();
+            unlink(slot);
+            reservedBytes.addAndGet(-capacity);
+        }
+    }
+
+    private Slot find(ByteBuffer buffer) {
+        int hash = System.identityHashCode(buffer);
+        for (Slot slot = slots.get(hash & (slots.length() - 1)); slot != null; slot = slot.next)
+            if (slot.hash == hash && slot.get() == buffer)
+                return slot;
+        return null;
+    }
+
+    private Slot register(ByteBuffer buffer) {
+        Slot slot = new Slot(buffer, collected);
+        int bucket = slot.hash & (slots.length() - 1);
+        synchronized (slots) {
+            slot.next = slots.get(bucket);
+            slots.set(bucket, slot);
+        }
+        return slot;
+    }
+
+    // lookups may run alongside; one standing on the removed slot still finds the rest of the chain through it
+    private boolean unlink(Slot slot) {
+        int bucket = slot.hash & (slots.length() - 1);
+        synchronized (slots) {
+            Slot previous = null;
+            for (Slot current = slots.get(bucket); current != null; previous = current, current = current.next) {
+                if (current != slot)
+                    continue;
+                if (previous == null)
+                    slots.set(bucket, current.next);
+                else
+                    previous.next = current.next;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // gives back the bytes of buffers collected without being released or dropped, e.g. left in a dead thread's cache
+    private void purgeCollected() {
+        Reference<? extends ByteBuffer> reference;
+        while ((reference = collected.poll()) != null) {
+            Slot slot = (Slot) reference;
+            if (unlink(slot))
+                reservedBytes.addAndGet(-slot.capacity);
+        }
+    }
+
+    private ByteBuffer take(int sizeClass) {
+        if (threadCacheSize > 0) {
+            ThreadCache cache = threadCaches.get();
+            int count = cache.counts[sizeClass];
+            if (count > 0) {
+                ByteBuffer buffer = cache.buffers[sizeClass][--count];
+                cache.buffers[sizeClass][count] = null;
+                cache.counts[sizeClass] = count;
+                return buffer;
+            }
+        }
+        ByteBuffer buffer = shared[sizeClass].poll();
+        if (buffer != null)
+            sharedSizes[sizeClass].decrementAndGet();
+        return buffer;
+    }
+
+    private boolean offer(int sizeClass, ByteBuffer buffer) {
+        if (threadCacheSize > 0) {
+            ThreadCache cache = threadCaches.get();
+            int count = cache.counts[sizeClass];
+            if (count < threadCacheSize) {
+                cache.buffers[sizeClass][count] = buffer;
+                cache.counts[sizeClass] = count + 1;
+                return true;
+            }
+        }
+        if (sharedSizes[sizeClass].incrementAndGet() > sharedCacheSize) {
+            sharedSizes[sizeClass].decrementAndGet();
+            return false;
+        }
+        shared[sizeClass].offer(buffer);
+        return true;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        purgeCollected();
+        long reserved;
+        do {
+            reserved = reservedBytes.get();
+            if (reserved + capacity > maxReservedBytes)
+                throw new IllegalStateException("Direct memory cap of " + maxReservedBytes + " bytes reached");
+        } while (!reservedBytes.compareAndSet(reserved, reserved + capacity));
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    // index of the smallest class holding size bytes, -1 if bigger than every class
+    private int sizeClass(int size) {
+        int shift = size <= 1 << MIN_SHIFT ? MIN_SHIFT : 32 - Integer.numberOfLeadingZeros(size - 1);
+        return shift > maxShift ? -1 : shift - MIN_SHIFT;
+    }
+
+    /**
+     * @return the number of acquisitions served by a cached buffer
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of acquisitions that had to allocate
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the fraction, from 0 to 1, of acquisitions served by a cached buffer
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * @return the number of buffers acquired and not yet released
+     */
+    public long getOutstanding() {
+        return outstanding.sum();
+    }
+
+    /**
+     * @return the direct memory allocated by the pool and not dropped, in bytes
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * Lists the buffers acquired and not released, each as the stack trace of its acquisition. Only available in
+     * debug mode; meant to be checked when the pool's users have shut down.
+     *
+     * @return the acquisition traces of the outstanding buffers
+     * @throws IllegalStateException if the pool is not in debug mode
+     */
+    public List<Throwable> leaks() {
+        if (!debug)
+            throw new IllegalStateException("Leak tracking needs debug mode");
+        return new ArrayList<>(tracked.values());
+    }
+
+    // per-thread stacks of cached buffers, one per size class
+    private static final class ThreadCache {
+        private final ByteBuffer[][] buffers;
+        private final int[] counts;
+
+        private ThreadCache(int classes, int size) {
+            this.buffers = new ByteBuffer[classes][size];
+            this.counts = new int[classes];
+        }
+    }
+
+    // a buffer allocated by the pool; the weak reference lets buffers nobody can release any more be collected
+    private static final class Slot extends WeakReference<ByteBuffer> {
+        private static final AtomicIntegerFieldUpdater<Slot> OUTSTANDING =
+                AtomicIntegerFieldUpdater.newUpdater(Slot.class, "outstanding");
+
+        private final int hash;
+        private final int capacity;
+        private volatile Slot next;
+        // 1 while handed out
+        private volatile int outstanding;
+
+        private Slot(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue) {
+            super(buffer, queue);
+            this.hash = System.identityHashCode(buffer);
+            this.capacity = buffer.capacity();
+        }
+    }
+
+    // ByteBuffer.equals compares contents, leak tracking needs identity
+    private static final class Identity {
+        private final ByteBuffer buffer;
+
+        private Identity(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Identity && ((Identity) o).buffer == buffer;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(buffer);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.chiragji.utils.http.log;
+
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.ErrorCode;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Takes access-log events off the request threads: they publish into a bounded ring buffer and one consumer thread
+ * encodes them in batches and writes each batch with a single gathering write.
+ * <p>
+ * The ring is preallocated as one array per field, and a slot is handed between threads through its sequence number,
+ * so publishing is a compare-and-set on the tail plus plain stores and does not allocate. What happens when the ring
+ * is full is set by the {@link OverflowPolicy}. The consumer copies a batch of up to the configured size out of the
+ * ring, freeing the slots at once, and then writes it, so the ring only fills when the channel cannot keep up.
+ * <p>
+ * The output is a stream in the record format of {@link AccessLogWriter}: the same 12 byte header, its timestamps
+ * relative to the first event, followed by the records. Written to a file, it can be read back with
+ * {@link AccessLogReader}. The channel is not closed by the pipeline. If a write fails the consumer stops, later
+ * events are dropped and {@link #close()} throws the failure.
+ *
+ * @author Chirag Gupta
+ */
+public final class AccessLogPipeline implements Closeable {
+    private static final int BUFFER_SIZE = 16 << 10;
+    private static final int MAX_BATCH_SIZE = 64 << 10;
+    private static final int SPINS = 64;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    // set on the tail by close, so no slot can be claimed after the consumer's last drain
+    private static final long SEALED = Long.MIN_VALUE;
+
+    private final GatheringByteChannel channel;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+    private final int batchSize;
+    private final int mask;
+    private final int sampleThreshold;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLongArray sequences;
+    private final long[] timestamps;
+    private final int[] codes;
+    private final long[] latencies;
+    private final long[] received;
+    private final long[] sent;
+
+    // owned by the consumer
+    private volatile long head;
+    private final ByteBuffer[] buffers;
+    private final byte[] record = new byte[AccessLogWriter.MAX_RECORD_SIZE];
+    private boolean started;
+    private long baseMillis;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private Thread consumer;
+
+    /**
+     * Creates a pipeline queueing up to 8192 events, written in batches of up to 512, that samples one in ten
+     * {@link SuccessCodes} events under load.
+     *
+     * @param channel the channel to write to
+     */
+    public AccessLogPipeline(GatheringByteChannel channel) {
+        this(channel, 8192, 512, OverflowPolicy.SAMPLE_SUCCESS, 10);
+    }
+
+    /**
+     * @param channel    the channel to write to
+     * @param capacity   the number of events the ring holds, a power of two
+     * @param batchSize  the most events written at once
+     * @param policy     what to do with events published while the ring is full
+     * @param sampleRate the one in how many {@link SuccessCodes} events kept under load by
+     *                   {@link OverflowPolicy#SAMPLE_SUCCESS}
+     */
+    public AccessLogPipeline(GatheringByteChannel channel, int capacity, int batchSize, OverflowPolicy policy,
+                             int sampleRate) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("Batch size out of range: " + batchSize);
+        if (sampleRate < 1)
+            throw new IllegalArgumentException("Sample rate must be positive");
+        this.channel = channel;
+        this.policy = policy;
+        this.sampleRate = sampleRate;
+        this.batchSize = batchSize;
+        this.mask = capacity - 1;
+        this.sampleThreshold = capacity / 2;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+        this.timestamps = new long[capacity];
+        this.codes = new int[capacity];
+        this.latencies = new long[capacity];
+        this.received = new long[capacity];
+        this.sent = new long[capacity];
+        // a record never straddles two buffers, which wastes less than one record per buffer
+        long worstCase = AccessLogWriter.HEADER_SIZE + (long) batchSize * (AccessLogWriter.MAX_RECORD_SIZE + 1);
+        this.buffers = new ByteBuffer[(int) ((worstCase + BUFFER_SIZE - 1) / BUFFER_SIZE) + 1];
+        for (int i = 0; i < buffers.length; i++)
+            buffers[i] = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Starts the consumer thread, a daemon thread named {@code access-log}.
+     *
+     * @return this pipeline
+     */
+    public synchronized AccessLogPipeline start() {
+        if (consumer != null || closed)
+            throw new IllegalStateException("Pipeline already started or closed");
+        consumer = new Thread(this::consume, "access-log");
+        consumer.setDaemon(true);
+        consumer.start();
+        return this;
+    }
+
+    /**
+     * Publishes an event.
+     *
+     * @param epochMillis   the time of the request
+     * @param status        the status of the response
+     * @param latencyNanos  the time taken to answer
+     * @param bytesReceived the size of the request
+     * @param bytesSent     the size of the response
+     * @return {@code false} if the event was dropped or sampled out
+     */
+    public boolean publish(long epochMillis, HTTPCodes status, long latencyNanos, long bytesReceived,
+                           long bytesSent) {
+        if (closed || failure != null) {
+            dropped.increment();
+            return false;
+        }
+        boolean keep = policy == OverflowPolicy.BLOCK || (policy == OverflowPolicy.SAMPLE_SUCCESS
+                && status instanceof ErrorCode);
+        if (policy == OverflowPolicy.SAMPLE_SUCCESS && status instanceof SuccessCodes
+                && getQueueDepth() >= sampleThreshold && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            sampledOut.increment();
+            return false;
+        }
+        long position = claim();
+        if (position < 0 && keep)
+            position = awaitSlot();
+        if (position < 0) {
+            dropped.increment();
+            return false;
+        }
+        int slot = (int) position & mask;
+        timestamps[slot] = epochMillis;
+        codes[slot] = status.getCode();
+        latencies[slot] = latencyNanos;
+        received[slot] = bytesReceived;
+        sent[slot] = bytesSent;
+        sequences.lazySet(slot, position + 1);
+        published.increment();
+        return true;
+    }
+
+    // a slot is free for position p while its sequence is p, and holds the event of p once it is p + 1
+    private long claim() {
+        while (true) {
+            long position = tail.get();
+            if ((position & SEALED) != 0)
+                return -1;
+            long sequence = sequences.get((int) position & mask);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1))
+                    return position;
+            } else if (sequence < position) {
+                return -1;
+            }
+        }
+    }
+
+    private long awaitSlot() {
+        for (int spins = 0; !closed && failure == null && !Thread.currentThread().isInterrupted(); spins++) {
+            if (spins < SPINS)
+                Thread.yield();
+            else
+                LockSupport.parkNanos(PARK_NANOS);
+            long position = claim();
+            if (position >= 0)
+                return position;
+        }
+        return -1;
+    }
+
+    private void consume() {
+        try {
+            for (int idle = 0; (tail.get() & SEALED) == 0 || getQueueDepth() > 0; ) {
+                if (drain() > 0) {
+                    idle = 0;
+                } else if (idle++ < SPINS) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private int drain() throws IOException {
+        maxQueueDepth.accumulate(getQueueDepth());
+        long position = head;
+        int count = 0;
+        int buffer = 0;
+        while (count < batchSize) {
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1)
+                break;
+            if (!started) {
+                baseMillis = timestamps[slot];
+                buffers[0].putInt(AccessLogWriter.MAGIC).putLong(baseMillis);
+                started = true;
+            }
+            int length = AccessLogWriter.encode(record, timestamps[slot] - baseMillis, codes[slot], latencies[slot],
+                    received[slot], sent[slot]);
+            if (buffers[buffer].remaining() < length + 1)
+                buffer++;
+            buffers[buffer].put((byte) length).put(record, 0, length);
+            sequences.lazySet(slot, position + mask + 1);
+            position++;
+            count++;
+        }
+        head = position;
+        if (count > 0)
+            write(buffer + 1);
+        return count;
+    }
+
+    private void write(int used) throws IOException {
+        for (int i = 0; i < used; i++)
+            buffers[i].flip();
+        try {
+            while (buffers[used - 1].hasRemaining())
+                channel.write(buffers, 0, used);
+            batches.increment();
+        } finally {
+            for (int i = 0; i < used; i++)
+                buffers[i].clear();
+        }
+    }
+
+    /**
+     * @return the number of events waiting to be written
+     */
+    public int getQueueDepth() {
+        return (int) Math.max((tail.get() & ~SEALED) - head, 0);
+    }
+
+    /**
+     * @return the highest queue depth seen by the consumer
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * @return the number of events queued
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * @return the number of events dropped because the ring was full, or the pipeline closed or failed
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of {@link SuccessCodes} events left out by {@link OverflowPolicy#SAMPLE_SUCCESS}
+     */
+    public long getSampledOut() {
+        return sampledOut.sum();
+    }
+
+    /**
+     * @return the number of gathering writes made
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Stops accepting events and waits for the consumer to write those already queued. Events published concurrently
+     * are either written or counted as dropped.
+     *
+     * @throws IOException if a write failed
+     */
+    @Override
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = consumer;
+        }
+        // a publisher that got past the closed check either claimed its slot before this, and the consumer waits for
+        // it, or fails to claim one and counts the event as dropped
+        while (true) {
+            long position = tail.get();
+            if ((position & SEALED) != 0 || tail.compareAndSet(position, position | SEALED))
+                break;
+        }
+        if (thread == null) {
+            // never started, write the queue from here
+            consume();
+        } else {
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        if (failure != null)
+            throw failure;
+    }
+}
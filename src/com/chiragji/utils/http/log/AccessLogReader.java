@@ -0,0 +1,153 @@
+package com.chiragji.utils.http.log;
+
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.HTTPCodeRegistry;
+import com.chiragji.utils.http.util.StatusOrdinals;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads back the records of one segment written by {@link AccessLogWriter}.
+ * <p>
+ * The reader is a cursor: {@link #next()} decodes the next record into the reader's fields, which the getters then
+ * return, so reading does not allocate. It stops at the end of the data written so far and may be called again
+ * later to follow a segment still being written.
+ *
+ * @author Chirag Gupta
+ */
+public final class AccessLogReader implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer segment;
+    private final long baseMillis;
+    private int position = AccessLogWriter.HEADER_SIZE;
+
+    private long timestamp;
+    private int code;
+    private HTTPCodes status;
+    private long latencyMicros;
+    private long bytesReceived;
+    private long bytesSent;
+
+    private AccessLogReader(FileChannel channel, MappedByteBuffer segment) throws IOException {
+        this.channel = channel;
+        this.segment = segment;
+        if (segment.capacity() < AccessLogWriter.HEADER_SIZE || segment.getInt(0) != AccessLogWriter.MAGIC)
+            throw new IOException("Not an access log segment");
+        this.baseMillis = segment.getLong(4);
+    }
+
+    /**
+     * @param segment a segment file, e.g. one listed by {@link AccessLogWriter#segments(Path)}
+     * @return a reader positioned before the first record
+     * @throws IOException if the file cannot be read or is not a segment
+     */
+    public static AccessLogReader open(Path segment) throws IOException {
+        FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ);
+        try {
+            return new AccessLogReader(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Decodes the next record.
+     *
+     * @return {@code false} at the end of the data written so far
+     * @throws IOException if the record is corrupt
+     */
+    public boolean next() throws IOException {
+        if (position >= segment.capacity())
+            return false;
+        int length = segment.get(position);
+        if (length == 0)
+            return false;
+        int end = position + 1 + length;
+        if (length < 0 || end > segment.capacity())
+            throw new IOException("Corrupt record length at offset " + position);
+        position++;
+        long offset = readVarint(end);
+        timestamp = baseMillis + ((offset >>> 1) ^ -(offset & 1));
+        if (position >= end)
+            throw new IOException("Truncated record at offset " + position);
+        int ordinal = segment.get(position++) & 0xff;
+        if (ordinal == StatusOrdinals.NONE) {
+            code = (int) readVarint(end);
+            status = HTTPCodeRegistry.resolve(code);
+        } else {
+            status = StatusOrdinals.fromOrdinal(ordinal);
+            code = status.getCode();
+        }
+        latencyMicros = readVarint(end);
+        bytesReceived = readVarint(end);
+        bytesSent = readVarint(end);
+        // fields added by later versions
+        position = end;
+        return true;
+    }
+
+    private long readVarint(int end) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64 && position < end; shift += 7) {
+            byte b = segment.get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IOException("Malformed varint before offset " + position);
+    }
+
+    /**
+     * @return the time of the request in epoch milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the status constant, {@link com.chiragji.utils.http.enums.UnknownCode#UNKNOWN} for a code no enum
+     * defines
+     */
+    public HTTPCodes getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the numeric status code as written
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return the time taken to answer, in microseconds
+     */
+    public long getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    /**
+     * @return the size of the request in bytes
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return the size of the response in bytes
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,197 @@
+package com.chiragji.utils.http.log;
+
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.StatusOrdinals;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends binary access-log records to memory-mapped segment files of a fixed size, starting a new segment when the
+ * current one is full.
+ * <p>
+ * A segment starts with a 12 byte header, a magic number and the epoch milliseconds its timestamps are relative to.
+ * Each record is one length byte followed by the fields: the zigzag varint timestamp offset, the status as its
+ * {@link StatusOrdinals} byte (followed by the varint code for codes without an ordinal), and the varint latency in
+ * microseconds, bytes received and bytes sent. A typical record takes 10 to 15 bytes. A zero length byte marks the
+ * end of the data, the rest of the segment being still unwritten. Readers skip fields they do not know, so fields
+ * can be appended to the record later.
+ * <p>
+ * Appending only copies bytes into the mapping and does not allocate; the operating system writes the pages back,
+ * or {@link #flush()} forces them out. A writer is meant for one thread, such as the consumer of an asynchronous log
+ * queue. Segments are named by a sequence number, and a writer opened on an existing directory starts a new segment
+ * after the last one.
+ *
+ * @author Chirag Gupta
+ */
+public final class AccessLogWriter implements Closeable {
+    static final int MAGIC = 0x48414C31;
+    static final int HEADER_SIZE = 12;
+    static final int MAX_RECORD_SIZE = 64;
+    private static final String PREFIX = "access-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final byte[] record = new byte[MAX_RECORD_SIZE];
+    private long sequence;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long baseMillis;
+
+    /**
+     * Creates a writer with 64 MiB segments.
+     *
+     * @param directory the directory of the segments, created if missing
+     * @throws IOException if the directory cannot be read or created
+     */
+    public AccessLogWriter(Path directory) throws IOException {
+        this(directory, 64 << 20);
+    }
+
+    /**
+     * @param directory   the directory of the segments, created if missing
+     * @param segmentSize the size of each segment file in bytes
+     * @throws IOException if the directory cannot be read or created
+     */
+    public AccessLogWriter(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < HEADER_SIZE + MAX_RECORD_SIZE + 1)
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        List<Path> existing = segments(directory);
+        this.sequence = existing.isEmpty() ? 0 : sequenceOf(existing.get(existing.size() - 1)) + 1;
+    }
+
+    /**
+     * Lists the segments of a directory, oldest first.
+     *
+     * @param directory the directory of the segments
+     * @return the segment files
+     * @throws IOException if the directory cannot be read
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory))
+            return segments;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files)
+                segments.add(file);
+        }
+        // the sequence is zero-padded, so names sort in order
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param epochMillis   the time of the request
+     * @param status        the status of the response
+     * @param latencyNanos  the time taken to answer
+     * @param bytesReceived the size of the request
+     * @param bytesSent     the size of the response
+     * @throws IOException if a new segment cannot be created
+     */
+    public void append(long epochMillis, HTTPCodes status, long latencyNanos, long bytesReceived, long bytesSent)
+            throws IOException {
+        append(epochMillis, status.getCode(), latencyNanos, bytesReceived, bytesSent);
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param epochMillis   the time of the request
+     * @param code          the numeric status code of the response
+     * @param latencyNanos  the time taken to answer
+     * @param bytesReceived the size of the request
+     * @param bytesSent     the size of the response
+     * @throws IOException if a new segment cannot be created
+     */
+    public void append(long epochMillis, int code, long latencyNanos, long bytesReceived, long bytesSent)
+            throws IOException {
+        if (segment == null || segment.remaining() < MAX_RECORD_SIZE + 1)
+            roll(epochMillis);
+        int length = encode(record, epochMillis - baseMillis, code, latencyNanos, bytesReceived, bytesSent);
+        // the length byte goes last, so a reader following the segment never sees a half-written record
+        int position = segment.position();
+        segment.position(position + 1);
+        segment.put(record, 0, length);
+        segment.put(position, (byte) length);
+    }
+
+    /**
+     * Encodes the fields of a record, without its length byte.
+     *
+     * @return the number of bytes written from the start of {@code record}, at most {@link #MAX_RECORD_SIZE}
+     */
+    static int encode(byte[] record, long offsetMillis, int code, long latencyNanos, long bytesReceived,
+                      long bytesSent) {
+        int length = writeVarint((offsetMillis << 1) ^ (offsetMillis >> 63), record, 0);
+        int ordinal = StatusOrdinals.toOrdinal(code);
+        record[length++] = (byte) ordinal;
+        if (ordinal == StatusOrdinals.NONE)
+            length = writeVarint(Math.max(code, 0), record, length);
+        length = writeVarint(Math.max(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 0), record, length);
+        length = writeVarint(Math.max(bytesReceived, 0), record, length);
+        return writeVarint(Math.max(bytesSent, 0), record, length);
+    }
+
+    // unsigned LEB128: seven bits per byte, least significant first, high bit set on all but the last byte
+    private static int writeVarint(long value, byte[] dst, int offset) {
+        while ((value & ~0x7FL) != 0) {
+            dst[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dst[offset++] = (byte) value;
+        return offset;
+    }
+
+    private void roll(long epochMillis) throws IOException {
+        close();
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, sequence++, SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        baseMillis = epochMillis;
+        segment.putInt(MAGIC).putLong(baseMillis);
+    }
+
+    /**
+     * Forces the records appended so far to the storage device.
+     */
+    public void flush() {
+        if (segment != null)
+            segment.force();
+    }
+
+    /**
+     * Flushes and closes the current segment; the next append starts a new one.
+     *
+     * @throws IOException if the segment file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+            channel.close();
+            channel = null;
+        }
+    }
+}
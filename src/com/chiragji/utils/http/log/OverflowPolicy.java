@@ -0,0 +1,23 @@
+package com.chiragji.utils.http.log;
+
+/**
+ * What an {@link AccessLogPipeline} does with an event published while its queue is full.
+ *
+ * @author Chirag Gupta
+ */
+public enum OverflowPolicy {
+    /**
+     * The event is dropped, so publishing never waits.
+     */
+    DROP,
+    /**
+     * The publishing thread waits until the consumer has made room, so no event is lost.
+     */
+    BLOCK,
+    /**
+     * Once the queue is half full only a sample of the {@link com.chiragji.utils.http.enums.SuccessCodes} events is
+     * kept, and other events are dropped when it is full, except {@link com.chiragji.utils.http.interfaces.ErrorCode}
+     * events, whose publishing thread waits as with {@link #BLOCK}.
+     */
+    SAMPLE_SUCCESS
+}
@@ -0,0 +1,156 @@
+package com.chiragji.utils.http.metrics;
+
+import com.chiragji.utils.http.enums.StatusClass;
+import com.chiragji.utils.http.interfaces.ErrorCode;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.NanoClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling 4xx and 5xx rates over recent time windows, e.g. the last 1, 10 or 60 seconds.
+ * <p>
+ * Outcomes are counted in a ring of fixed-width time buckets preallocated in {@link AtomicLongArray}s. Recording an
+ * outcome is a few atomic increments on the current bucket, without locks or allocation; a bucket whose time has
+ * passed is recycled by whichever writer reaches it first. An event racing with that recycling may be dropped, so
+ * rates are approximate at bucket boundaries, which is acceptable for driving load shedding.
+ * <p>
+ * Constants implementing {@link ErrorCode} are counted as errors, split by their {@link StatusClass}.
+ *
+ * @author Chirag Gupta
+ */
+public final class ErrorRateTracker {
+    private static final int TOTAL = 0;
+    private static final int CLIENT_ERRORS = 1;
+    private static final int SERVER_ERRORS = 2;
+    private static final int COLUMNS = 3;
+
+    private final NanoClock clock;
+    private final long bucketNanos;
+    private final int bucketCount;
+    private final long origin;
+    private final AtomicLongArray epochs;
+    private final AtomicLongArray counts;
+
+    /**
+     * Creates a tracker with 100 millisecond buckets covering windows of up to 60 seconds.
+     */
+    public ErrorRateTracker() {
+        this(100, TimeUnit.MILLISECONDS, 600, NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param bucketWidth the width of one bucket, which is the resolution of every window
+     * @param unit        the unit of {@code bucketWidth}
+     * @param buckets     the number of buckets; the longest window that can be queried is {@code buckets} wide
+     * @param clock       the time source
+     */
+    public ErrorRateTracker(long bucketWidth, TimeUnit unit, int buckets, NanoClock clock) {
+        if (bucketWidth <= 0 || buckets <= 0)
+            throw new IllegalArgumentException("Bucket width and count must be positive");
+        this.clock = clock;
+        this.bucketNanos = unit.toNanos(bucketWidth);
+        // one spare bucket so the oldest full bucket of the longest window is not recycled while it is read
+        this.bucketCount = buckets + 1;
+        this.origin = clock.nanoTime();
+        this.epochs = new AtomicLongArray(bucketCount);
+        this.counts = new AtomicLongArray(bucketCount * COLUMNS);
+        for (int i = 0; i < bucketCount; i++)
+            epochs.set(i, -1);
+    }
+
+    /**
+     * Records the outcome of one response.
+     *
+     * @param code the status code constant
+     */
+    public void record(HTTPCodes code) {
+        int base = currentBucket() * COLUMNS;
+        counts.incrementAndGet(base + TOTAL);
+        if (code instanceof ErrorCode)
+            counts.incrementAndGet(base + (code.getStatusClass() == StatusClass.SERVER_ERROR
+                    ? SERVER_ERRORS : CLIENT_ERRORS));
+    }
+
+    /**
+     * Records the outcome of one response.
+     *
+     * @param code the numeric status code
+     */
+    public void record(int code) {
+        int base = currentBucket() * COLUMNS;
+        counts.incrementAndGet(base + TOTAL);
+        StatusClass statusClass = StatusClass.of(code);
+        if (statusClass.isError())
+            counts.incrementAndGet(base + (statusClass == StatusClass.SERVER_ERROR ? SERVER_ERRORS : CLIENT_ERRORS));
+    }
+
+    private int currentBucket() {
+        long epoch = (clock.nanoTime() - origin) / bucketNanos;
+        int slot = (int) (epoch % bucketCount);
+        long current = epochs.get(slot);
+        if (current < epoch && epochs.compareAndSet(slot, current, epoch)) {
+            int base = slot * COLUMNS;
+            for (int i = 0; i < COLUMNS; i++)
+                counts.set(base + i, 0);
+        }
+        return slot;
+    }
+
+    /**
+     * @param window the length of the window, rounded up to whole buckets
+     * @param unit   the unit of {@code window}
+     * @return the number of responses recorded in the window
+     */
+    public long count(long window, TimeUnit unit) {
+        return sum(window, unit, TOTAL);
+    }
+
+    /**
+     * @param window the length of the window, rounded up to whole buckets
+     * @param unit   the unit of {@code window}
+     * @return the fraction, from 0 to 1, of responses in the window that were 4xx
+     */
+    public double clientErrorRate(long window, TimeUnit unit) {
+        return rate(window, unit, CLIENT_ERRORS);
+    }
+
+    /**
+     * @param window the length of the window, rounded up to whole buckets
+     * @param unit   the unit of {@code window}
+     * @return the fraction, from 0 to 1, of responses in the window that were 5xx
+     */
+    public double serverErrorRate(long window, TimeUnit unit) {
+        return rate(window, unit, SERVER_ERRORS);
+    }
+
+    /**
+     * @param window the length of the window, rounded up to whole buckets
+     * @param unit   the unit of {@code window}
+     * @return the fraction, from 0 to 1, of responses in the window that were 4xx or 5xx
+     */
+    public double errorRate(long window, TimeUnit unit) {
+        long total = sum(window, unit, TOTAL);
+        return total == 0 ? 0 : (double) (sum(window, unit, CLIENT_ERRORS) + sum(window, unit, SERVER_ERRORS)) / total;
+    }
+
+    private double rate(long window, TimeUnit unit, int column) {
+        long total = sum(window, unit, TOTAL);
+        return total == 0 ? 0 : (double) sum(window, unit, column) / total;
+    }
+
+    private long sum(long window, TimeUnit unit, int column) {
+        long buckets = (unit.toNanos(window) + bucketNanos - 1) / bucketNanos;
+        if (buckets <= 0 || buckets >= bucketCount)
+            throw new IllegalArgumentException("Window must be between one and " + (bucketCount - 1) + " buckets");
+        long now = (clock.nanoTime() - origin) / bucketNanos;
+        long sum = 0;
+        for (long epoch = Math.max(0, now - buckets + 1); epoch <= now; epoch++) {
+            int slot = (int) (epoch % bucketCount);
+            if (epochs.get(slot) == epoch)
+                sum += counts.get(slot * COLUMNS + column);
+        }
+        return sum;
+    }
+}
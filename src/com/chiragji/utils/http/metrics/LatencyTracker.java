@@ -0,0 +1,135 @@
+package com.chiragji.utils.http.metrics;
+
+import com.chiragji.utils.http.util.NanoClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Percentiles of recent latencies, e.g. the p95 used to decide when to hedge a request.
+ * <p>
+ * Latencies are counted in a log-linear histogram with microsecond resolution, eight buckets per power of two, so a
+ * percentile is off by at most 12.5%. Two such histograms cover alternating intervals; queries read the current and
+ * the previous interval, so the figures follow changes within two intervals. Counters are preallocated in
+ * {@link AtomicLongArray}s and a histogram whose interval has passed is recycled by the first writer reaching it, as
+ * in {@link ErrorRateTracker}, so neither recording nor querying allocates or locks.
+ *
+ * @author Chirag Gupta
+ */
+public final class LatencyTracker {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_SHIFT = 33;
+    private static final int BUCKETS = (MAX_SHIFT + 2) * SUB_COUNT;
+    private static final long MAX_MICROS = (1L << (MAX_SHIFT + SUB_BITS + 1)) - 1;
+
+    private final NanoClock clock;
+    private final long intervalNanos;
+    private final long origin;
+    private final AtomicLongArray epochs = new AtomicLongArray(2);
+    private final AtomicLongArray counts = new AtomicLongArray(2 * BUCKETS);
+
+    /**
+     * Creates a tracker over 10 second intervals.
+     */
+    public LatencyTracker() {
+        this(10, TimeUnit.SECONDS, NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param interval the length of one interval; percentiles cover between one and two of them
+     * @param unit     the unit of {@code interval}
+     * @param clock    the time source
+     */
+    public LatencyTracker(long interval, TimeUnit unit, NanoClock clock) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("Interval must be positive");
+        this.clock = clock;
+        this.intervalNanos = unit.toNanos(interval);
+        this.origin = clock.nanoTime();
+        epochs.set(0, -1);
+        epochs.set(1, -1);
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long epoch = (clock.nanoTime() - origin) / intervalNanos;
+        int slot = (int) (epoch & 1);
+        long current = epochs.get(slot);
+        if (current < epoch && epochs.compareAndSet(slot, current, epoch)) {
+            int base = slot * BUCKETS;
+            for (int i = 0; i < BUCKETS; i++)
+                counts.set(base + i, 0);
+        }
+        counts.incrementAndGet(slot * BUCKETS + bucket(Math.min(Math.max(nanos / 1000, 0), MAX_MICROS)));
+    }
+
+    // log-linear index: values below SUB_COUNT exactly, then SUB_COUNT buckets per power of two
+    private static int bucket(long micros) {
+        if (micros < SUB_COUNT)
+            return (int) micros;
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) ((micros >>> shift) - SUB_COUNT);
+    }
+
+    // largest value counted in the bucket
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT)
+            return bucket;
+        int shift = bucket / SUB_COUNT - 1;
+        long sub = bucket % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * @return the number of latencies recorded in the current and previous interval
+     */
+    public long count() {
+        long epoch = (clock.nanoTime() - origin) / intervalNanos;
+        long total = 0;
+        for (int slot = 0; slot < 2; slot++)
+            if (isRecent(slot, epoch))
+                for (int i = 0; i < BUCKETS; i++)
+                    total += counts.get(slot * BUCKETS + i);
+        return total;
+    }
+
+    /**
+     * @param quantile the quantile, from 0 to 1, e.g. 0.95 for the p95
+     * @return the latency in nanoseconds below which that fraction of the recent latencies fall, rounded up to the
+     * bucket bound, {@code 0} if nothing was recorded recently
+     */
+    public long percentile(double quantile) {
+        if (quantile < 0 || quantile > 1)
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        long epoch = (clock.nanoTime() - origin) / intervalNanos;
+        boolean first = isRecent(0, epoch);
+        boolean second = isRecent(1, epoch);
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += count(first, second, i);
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += count(first, second, i);
+            if (seen >= rank)
+                return TimeUnit.MICROSECONDS.toNanos(upperBound(i));
+        }
+        return TimeUnit.MICROSECONDS.toNanos(MAX_MICROS);
+    }
+
+    private long count(boolean first, boolean second, int bucket) {
+        return (first ? counts.get(bucket) : 0) + (second ? counts.get(BUCKETS + bucket) : 0);
+    }
+
+    private boolean isRecent(int slot, long epoch) {
+        long slotEpoch = epochs.get(slot);
+        return slotEpoch >= 0 && epoch - slotEpoch <= 1;
+    }
+}
@@ -0,0 +1,172 @@
+package com.chiragji.utils.http.metrics;
+
+import com.chiragji.utils.http.enums.StatusClass;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.HTTPCodeRegistry;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent counter of how many responses carried each status code.
+ * <p>
+ * Every code of the 100-599 range owns a {@link LongAdder}, which spreads contended increments over padded cells, so
+ * writers on many cores neither lock nor false-share. Codes outside the range are counted in a single overflow cell.
+ * Reading never blocks writers: {@link #snapshot()} sums the cells, and {@link #snapshotAndReset()} sums and clears
+ * each cell in turn, so an increment racing with it lands either in the returned snapshot or in the next one.
+ *
+ * @author Chirag Gupta
+ */
+public final class StatusCodeHistogram {
+    private static final int SIZE = HTTPCodeRegistry.MAX_CODE - HTTPCodeRegistry.MIN_CODE + 1;
+
+    private final LongAdder[] counters = new LongAdder[SIZE];
+    private final LongAdder outOfRange = new LongAdder();
+
+    public StatusCodeHistogram() {
+        for (int i = 0; i < SIZE; i++)
+            counters[i] = new LongAdder();
+    }
+
+    private LongAdder counter(int code) {
+        int index = code - HTTPCodeRegistry.MIN_CODE;
+        return index >= 0 && index < SIZE ? counters[index] : outOfRange;
+    }
+
+    /**
+     * Counts one response with the given status.
+     *
+     * @param code the status code constant
+     */
+    public void record(HTTPCodes code) {
+        counter(code.getCode()).increment();
+    }
+
+    /**
+     * Counts one response with the given status.
+     *
+     * @param code the numeric status code
+     */
+    public void record(int code) {
+        counter(code).increment();
+    }
+
+    /**
+     * Counts several responses with the given status.
+     *
+     * @param code  the numeric status code
+     * @param count the number of responses
+     */
+    public void add(int code, long count) {
+        counter(code).add(count);
+    }
+
+    /**
+     * @param code the status code constant
+     * @return the current count for the code
+     */
+    public long count(HTTPCodes code) {
+        return counter(code.getCode()).sum();
+    }
+
+    /**
+     * @param code the numeric status code
+     * @return the current count for the code; for codes outside 100-599 the shared out-of-range count
+     */
+    public long count(int code) {
+        return counter(code).sum();
+    }
+
+    /**
+     * @return a point-in-time copy of all the counts
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            counts[i] = counters[i].sum();
+        return new Snapshot(counts, outOfRange.sum());
+    }
+
+    /**
+     * Takes a snapshot and clears every counter it read, e.g. to report per-interval deltas.
+     *
+     * @return the counts accumulated since the previous reset
+     */
+    public Snapshot snapshotAndReset() {
+        long[] counts = new long[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            counts[i] = counters[i].sumThenReset();
+        return new Snapshot(counts, outOfRange.sumThenReset());
+    }
+
+    /**
+     * Clears every counter.
+     */
+    public void reset() {
+        for (LongAdder counter : counters)
+            counter.reset();
+        outOfRange.reset();
+    }
+
+    /**
+     * Immutable copy of the histogram counts.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long outOfRange;
+
+        private Snapshot(long[] counts, long outOfRange) {
+            this.counts = counts;
+            this.outOfRange = outOfRange;
+        }
+
+        /**
+         * @param code the numeric status code
+         * @return the count for the code, or the out-of-range count for codes outside 100-599
+         */
+        public long count(int code) {
+            int index = code - HTTPCodeRegistry.MIN_CODE;
+            return index >= 0 && index < SIZE ? counts[index] : outOfRange;
+        }
+
+        /**
+         * @param code the status code constant
+         * @return the count for the code
+         */
+        public long count(HTTPCodes code) {
+            return count(code.getCode());
+        }
+
+        /**
+         * Sums every code of a class, including codes in its range that no enum defines.
+         *
+         * @param statusClass the class to aggregate
+         * @return the count of all codes in the class; for {@link StatusClass#UNKNOWN} the out-of-range count
+         */
+        public long count(StatusClass statusClass) {
+            if (statusClass == StatusClass.UNKNOWN)
+                return outOfRange;
+            int from = statusClass.getDigit() * 100 - HTTPCodeRegistry.MIN_CODE;
+            long sum = 0;
+            for (int i = from; i < from + 100; i++)
+                sum += counts[i];
+            return sum;
+        }
+
+        /**
+         * @return the count of codes outside the 100-599 range
+         */
+        public long getOutOfRange() {
+            return outOfRange;
+        }
+
+        /**
+         * @return the count of every response recorded
+         */
+        public long total() {
+            long sum = outOfRange;
+            for (long count : counts)
+                sum += count;
+            return sum;
+        }
+    }
+}
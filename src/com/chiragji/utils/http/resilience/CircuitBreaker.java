@@ -0,0 +1,288 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.NanoClock;
+import com.chiragji.utils.http.util.StatusCodeSet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker that opens after a run of responses whose status is in a configured set of trip codes.
+ * <p>
+ * While {@link State#CLOSED} every call is permitted. Once {@code failureThreshold} consecutive outcomes are trip codes
+ * the breaker opens and rejects calls for the open duration, then moves to {@link State#HALF_OPEN} and lets a limited
+ * number of trial calls through. If they all succeed the breaker closes again, if any of them trips it reopens.
+ * <p>
+ * By default only {@link #DEFAULT_TRIP_CODES} trip the breaker; {@link com.chiragji.utils.http.enums.ClientCodes} and
+ * every other status count as successes, since they say nothing about the health of the server. All state lives in
+ * atomics and changes with compare-and-set, so concurrent callers never block on each other.
+ * <p>
+ * A permitted call is given a permit naming the phase that let it through, and its outcome only counts towards that
+ * phase. A call that was let through while closed and ends after the breaker has opened is ignored, so it can neither
+ * close a half-open breaker in place of a trial call nor reopen it.
+ * <p>
+ * A call that ends without an outcome worth reporting, e.g. because it was cancelled, returns its permit with
+ * {@link #release(long)}. Each half-open trial has its own permit, which counts once: releasing it again, or after its
+ * outcome was reported, does nothing, so no more trials than configured reach the upstream. Trial permits that are
+ * neither reported nor released do not keep the breaker half-open forever: once the open duration has passed with
+ * every trial still outstanding, a new set of trials is let through and the outcomes of the old ones are ignored.
+ *
+ * @author Chirag Gupta
+ */
+public final class CircuitBreaker {
+    /**
+     * The server errors that signal an unhealthy upstream: {@link ServerError#BAD_GATEWAY},
+     * {@link ServerError#SERVICE_UNAVAILABLE}, {@link ServerError#GATEWAY_TIMEOUT} and
+     * {@link ServerError#NETWORK_CONNECT_TIMEOUT_ERROR}.
+     */
+    public static final StatusCodeSet DEFAULT_TRIP_CODES = StatusCodeSet.of(ServerError.BAD_GATEWAY,
+            ServerError.SERVICE_UNAVAILABLE, ServerError.GATEWAY_TIMEOUT, ServerError.NETWORK_CONNECT_TIMEOUT_ERROR);
+
+    /**
+     * Returned by {@link #tryAcquire()} when the call is rejected.
+     */
+    public static final long REJECTED = -1;
+
+    private static final int MAX_TRIALS = 32;
+    // a permit is the generation of its phase followed by these bits, the trial slot plus one, or 0 for a closed phase
+    private static final int TRIAL_BITS = 6;
+
+    /**
+     * The states of the breaker.
+     */
+    public enum State {
+        /**
+         * Calls are permitted and failures are counted.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected until the open duration has passed.
+         */
+        OPEN,
+        /**
+         * A limited number of trial calls are permitted to probe the upstream. If they are all still outstanding after
+         * the open duration, they are abandoned and new trials are permitted.
+         */
+        HALF_OPEN
+    }
+
+    private final StatusCodeSet tripCodes;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int halfOpenTrials;
+    private final NanoClock clock;
+    private final AtomicReference<Phase> phase;
+
+    /**
+     * Creates a breaker tripping on {@link #DEFAULT_TRIP_CODES} with a single half-open trial call.
+     *
+     * @param failureThreshold the number of consecutive trip codes that open the breaker
+     * @param openDuration     how long the breaker stays open
+     * @param unit             the unit of {@code openDuration}
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this(DEFAULT_TRIP_CODES, failureThreshold, openDuration, unit, 1, NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param tripCodes        the status codes counted as failures
+     * @param failureThreshold the number of consecutive trip codes that open the breaker
+     * @param openDuration     how long the breaker stays open
+     * @param unit             the unit of {@code openDuration}
+     * @param halfOpenTrials   the number of trial calls that must succeed before the breaker closes
+     * @param clock            the time source
+     */
+    public CircuitBreaker(StatusCodeSet tripCodes, int failureThreshold, long openDuration, TimeUnit unit,
+                          int halfOpenTrials, NanoClock clock) {
+        if (failureThreshold <= 0 || halfOpenTrials <= 0 || halfOpenTrials > MAX_TRIALS || openDuration < 0)
+            throw new IllegalArgumentException("Threshold must be positive, trials from 1 to " + MAX_TRIALS
+                    + ", open duration not negative");
+        this.tripCodes = tripCodes;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+        this.halfOpenTrials = halfOpenTrials;
+        this.clock = clock;
+        this.phase = new AtomicReference<>(new Phase(State.CLOSED, 0, 0));
+    }
+
+    /**
+     * Asks for permission to make a call. Every permitted call must be followed by
+     * {@link #onResult(long, HTTPCodes)}, {@link #onResult(long, int)}, {@link #onFailure(long)} or
+     * {@link #release(long)} with the permit.
+     *
+     * @return the permit of the call, or {@link #REJECTED} if it may not proceed
+     */
+    public long tryAcquire() {
+        while (true) {
+            Phase current = phase.get();
+            if (current.state == State.CLOSED)
+                return current.generation << TRIAL_BITS;
+            int trial = current.state == State.HALF_OPEN ? current.takeTrial(halfOpenTrials) : -1;
+            if (trial >= 0)
+                return current.generation << TRIAL_BITS | trial + 1;
+            // open, or half-open with every trial out: once the open duration has passed, let new trials through
+            long now = clock.nanoTime();
+            if (now - current.since < openNanos)
+                return REJECTED;
+            phase.compareAndSet(current, current.next(State.HALF_OPEN, now));
+        }
+    }
+
+    /**
+     * Reports the outcome of a permitted call.
+     *
+     * @param permit the permit returned by {@link #tryAcquire()}
+     * @param code   the status code constant of the response
+     */
+    public void onResult(long permit, HTTPCodes code) {
+        onResult(permit, code.getCode());
+    }
+
+    /**
+     * Reports the outcome of a permitted call.
+     *
+     * @param permit the permit returned by {@link #tryAcquire()}
+     * @param code   the numeric status code of the response
+     */
+    public void onResult(long permit, int code) {
+        if (tripCodes.contains(code))
+            onFailure(permit);
+        else
+            onSuccess(permit);
+    }
+
+    /**
+     * Reports a call that failed without a response, e.g. a connect timeout or I/O error.
+     *
+     * @param permit the permit returned by {@link #tryAcquire()}
+     */
+    public void onFailure(long permit) {
+        Phase current = phase.get();
+        if (!current.issued(permit))
+            return;
+        if (current.state == State.CLOSED) {
+            if (current.count.incrementAndGet() >= failureThreshold)
+                phase.compareAndSet(current, current.next(State.OPEN, clock.nanoTime()));
+        } else if (current.state == State.HALF_OPEN && current.finishTrial(trialOf(permit)))
+            phase.compareAndSet(current, current.next(State.OPEN, clock.nanoTime()));
+    }
+
+    /**
+     * Gives back a permit without reporting an outcome, e.g. when the call was cancelled before it completed. A
+     * half-open breaker lets another trial call through in its place, once per trial permit.
+     *
+     * @param permit the permit returned by {@link #tryAcquire()}
+     */
+    public void release(long permit) {
+        Phase current = phase.get();
+        if (current.issued(permit) && current.state == State.HALF_OPEN)
+            current.returnTrial(trialOf(permit));
+    }
+
+    // the trial slot of a half-open permit, -1 for a permit of a closed phase
+    private static int trialOf(long permit) {
+        return (int) (permit & (1 << TRIAL_BITS) - 1) - 1;
+    }
+
+    private void onSuccess(long permit) {
+        Phase current = phase.get();
+        if (!current.issued(permit))
+            return;
+        if (current.state == State.CLOSED) {
+            // only write when needed so steady-state successes do not bounce the cache line between cores
+            if (current.count.get() != 0)
+                current.count.set(0);
+        } else if (current.state == State.HALF_OPEN && current.finishTrial(trialOf(permit))
+                && current.count.incrementAndGet() >= halfOpenTrials)
+            phase.compareAndSet(current, current.next(State.CLOSED, 0));
+    }
+
+    /**
+     * @return the current state; an open breaker whose duration has passed still reports {@link State#OPEN} until the
+     * next call to {@link #tryAcquire()}
+     */
+    public State getState() {
+        return phase.get().state;
+    }
+
+    /**
+     * Forces the breaker back to {@link State#CLOSED} and clears its failure count.
+     */
+    public void reset() {
+        while (true) {
+            Phase current = phase.get();
+            if (phase.compareAndSet(current, current.next(State.CLOSED, 0)))
+                return;
+        }
+    }
+
+    private static final class Phase {
+        private static final long FREE = 0;
+        private static final long OUT = 1;
+        private static final long REPORTED = 2;
+
+        private final State state;
+        // when the breaker opened, or when the current trials were let through
+        private final long since;
+        // the permit of calls let through by this phase, without the trial bits
+        private final long generation;
+        // consecutive failures while closed, successful trials while half-open
+        private final AtomicInteger count = new AtomicInteger();
+        // two bits per trial slot while half-open: FREE, OUT or REPORTED
+        private final AtomicLong trials = new AtomicLong();
+
+        private Phase(State state, long since, long generation) {
+            this.state = state;
+            this.since = since;
+            this.generation = generation;
+        }
+
+        private Phase next(State state, long since) {
+            return new Phase(state, since, generation + 1);
+        }
+
+        private boolean issued(long permit) {
+            return permit != REJECTED && permit >>> TRIAL_BITS == generation;
+        }
+
+        // claims a free slot, -1 if every one is out or reported
+        private int takeTrial(int slots) {
+            while (true) {
+                long current = trials.get();
+                int slot = 0;
+                while (slot < slots && (current >>> 2 * slot & 3) != FREE)
+                    slot++;
+                if (slot == slots)
+                    return -1;
+                if (trials.compareAndSet(current, current | OUT << 2 * slot))
+                    return slot;
+            }
+        }
+
+        // true only for the first outcome of a trial still out, so each trial counts once
+        private boolean finishTrial(int slot) {
+            return move(slot, OUT, REPORTED);
+        }
+
+        private void returnTrial(int slot) {
+            move(slot, OUT, FREE);
+        }
+
+        private boolean move(int slot, long from, long to) {
+            if (slot < 0)
+                return false;
+            int shift = 2 * slot;
+            while (true) {
+                long current = trials.get();
+                if ((current >>> shift & 3) != from)
+                    return false;
+                if (trials.compareAndSet(current, current & ~(3L << shift) | to << shift))
+                    return true;
+            }
+        }
+    }
+}
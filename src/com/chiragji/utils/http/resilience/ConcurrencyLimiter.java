@@ -0,0 +1,225 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.NanoClock;
+import com.chiragji.utils.http.util.StatusCodeSet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of calls in flight to a limit that adapts to how the called service copes with its load.
+ * <p>
+ * Outcomes are gathered per sampling window. At the end of a window in which a call ended with one of the drop codes,
+ * {@link #DEFAULT_DROP_CODES} unless configured otherwise, or failed without a response, the limit is cut by a
+ * constant factor. Otherwise it follows the latency gradient, the ratio of the lowest average round-trip time seen in a
+ * window, taken as the latency without load, to that of the window: while latency stays at that level the limit grows
+ * by its square root, the queue the service is allowed to build, and as latency rises it shrinks in proportion, so the
+ * limit settles where the service starts queueing. Every thousand windows the limit is halved for a while to measure
+ * the latency without load again. The limit only grows in windows whose peak reached 90% of it, so an idle period does
+ * not inflate it.
+ * <p>
+ * {@link #tryAcquire()} and the outcome methods are a compare-and-set on the in-flight count plus a few adders; the
+ * limit itself is recomputed by the one caller that closes a window. Calls over the limit should be answered with
+ * {@link #getRejection()}, {@link ServerError#SERVICE_UNAVAILABLE} or
+ * {@link com.chiragji.utils.http.enums.ClientCodes#TOO_MANY_REQ} as configured, whose status line the enum encodes
+ * once.
+ *
+ * @author Chirag Gupta
+ */
+public final class ConcurrencyLimiter {
+    /**
+     * The statuses that signal overload: {@link ServerError#SERVICE_UNAVAILABLE}, {@link ServerError#GATEWAY_TIMEOUT}
+     * and {@link ServerError#NETWORK_READ_TIMEOUT_ERROR}.
+     */
+    public static final StatusCodeSet DEFAULT_DROP_CODES = StatusCodeSet.of(ServerError.SERVICE_UNAVAILABLE,
+            ServerError.GATEWAY_TIMEOUT, ServerError.NETWORK_READ_TIMEOUT_ERROR);
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final int MIN_SAMPLES = 10;
+    private static final int PROBE_INTERVAL = 1000;
+    private static final double MIN_UTILIZATION = 0.9;
+
+    private final StatusCodeSet dropCodes;
+    private final HTTPCodes rejection;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final NanoClock clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private final AtomicLong windowEnd;
+    private final LongAdder rttSum = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder drops = new LongAdder();
+    private final LongAccumulator maxInFlight = new LongAccumulator(Math::max, 0);
+    private final LongAdder rejected = new LongAdder();
+    // written only by the caller closing a window
+    private volatile double estimatedLimit;
+    // lowest window round-trip time since the last probe, 0 before the first, -1 while a probe drains the queue
+    private volatile double noLoadRtt;
+    private volatile int windows;
+
+    /**
+     * Creates a limiter rejecting with {@link ServerError#SERVICE_UNAVAILABLE}, starting at 20 calls and adapting
+     * between 1 and 1000 every 100 milliseconds.
+     */
+    public ConcurrencyLimiter() {
+        this(DEFAULT_DROP_CODES, ServerError.SERVICE_UNAVAILABLE, 20, 1, 1000, 100, TimeUnit.MILLISECONDS,
+                NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param dropCodes    the statuses that cut the limit
+     * @param rejection    the status to answer rejected calls with
+     * @param initialLimit the limit to start with
+     * @param minLimit     the lowest the limit may go
+     * @param maxLimit     the highest the limit may go
+     * @param window       the length of a sampling window
+     * @param unit         the unit of {@code window}
+     * @param clock        the time source
+     */
+    public ConcurrencyLimiter(StatusCodeSet dropCodes, HTTPCodes rejection, int initialLimit, int minLimit,
+                              int maxLimit, long window, TimeUnit unit, NanoClock clock) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit || window <= 0)
+            throw new IllegalArgumentException("Limits must be positive and ordered, window positive");
+        this.dropCodes = dropCodes;
+        this.rejection = rejection;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = unit.toNanos(window);
+        this.clock = clock;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.windowEnd = new AtomicLong(clock.nanoTime() + windowNanos);
+    }
+
+    /**
+     * Asks for a slot for a call. Every permitted call must be followed by {@link #onResult(long, HTTPCodes)},
+     * {@link #onFailure()} or {@link #onIgnore()}.
+     *
+     * @return {@code true} if the call may proceed, {@code false} if it should be answered with
+     * {@link #getRejection()}
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        maxInFlight.accumulate(current + 1);
+        return true;
+    }
+
+    /**
+     * Reports the response of a permitted call.
+     *
+     * @param rttNanos the time the call took
+     * @param status   the status of the response
+     */
+    public void onResult(long rttNanos, HTTPCodes status) {
+        inFlight.decrementAndGet();
+        if (dropCodes.contains(status))
+            drops.increment();
+        else {
+            rttSum.add(rttNanos);
+            samples.increment();
+        }
+        maybeUpdate();
+    }
+
+    /**
+     * Reports a permitted call that failed without a response, e.g. on a timeout; it counts like a drop code.
+     */
+    public void onFailure() {
+        inFlight.decrementAndGet();
+        drops.increment();
+        maybeUpdate();
+    }
+
+    /**
+     * Reports a permitted call whose outcome says nothing about the load of the service, e.g. one cancelled by the
+     * caller; it only frees the slot.
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    private void maybeUpdate() {
+        long now = clock.nanoTime();
+        long end = windowEnd.get();
+        if (now - end < 0 || !windowEnd.compareAndSet(end, now + windowNanos))
+            return;
+        long sum = rttSum.sumThenReset();
+        long count = samples.sumThenReset();
+        long dropped = drops.sumThenReset();
+        long peak = maxInFlight.getThenReset();
+        double current = estimatedLimit;
+        double next;
+        if (dropped > 0)
+            next = current * BACKOFF_RATIO;
+        else if (count < MIN_SAMPLES)
+            return;
+        else if (noLoadRtt < 0) {
+            // the window after a probe still saw the calls queued before it
+            noLoadRtt = 0;
+            return;
+        } else if (++windows % PROBE_INTERVAL == 0) {
+            // drain the queue so the baseline can be measured again, in case the service got slower for good
+            noLoadRtt = -1;
+            next = current / 2;
+        } else {
+            double rtt = (double) sum / count;
+            double baseline = noLoadRtt;
+            if (baseline == 0 || rtt < baseline)
+                noLoadRtt = baseline = rtt;
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, baseline / rtt));
+            double target = current * gradient + Math.sqrt(current);
+            // a limit the load never came near to proves nothing, do not let it grow further
+            if (target > current && peak < current * MIN_UTILIZATION)
+                return;
+            next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        }
+        next = Math.max(minLimit, Math.min(maxLimit, next));
+        estimatedLimit = next;
+        limit = (int) next;
+    }
+
+    /**
+     * @return the status rejected calls should be answered with
+     */
+    public HTTPCodes getRejection() {
+        return rejection;
+    }
+
+    /**
+     * @return the current limit on calls in flight
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the number of calls rejected so far
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
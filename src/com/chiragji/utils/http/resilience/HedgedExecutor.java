@@ -0,0 +1,200 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.metrics.LatencyTracker;
+import com.chiragji.utils.http.util.NanoClock;
+import com.chiragji.utils.http.util.StatusCodeSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Runs a call and, when it is slow or fails, races a backup attempt against it, typically sent to another replica.
+ * <p>
+ * The first attempt starts right away. A backup, a hedge, starts when no final answer has arrived within the hedge
+ * delay, the configured percentile of recent attempt latencies, or as soon as an attempt ends without one. An answer is
+ * final unless its status is in {@link #DEFAULT_NON_FINAL}, i.e. a {@link com.chiragji.utils.http.enums.ServerError}
+ * or a {@link ClientCodes} error that is worth retrying; the first final answer wins and the attempts still running
+ * are cancelled with an interrupt. When no attempt gives a final answer, the last answer received is returned.
+ * <p>
+ * Hedges are paid for from a {@link TokenBucket} budget the same way as {@link RetryPolicy} retries, so hedging adds
+ * a bounded fraction of load even when the service slows down as a whole. Latencies are kept in an allocation-free
+ * {@link LatencyTracker}. Only attempts that gave a final answer are recorded, so fast errors from a failing service
+ * do not shorten the hedge delay and make hedging more aggressive just when it hurts most.
+ *
+ * @author Chirag Gupta
+ */
+public final class HedgedExecutor {
+    /**
+     * Statuses that do not end the race: every server error, plus the statuses {@link RetryPolicy} retries by default,
+     * i.e. {@link ClientCodes#REQUEST_TIMEOUT} and {@link ClientCodes#TOO_MANY_REQ}.
+     */
+    public static final StatusCodeSet DEFAULT_NON_FINAL = StatusCodeSet.SERVER_ERROR
+            .union(RetryPolicy.DEFAULT_RETRYABLE).union(RetryPolicy.DEFAULT_RETRY_AFTER);
+
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * One attempt of a hedged call.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Attempt<T> {
+        /**
+         * @param attempt the number of the attempt, {@code 0} for the first one, which can be used to pick a replica
+         * @return the result
+         * @throws Exception if the attempt fails
+         */
+        T call(int attempt) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final StatusCodeSet nonFinal;
+    private final int maxAttempts;
+    private final double quantile;
+    private final long initialDelayNanos;
+    private final double budgetRatio;
+    private final TokenBucket budget;
+    private final LatencyTracker latencies;
+    private final NanoClock clock;
+    private final LongAdder hedges = new LongAdder();
+
+    /**
+     * Creates an executor making at most one hedge after the p95 latency, 50 milliseconds until enough latencies are
+     * known, with a budget allowing hedges for 5% of calls plus 10 per second.
+     *
+     * @param executor the executor running the attempts; it needs a thread per concurrent attempt
+     */
+    public HedgedExecutor(ExecutorService executor) {
+        this(executor, DEFAULT_NON_FINAL, 2, 0.95, 50, TimeUnit.MILLISECONDS, 0.05,
+                new TokenBucket(10, 100, NanoClock.SYSTEM), new LatencyTracker(), NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param executor     the executor running the attempts; it needs a thread per concurrent attempt
+     * @param nonFinal     the statuses that do not end the race
+     * @param maxAttempts  the most attempts per call, the first one included
+     * @param quantile     the latency quantile after which a hedge starts
+     * @param initialDelay the hedge delay used while too few latencies are known
+     * @param unit         the unit of {@code initialDelay}
+     * @param budgetRatio  the tokens deposited into the budget per call
+     * @param budget       the bucket every hedge takes a token from
+     * @param latencies    the tracker of the latencies of attempts with a final answer
+     * @param clock        the time source of the latencies
+     */
+    public HedgedExecutor(ExecutorService executor, StatusCodeSet nonFinal, int maxAttempts, double quantile,
+                          long initialDelay, TimeUnit unit, double budgetRatio, TokenBucket budget,
+                          LatencyTracker latencies, NanoClock clock) {
+        if (maxAttempts < 1 || quantile <= 0 || quantile > 1 || initialDelay < 0 || budgetRatio < 0)
+            throw new IllegalArgumentException("Invalid hedging settings");
+        this.executor = executor;
+        this.nonFinal = nonFinal;
+        this.maxAttempts = maxAttempts;
+        this.quantile = quantile;
+        this.initialDelayNanos = unit.toNanos(initialDelay);
+        this.budgetRatio = budgetRatio;
+        this.budget = budget;
+        this.latencies = latencies;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs a call whose result is its status.
+     *
+     * @param call the call
+     * @return the final status, or the last one if none was final
+     * @throws Exception the first failure to arrive, from whichever attempt, if every attempt failed
+     */
+    public HTTPCodes execute(Attempt<HTTPCodes> call) throws Exception {
+        return execute(call, Function.identity());
+    }
+
+    /**
+     * Runs a call.
+     *
+     * @param call   the call
+     * @param status gives the status of a result
+     * @param <T>    the type of the result
+     * @return the first final result, or the last result if none was final
+     * @throws Exception the first failure to arrive, from whichever attempt, if every attempt failed
+     */
+    public <T> T execute(Attempt<T> call, Function<? super T, ? extends HTTPCodes> status) throws Exception {
+        budget.deposit(budgetRatio);
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        List<Future<T>> started = new ArrayList<>(maxAttempts);
+        started.add(completion.submit(timed(call, 0, status)));
+        int running = 1;
+        boolean hedging = maxAttempts > 1;
+        boolean answered = false;
+        T last = null;
+        Exception failure = null;
+        try {
+            while (running > 0) {
+                Future<T> done = hedging ? completion.poll(hedgeDelayNanos(), TimeUnit.NANOSECONDS)
+                        : completion.take();
+                if (done != null) {
+                    running--;
+                    try {
+                        T result = done.get();
+                        if (!nonFinal.contains(status.apply(result)))
+                            return result;
+                        last = result;
+                        answered = true;
+                    } catch (ExecutionException e) {
+                        if (failure == null)
+                            failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+                // the delay passed or an attempt gave no final answer
+                if (hedging) {
+                    if (budget.tryAcquire()) {
+                        hedges.increment();
+                        started.add(completion.submit(timed(call, started.size(), status)));
+                        running++;
+                    }
+                    hedging = started.size() < maxAttempts && budget.available() > 0;
+                }
+            }
+        } finally {
+            for (Future<T> attempt : started)
+                attempt.cancel(true);
+        }
+        if (answered)
+            return last;
+        throw failure;
+    }
+
+    private <T> Callable<T> timed(Attempt<T> call, int attempt, Function<? super T, ? extends HTTPCodes> status) {
+        return () -> {
+            long start = clock.nanoTime();
+            T result = call.call(attempt);
+            if (!nonFinal.contains(status.apply(result)))
+                latencies.record(clock.nanoTime() - start);
+            return result;
+        };
+    }
+
+    /**
+     * @return the current hedge delay in nanoseconds
+     */
+    public long hedgeDelayNanos() {
+        return latencies.count() < MIN_SAMPLES ? initialDelayNanos : latencies.percentile(quantile);
+    }
+
+    /**
+     * @return the number of hedges started so far
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+}
@@ -0,0 +1,129 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.util.NanoClock;
+import com.chiragji.utils.http.util.SampledEviction;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-key rate limiter, e.g. per client id, answering {@link ClientCodes#TOO_MANY_REQ} once a key exceeds its rate.
+ * <p>
+ * Each key owns a {@link TokenBucket}, so a decision is a map lookup plus one compare-and-set, and refilling is
+ * computed from the monotonic clock rather than done by a timer. Buckets live in a {@link ConcurrentHashMap} bounded
+ * in two ways: {@link #evictExpired()}, meant to be called periodically, drops buckets idle for longer than the TTL,
+ * and when the map is full a new key evicts the least recently used of a small random sample of buckets, see
+ * {@link SampledEviction}, an approximation of LRU that needs no shared list and keeps inserts cheap. Keys inserted at
+ * the same time each trim the map after inserting, so it only exceeds the limit while those inserts are running.
+ * A dropped key simply starts again with a full bucket.
+ *
+ * @param <K> the type of the keys
+ * @author Chirag Gupta
+ */
+public final class RateLimiter<K> {
+    /**
+     * The status to answer a denied request with.
+     */
+    public static final ClientCodes DENIED = ClientCodes.TOO_MANY_REQ;
+
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final double tokensPerSecond;
+    private final double burst;
+    private final int maxKeys;
+    private final long ttlNanos;
+    private final long touchGranularity;
+    private final NanoClock clock;
+    private final ConcurrentHashMap<K, Entry> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param tokensPerSecond the sustained rate allowed per key
+     * @param burst           the number of requests a key may make at once after being idle
+     * @param maxKeys         the maximum number of keys tracked at once
+     * @param ttl             how long an idle key is remembered
+     * @param unit            the unit of {@code ttl}
+     * @param clock           the time source
+     */
+    public RateLimiter(double tokensPerSecond, double burst, int maxKeys, long ttl, TimeUnit unit, NanoClock clock) {
+        if (!(tokensPerSecond > 0) || !(burst >= 1))
+            throw new IllegalArgumentException("Rate must be positive and burst at least one token");
+        if (maxKeys <= 0 || ttl <= 0)
+            throw new IllegalArgumentException("Key limit and TTL must be positive");
+        this.tokensPerSecond = tokensPerSecond;
+        this.burst = burst;
+        this.maxKeys = maxKeys;
+        this.ttlNanos = unit.toNanos(ttl);
+        // the access time only needs to be precise enough for TTL decisions, so hot keys skip most writes
+        this.touchGranularity = Math.max(1, ttlNanos / 16);
+        this.clock = clock;
+    }
+
+    /**
+     * Decides whether a request for the key may proceed, taking a token if it does.
+     *
+     * @param key the key the request is accounted to
+     * @return {@code 0} if the request may proceed, otherwise the delay in nanoseconds until the key has a token
+     * again, to be sent as Retry-After along with {@link #DENIED}
+     */
+    public long tryAcquire(K key) {
+        long now = clock.nanoTime();
+        Entry entry = buckets.get(key);
+        if (entry == null)
+            entry = insert(key, now);
+        else if (now - entry.lastAccess >= touchGranularity)
+            entry.lastAccess = now;
+        if (entry.bucket.tryAcquire())
+            return 0;
+        return Math.max(1, entry.bucket.nanosUntilAvailable());
+    }
+
+    private Entry insert(K key, long now) {
+        Entry created = new Entry(new TokenBucket(tokensPerSecond, burst, clock), now);
+        Entry existing = buckets.putIfAbsent(key, created);
+        if (existing != null)
+            return existing;
+        // trim after inserting rather than check before, so concurrent inserts cannot all pass the same check
+        while (buckets.size() > maxKeys)
+            if (!SampledEviction.evictOne(buckets, EVICTION_SAMPLE, e -> e.lastAccess, key))
+                break;
+        return created;
+    }
+
+    /**
+     * Drops every key idle for longer than the TTL. This scans all the keys, so it is meant to be run periodically
+     * from a maintenance thread rather than on the request path.
+     */
+    public void evictExpired() {
+        long now = clock.nanoTime();
+        buckets.values().removeIf(entry -> now - entry.lastAccess > ttlNanos);
+    }
+
+    /**
+     * @return the number of keys currently tracked
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Converts a delay returned by {@link #tryAcquire(Object)} to the whole seconds sent in a Retry-After header.
+     *
+     * @param delayNanos the delay in nanoseconds
+     * @return the delay in seconds, rounded up
+     */
+    public static long retryAfterSeconds(long delayNanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return (delayNanos + second - 1) / second;
+    }
+
+    private static final class Entry {
+        private final TokenBucket bucket;
+        private volatile long lastAccess;
+
+        private Entry(TokenBucket bucket, long lastAccess) {
+            this.bucket = bucket;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.chiragji.utils.http.resilience;
+
+/**
+ * How a response status should be treated by a retrying client.
+ *
+ * @author Chirag Gupta
+ * @see RetryPolicy#classify(int)
+ */
+public enum RetryDecision {
+    /**
+     * The request may be repeated after the usual backoff.
+     */
+    RETRY,
+    /**
+     * The request may be repeated, but not before the delay the server asked for in Retry-After.
+     */
+    RETRY_AFTER_DELAY,
+    /**
+     * The outcome is final; repeating the request will not change it.
+     */
+    DO_NOT_RETRY
+}
@@ -0,0 +1,180 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.HttpDates;
+import com.chiragji.utils.http.util.NanoClock;
+import com.chiragji.utils.http.util.StatusCodeSet;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether and when a request should be repeated, based on the status of its response.
+ * <p>
+ * Statuses are classified with {@link RetryDecision}: {@link ClientCodes#TOO_MANY_REQ} and
+ * {@link ServerError#SERVICE_UNAVAILABLE} wait for the server's Retry-After, transient gateway and timeout errors are
+ * retried with jittered exponential backoff, and every other status is final. That includes
+ * {@link ClientCodes#RETRY_WITH}: it asks the client to retry once it has supplied what is missing, so the same
+ * request sent again after a backoff would only get the same answer.
+ * <p>
+ * All retries are paid for from a shared {@link TokenBucket} budget. Each first attempt deposits a fraction of a token,
+ * so during an outage the retries can add at most that fraction of extra load, plus a small fixed rate, on top of the
+ * original traffic.
+ *
+ * @author Chirag Gupta
+ */
+public final class RetryPolicy {
+    /**
+     * Statuses retried after backoff: 408, 502, 504, 598 and 599.
+     */
+    public static final StatusCodeSet DEFAULT_RETRYABLE = StatusCodeSet.of(ClientCodes.REQUEST_TIMEOUT,
+            ServerError.BAD_GATEWAY, ServerError.GATEWAY_TIMEOUT, ServerError.NETWORK_READ_TIMEOUT_ERROR,
+            ServerError.NETWORK_CONNECT_TIMEOUT_ERROR);
+    /**
+     * Statuses retried no earlier than their Retry-After: 429 and 503.
+     */
+    public static final StatusCodeSet DEFAULT_RETRY_AFTER = StatusCodeSet.of(ClientCodes.TOO_MANY_REQ,
+            ServerError.SERVICE_UNAVAILABLE);
+
+    private final StatusCodeSet retryable;
+    private final StatusCodeSet retryAfter;
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final double budgetRatio;
+    private final TokenBucket budget;
+
+    /**
+     * Creates a policy using the default status sets, with a budget allowing retries for 10% of requests plus 10
+     * retries per second.
+     *
+     * @param maxAttempts the maximum number of attempts, the first one included
+     * @param baseDelay   the backoff before the first retry
+     * @param maxDelay    the upper bound of any backoff
+     * @param unit        the unit of the delays
+     */
+    public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay, TimeUnit unit) {
+        this(DEFAULT_RETRYABLE, DEFAULT_RETRY_AFTER, maxAttempts, baseDelay, maxDelay, unit, 0.1,
+                new TokenBucket(10, 100, NanoClock.SYSTEM));
+    }
+
+    /**
+     * @param retryable   the statuses retried after backoff
+     * @param retryAfter  the statuses retried after the server-provided delay
+     * @param maxAttempts the maximum number of attempts, the first one included
+     * @param baseDelay   the backoff before the first retry
+     * @param maxDelay    the upper bound of any backoff
+     * @param unit        the unit of the delays
+     * @param budgetRatio the tokens deposited into the budget per first attempt
+     * @param budget      the bucket every retry takes a token from, shared by all users of the policy
+     */
+    public RetryPolicy(StatusCodeSet retryable, StatusCodeSet retryAfter, int maxAttempts, long baseDelay,
+                       long maxDelay, TimeUnit unit, double budgetRatio, TokenBucket budget) {
+        if (maxAttempts < 1 || baseDelay <= 0 || maxDelay < baseDelay || budgetRatio < 0)
+            throw new IllegalArgumentException("Invalid retry policy settings");
+        this.retryable = retryable;
+        this.retryAfter = retryAfter;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = unit.toNanos(baseDelay);
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.budgetRatio = budgetRatio;
+        this.budget = budget;
+    }
+
+    /**
+     * @param code the numeric status code of the response
+     * @return how the status should be treated
+     */
+    public RetryDecision classify(int code) {
+        if (retryAfter.contains(code))
+            return RetryDecision.RETRY_AFTER_DELAY;
+        return retryable.contains(code) ? RetryDecision.RETRY : RetryDecision.DO_NOT_RETRY;
+    }
+
+    /**
+     * @param code the status code constant of the response
+     * @return how the status should be treated
+     */
+    public RetryDecision classify(HTTPCodes code) {
+        return classify(code.getCode());
+    }
+
+    /**
+     * Records a first attempt, funding the retry budget. Call once per logical request, not per retry.
+     */
+    public void onRequest() {
+        budget.deposit(budgetRatio);
+    }
+
+    /**
+     * Decides whether to retry, taking a token from the budget if so.
+     *
+     * @param attempt the number of attempts made so far, starting at 1
+     * @param code    the numeric status code of the last response
+     * @return {@code true} if the request should be repeated
+     */
+    public boolean shouldRetry(int attempt, int code) {
+        return attempt < maxAttempts && classify(code) != RetryDecision.DO_NOT_RETRY && budget.tryAcquire();
+    }
+
+    /**
+     * @param attempt the number of attempts made so far, starting at 1
+     * @param code    the status code constant of the last response
+     * @return {@code true} if the request should be repeated
+     * @see #shouldRetry(int, int)
+     */
+    public boolean shouldRetry(int attempt, HTTPCodes code) {
+        return shouldRetry(attempt, code.getCode());
+    }
+
+    /**
+     * Computes a "full jitter" backoff: a uniformly random delay between zero and
+     * {@code min(maxDelay, baseDelay * 2^(attempt - 1))}.
+     *
+     * @param attempt the number of attempts made so far, starting at 1
+     * @return the delay before the next attempt, in nanoseconds
+     */
+    public long backoffNanos(int attempt) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 62 - (63 - Long.numberOfLeadingZeros(baseDelayNanos)));
+        long ceiling = Math.min(maxDelayNanos, baseDelayNanos << shift);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Computes the delay before the next attempt, honouring the server's Retry-After when one was given.
+     *
+     * @param attempt         the number of attempts made so far, starting at 1
+     * @param retryAfterNanos the delay from {@link #parseRetryAfter(CharSequence, long)}, or a negative value if
+     *                        none was given
+     * @return the delay before the next attempt, in nanoseconds
+     */
+    public long delayNanos(int attempt, long retryAfterNanos) {
+        return retryAfterNanos >= 0 ? retryAfterNanos : backoffNanos(attempt);
+    }
+
+    /**
+     * Parses a Retry-After value, either delay-seconds ({@code 120}) or an HTTP-date.
+     *
+     * @param value          the header value
+     * @param nowEpochMillis the current wall-clock time, used to turn a date into a delay
+     * @return the delay in nanoseconds, zero for a date in the past, or {@code -1} if the value is not valid
+     */
+    public static long parseRetryAfter(CharSequence value, long nowEpochMillis) {
+        int length = value.length();
+        if (length == 0)
+            return -1;
+        long seconds = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                long date = HttpDates.parse(value);
+                return date < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(Math.max(0, date - nowEpochMillis));
+            }
+            // clamp absurd values instead of overflowing
+            seconds = Math.min(seconds * 10 + digit, Integer.MAX_VALUE);
+        }
+        return TimeUnit.SECONDS.toNanos(seconds);
+    }
+}
@@ -0,0 +1,97 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.util.NanoClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that refills at a fixed rate up to a capacity.
+ * <p>
+ * Instead of a token count the bucket keeps a single value: the clock reading at which it would be empty. The tokens
+ * available at any time follow from the distance between that reading and now, so refilling costs nothing and taking
+ * a token is one compare-and-set on an {@link AtomicLong}.
+ *
+ * @author Chirag Gupta
+ */
+public final class TokenBucket {
+    private final NanoClock clock;
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final AtomicLong emptyAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param tokensPerSecond the refill rate
+     * @param capacity        the maximum number of tokens the bucket holds, i.e. the largest burst
+     * @param clock           the time source
+     */
+    public TokenBucket(double tokensPerSecond, double capacity, NanoClock clock) {
+        if (!(tokensPerSecond > 0) || !(capacity >= 1))
+            throw new IllegalArgumentException("Rate must be positive and capacity at least one token");
+        this.clock = clock;
+        this.nanosPerToken = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+        this.capacityNanos = (long) (capacity * nanosPerToken);
+        this.emptyAt = new AtomicLong(clock.nanoTime() - capacityNanos);
+    }
+
+    /**
+     * @return {@code true} if a token was taken
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * @param tokens the number of tokens to take
+     * @return {@code true} if all the tokens were taken, {@code false} if the bucket held fewer and nothing was taken
+     */
+    public boolean tryAcquire(int tokens) {
+        long cost = tokens * nanosPerToken;
+        while (true) {
+            long now = clock.nanoTime();
+            long current = emptyAt.get();
+            long next = Math.max(current, now - capacityNanos) + cost;
+            if (next > now)
+                return false;
+            if (emptyAt.compareAndSet(current, next))
+                return true;
+        }
+    }
+
+    /**
+     * Adds tokens on top of the timed refill, never beyond the capacity.
+     *
+     * @param tokens the number of tokens to add, may be fractional
+     */
+    public void deposit(double tokens) {
+        long credit = (long) (tokens * nanosPerToken);
+        while (true) {
+            long now = clock.nanoTime();
+            long current = emptyAt.get();
+            long full = now - capacityNanos;
+            // a full bucket, the common case when retries are rare, is left alone rather than written to
+            if (current <= full)
+                return;
+            if (emptyAt.compareAndSet(current, Math.max(current - credit, full)))
+                return;
+        }
+    }
+
+    /**
+     * @return the number of whole tokens currently available
+     */
+    public long available() {
+        long now = clock.nanoTime();
+        return (now - Math.max(emptyAt.get(), now - capacityNanos)) / nanosPerToken;
+    }
+
+    /**
+     * @return the time until one token is available, zero if one already is
+     */
+    public long nanosUntilAvailable() {
+        long now = clock.nanoTime();
+        return Math.max(0, emptyAt.get() + nanosPerToken - now);
+    }
+}
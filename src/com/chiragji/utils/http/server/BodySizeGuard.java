@@ -0,0 +1,161 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Rejects oversized request bodies before they are buffered.
+ * <p>
+ * {@link #check(long, boolean)} decides from the request head alone, answering {@link ClientCodes#LENGTH_REQ} or
+ * {@link ClientCodes#REQUEST_ENTITY_TOO_LARGE} right away. Bodies of unknown length, such as chunked ones, are read
+ * through {@link #wrap(ReadableByteChannel)} or {@link #wrap(InputStream)}, which count bytes as they pass and throw
+ * {@link BodyTooLargeException} the moment the limit is crossed. The wrappers hold no buffer of their own and never
+ * read more than one byte past the limit, so the memory used per request is only the caller's read buffer.
+ *
+ * @author Chirag Gupta
+ */
+public final class BodySizeGuard {
+    private final long maxBodySize;
+    private final boolean lengthRequired;
+
+    /**
+     * @param maxBodySize    the largest body accepted, in bytes
+     * @param lengthRequired {@code true} to refuse bodies that are neither sized by Content-Length nor chunked
+     */
+    public BodySizeGuard(long maxBodySize, boolean lengthRequired) {
+        if (maxBodySize < 0)
+            throw new IllegalArgumentException("Maximum body size must not be negative");
+        this.maxBodySize = maxBodySize;
+        this.lengthRequired = lengthRequired;
+    }
+
+    /**
+     * Checks the request head before any of the body is read.
+     *
+     * @param contentLength the value of Content-Length, or {@code -1} if absent
+     * @param chunked       {@code true} if the body uses chunked transfer coding
+     * @return {@link ClientCodes#LENGTH_REQ} if the length is missing but required,
+     * {@link ClientCodes#REQUEST_ENTITY_TOO_LARGE} if the declared length exceeds the limit, {@link SuccessCodes#OK}
+     * if the body may be read
+     */
+    public HTTPCodes check(long contentLength, boolean chunked) {
+        if (chunked)
+            return SuccessCodes.OK;
+        if (contentLength < 0)
+            return lengthRequired ? ClientCodes.LENGTH_REQ : SuccessCodes.OK;
+        return contentLength > maxBodySize ? ClientCodes.REQUEST_ENTITY_TOO_LARGE : SuccessCodes.OK;
+    }
+
+    /**
+     * @return the largest body accepted, in bytes
+     */
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * @param body the channel delivering the (decoded) body
+     * @return a channel failing with {@link BodyTooLargeException} once more than the limit has been read
+     */
+    public ReadableByteChannel wrap(ReadableByteChannel body) {
+        return new LimitedChannel(body, maxBodySize);
+    }
+
+    /**
+     * @param body the stream delivering the (decoded) body
+     * @return a stream failing with {@link BodyTooLargeException} once more than the limit has been read
+     */
+    public InputStream wrap(InputStream body) {
+        return new LimitedInputStream(body, maxBodySize);
+    }
+
+    // read at most one byte past the limit, enough to tell that it was crossed; saturates for an unlimited body
+    private static long allowance(long limit, long count) {
+        long remaining = limit - count;
+        return remaining < Long.MAX_VALUE ? remaining + 1 : Long.MAX_VALUE;
+    }
+
+    private static final class LimitedChannel implements ReadableByteChannel {
+        private final ReadableByteChannel delegate;
+        private final long limit;
+        private long count;
+
+        private LimitedChannel(ReadableByteChannel delegate, long limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            long allowed = allowance(limit, count);
+            int originalLimit = dst.limit();
+            if (dst.remaining() > allowed)
+                dst.limit(dst.position() + (int) allowed);
+            int read;
+            try {
+                read = delegate.read(dst);
+            } finally {
+                dst.limit(originalLimit);
+            }
+            if (read > 0 && (count += read) > limit)
+                throw new BodyTooLargeException(limit);
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0 && ++count > limit)
+                throw new BodyTooLargeException(limit);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, (int) Math.min(len, allowance(limit, count)));
+            if (read > 0 && (count += read) > limit)
+                throw new BodyTooLargeException(limit);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, allowance(limit, count)));
+            if (skipped > 0 && (count += skipped) > limit)
+                throw new BodyTooLargeException(limit);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
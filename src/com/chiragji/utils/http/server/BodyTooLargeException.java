@@ -0,0 +1,40 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+
+import java.io.IOException;
+
+/**
+ * Thrown by the streams and channels of {@link BodySizeGuard} as soon as a request body grows past the limit. The
+ * request should be answered with {@link #getStatus()} and the connection closed, since the rest of the body is left
+ * unread.
+ *
+ * @author Chirag Gupta
+ */
+public class BodyTooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long limit;
+
+    /**
+     * @param limit the number of bytes the body was allowed to have
+     */
+    public BodyTooLargeException(long limit) {
+        super("Request body exceeds " + limit + " bytes");
+        this.limit = limit;
+    }
+
+    /**
+     * @return the number of bytes the body was allowed to have
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return {@link ClientCodes#REQUEST_ENTITY_TOO_LARGE}
+     */
+    public ClientCodes getStatus() {
+        return ClientCodes.REQUEST_ENTITY_TOO_LARGE;
+    }
+}
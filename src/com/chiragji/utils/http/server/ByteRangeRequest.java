@@ -0,0 +1,297 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Evaluates a Range header against a file and streams the selected byte ranges.
+ * <p>
+ * {@link #evaluate(byte[], int, int, long)} parses the header straight from bytes and decides between
+ * {@link SuccessCodes#OK} (no usable Range header, send the whole file), {@link SuccessCodes#PARTIAL_CONTENT} and
+ * {@link ClientCodes#REQ_RANGE_NOT_SATISFIABLE}. {@link #transfer(FileChannel, WritableByteChannel, byte[], byte[])}
+ * then sends the ranges with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, so file data goes from
+ * the page cache to the socket without passing through the heap; for several ranges only the small multipart/byteranges
+ * part headers are built in a heap buffer.
+ * <p>
+ * An instance keeps the parsed ranges in preallocated arrays and may be reused, e.g. one per connection; it is not
+ * thread-safe.
+ *
+ * @author Chirag Gupta
+ */
+public final class ByteRangeRequest {
+    /**
+     * The most ranges a request may ask for; a Range header listing more is ignored and the whole file is sent.
+     */
+    public static final int MAX_RANGES = 16;
+
+    private static final byte[] BYTES_UNIT = "bytes=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] DASHES = {'-', '-'};
+    private static final byte[] CONTENT_TYPE = "Content-Type: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_RANGE = "Content-Range: bytes ".getBytes(StandardCharsets.US_ASCII);
+
+    private final long[] starts = new long[MAX_RANGES];
+    private final long[] ends = new long[MAX_RANGES];
+    private int count;
+    private long resourceLength;
+    private ByteBuffer partHeader;
+
+    /**
+     * Parses a Range header and resolves it against the length of the file.
+     *
+     * @param header         the array holding the Range value, or {@code null} if the request had none
+     * @param offset         index of the first byte of the value
+     * @param length         length of the value
+     * @param resourceLength the length of the file
+     * @return {@link SuccessCodes#PARTIAL_CONTENT} if at least one range is satisfiable,
+     * {@link ClientCodes#REQ_RANGE_NOT_SATISFIABLE} if none is, and {@link SuccessCodes#OK} if the header is absent,
+     * malformed, not in bytes or lists too many ranges
+     */
+    public HTTPCodes evaluate(byte[] header, int offset, int length, long resourceLength) {
+        this.count = 0;
+        this.resourceLength = resourceLength;
+        if (header == null || !startsWithUnit(header, offset, length))
+            return SuccessCodes.OK;
+        int end = offset + length;
+        int i = offset + BYTES_UNIT.length;
+        boolean specFound = false;
+        while (i < end) {
+            byte b = header[i];
+            if (b == ' ' || b == '\t' || b == ',') {
+                i++;
+                continue;
+            }
+            long first = -1;
+            if (b != '-') {
+                first = 0;
+                for (; i < end && isDigit(header[i]); i++)
+                    first = accumulate(first, header[i]);
+            }
+            if (i == end || header[i] != '-')
+                return ignore();
+            i++;
+            long last = -1;
+            if (i < end && isDigit(header[i])) {
+                last = 0;
+                for (; i < end && isDigit(header[i]); i++)
+                    last = accumulate(last, header[i]);
+            }
+            if (first < 0 && last < 0 || first >= 0 && last >= 0 && last < first)
+                return ignore();
+            // a spec ends the list or is followed by optional whitespace and a comma, so 0-1-2 or 0-1 5-9 is malformed
+            while (i < end && (header[i] == ' ' || header[i] == '\t'))
+                i++;
+            if (i < end && header[i] != ',')
+                return ignore();
+            specFound = true;
+            if (!add(first, last))
+                return ignore();
+        }
+        if (!specFound)
+            return ignore();
+        return count == 0 ? ClientCodes.REQ_RANGE_NOT_SATISFIABLE : SuccessCodes.PARTIAL_CONTENT;
+    }
+
+    private HTTPCodes ignore() {
+        count = 0;
+        return SuccessCodes.OK;
+    }
+
+    // resolves one byte-range-spec; unsatisfiable specs are dropped, returns false once there are too many
+    private boolean add(long first, long last) {
+        long start;
+        long end;
+        if (first < 0) {
+            if (last == 0 || resourceLength == 0)
+                return true;
+            start = Math.max(0, resourceLength - last);
+            end = resourceLength - 1;
+        } else {
+            if (first >= resourceLength)
+                return true;
+            start = first;
+            end = last < 0 ? resourceLength - 1 : Math.min(last, resourceLength - 1);
+        }
+        if (count == MAX_RANGES)
+            return false;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+        return true;
+    }
+
+    private static boolean startsWithUnit(byte[] header, int offset, int length) {
+        if (length < BYTES_UNIT.length)
+            return false;
+        for (int i = 0; i < BYTES_UNIT.length; i++)
+            if ((header[offset + i] | 0x20) != (BYTES_UNIT[i] | 0x20))
+                return false;
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    // saturates instead of overflowing, a position that large is unsatisfiable anyway
+    private static long accumulate(long value, byte digit) {
+        return value > (Long.MAX_VALUE - 9) / 10 ? Long.MAX_VALUE / 2 : value * 10 + digit - '0';
+    }
+
+    /**
+     * @return the number of satisfiable ranges found by the last evaluation
+     */
+    public int getRangeCount() {
+        return count;
+    }
+
+    /**
+     * @param index the index of the range
+     * @return the position of the first byte of the range
+     */
+    public long getStart(int index) {
+        return starts[checkIndex(index)];
+    }
+
+    /**
+     * @param index the index of the range
+     * @return the position of the last byte of the range, inclusive
+     */
+    public long getEnd(int index) {
+        return ends[checkIndex(index)];
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Range " + index + " of " + count);
+        return index;
+    }
+
+    /**
+     * @param index the index of the range
+     * @return the Content-Range value of the range, e.g. {@code bytes 0-499/1234}
+     */
+    public String getContentRange(int index) {
+        return "bytes " + getStart(index) + '-' + getEnd(index) + '/' + resourceLength;
+    }
+
+    /**
+     * @return the Content-Range value to send with a 416 response, e.g. {@code bytes *}{@code /1234}
+     */
+    public String getUnsatisfiedContentRange() {
+        return "bytes */" + resourceLength;
+    }
+
+    /**
+     * Computes the Content-Length of the 206 response body.
+     *
+     * @param boundary    the multipart boundary, only used when there is more than one range
+     * @param contentType the Content-Type of the file, only used when there is more than one range
+     * @return the number of bytes {@link #transfer(FileChannel, WritableByteChannel, byte[], byte[])} will write
+     */
+    public long contentLength(byte[] boundary, byte[] contentType) {
+        if (count == 1)
+            return ends[0] - starts[0] + 1;
+        long length = 0;
+        for (int i = 0; i < count; i++)
+            length += partHeaderLength(i, boundary, contentType) + ends[i] - starts[i] + 1;
+        return length + CRLF.length + DASHES.length + boundary.length + DASHES.length + CRLF.length;
+    }
+
+    /**
+     * Sends the ranges found by the last evaluation. A single range is sent as is; several ranges are sent as a
+     * multipart/byteranges body whose Content-Type must be {@code multipart/byteranges; boundary=<boundary>}.
+     * The target is expected to be in blocking mode.
+     *
+     * @param file        the file the ranges refer to
+     * @param target      the channel to write to
+     * @param boundary    the multipart boundary, only used when there is more than one range
+     * @param contentType the Content-Type of the file, only used when there is more than one range
+     * @return the number of bytes written
+     * @throws IOException if reading the file or writing the target fails
+     */
+    public long transfer(FileChannel file, WritableByteChannel target, byte[] boundary, byte[] contentType)
+            throws IOException {
+        if (count == 1)
+            return transferRange(file, target, starts[0], ends[0]);
+        long written = 0;
+        for (int i = 0; i < count; i++) {
+            ByteBuffer header = partHeader(partHeaderLength(i, boundary, contentType));
+            header.put(CRLF).put(DASHES).put(boundary).put(CRLF)
+                    .put(CONTENT_TYPE).put(contentType).put(CRLF)
+                    .put(CONTENT_RANGE);
+            putDecimal(header, starts[i]);
+            header.put((byte) '-');
+            putDecimal(header, ends[i]);
+            header.put((byte) '/');
+            putDecimal(header, resourceLength);
+            header.put(CRLF).put(CRLF).flip();
+            written += writeFully(target, header);
+            written += transferRange(file, target, starts[i], ends[i]);
+        }
+        ByteBuffer trailer = partHeader(CRLF.length + DASHES.length + boundary.length + DASHES.length + CRLF.length);
+        trailer.put(CRLF).put(DASHES).put(boundary).put(DASHES).put(CRLF).flip();
+        return written + writeFully(target, trailer);
+    }
+
+    private long partHeaderLength(int index, byte[] boundary, byte[] contentType) {
+        return CRLF.length + DASHES.length + boundary.length + CRLF.length
+                + CONTENT_TYPE.length + contentType.length + CRLF.length
+                + CONTENT_RANGE.length + decimalLength(starts[index]) + 1 + decimalLength(ends[index]) + 1
+                + decimalLength(resourceLength) + CRLF.length + CRLF.length;
+    }
+
+    private ByteBuffer partHeader(long length) {
+        if (partHeader == null || partHeader.capacity() < length)
+            partHeader = ByteBuffer.allocate((int) Math.max(length, 256));
+        partHeader.clear();
+        return partHeader;
+    }
+
+    private static long transferRange(FileChannel file, WritableByteChannel target, long start, long end)
+            throws IOException {
+        long position = start;
+        long remaining = end - start + 1;
+        while (remaining > 0) {
+            long sent = file.transferTo(position, remaining, target);
+            if (sent <= 0 && position >= file.size())
+                throw new IOException("File shrank while sending range " + start + '-' + end);
+            position += sent;
+            remaining -= sent;
+        }
+        return end - start + 1;
+    }
+
+    private static int writeFully(WritableByteChannel target, ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining())
+            target.write(buffer);
+        return length;
+    }
+
+    private static int decimalLength(long value) {
+        int length = 1;
+        while (value >= 10) {
+            value /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    private static void putDecimal(ByteBuffer buffer, long value) {
+        int length = decimalLength(value);
+        int end = buffer.position() + length;
+        for (int i = end - 1; i >= end - length; i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+}
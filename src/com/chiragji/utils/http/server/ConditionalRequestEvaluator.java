@@ -0,0 +1,184 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.HttpDates;
+
+/**
+ * Evaluates the If-Match, If-Unmodified-Since, If-None-Match and If-Modified-Since preconditions of a request against
+ * the current state of the target resource, in the order given by RFC 7232 section 6.
+ * <p>
+ * Header values are handed over as slices of the buffer they were read into and are only referenced, never copied;
+ * entity tags are compared byte by byte and dates are parsed with {@link HttpDates}, so an evaluation creates no
+ * object. An instance is meant to be reused, e.g. one per connection, and is not thread-safe; call {@link #reset()}
+ * before each request.
+ *
+ * @author Chirag Gupta
+ */
+public final class ConditionalRequestEvaluator {
+    private byte[] ifMatch;
+    private int ifMatchOffset;
+    private int ifMatchLength;
+    private byte[] ifNoneMatch;
+    private int ifNoneMatchOffset;
+    private int ifNoneMatchLength;
+    private long ifModifiedSince = -1;
+    private long ifUnmodifiedSince = -1;
+
+    /**
+     * Forgets the headers of the previous request.
+     */
+    public void reset() {
+        ifMatch = null;
+        ifNoneMatch = null;
+        ifModifiedSince = -1;
+        ifUnmodifiedSince = -1;
+    }
+
+    /**
+     * @param value  the array holding the If-Match value
+     * @param offset index of the first byte of the value
+     * @param length length of the value
+     */
+    public void ifMatch(byte[] value, int offset, int length) {
+        ifMatch = value;
+        ifMatchOffset = offset;
+        ifMatchLength = length;
+    }
+
+    /**
+     * @param value  the array holding the If-None-Match value
+     * @param offset index of the first byte of the value
+     * @param length length of the value
+     */
+    public void ifNoneMatch(byte[] value, int offset, int length) {
+        ifNoneMatch = value;
+        ifNoneMatchOffset = offset;
+        ifNoneMatchLength = length;
+    }
+
+    /**
+     * An invalid date is ignored, as the specification requires.
+     *
+     * @param value  the array holding the If-Modified-Since value
+     * @param offset index of the first byte of the value
+     * @param length length of the value
+     */
+    public void ifModifiedSince(byte[] value, int offset, int length) {
+        ifModifiedSince = HttpDates.parse(value, offset, length);
+    }
+
+    /**
+     * An invalid date is ignored, as the specification requires.
+     *
+     * @param value  the array holding the If-Unmodified-Since value
+     * @param offset index of the first byte of the value
+     * @param length length of the value
+     */
+    public void ifUnmodifiedSince(byte[] value, int offset, int length) {
+        ifUnmodifiedSince = HttpDates.parse(value, offset, length);
+    }
+
+    /**
+     * Evaluates the preconditions recorded since the last {@link #reset()} against a resource that exists.
+     *
+     * @param getOrHead    {@code true} if the request method is GET or HEAD
+     * @param etag         the current entity tag of the resource, or {@code null} if it has none
+     * @param lastModified the modification time of the resource in milliseconds since the epoch, or {@code -1} if
+     *                     unknown
+     * @return the outcome, as for {@link #evaluate(boolean, boolean, byte[], long)}
+     */
+    public HTTPCodes evaluate(boolean getOrHead, byte[] etag, long lastModified) {
+        return evaluate(getOrHead, true, etag, lastModified);
+    }
+
+    /**
+     * Evaluates the preconditions recorded since the last {@link #reset()}.
+     * <p>
+     * Whether the resource exists is given on its own, since a resource without an entity tag still matches
+     * {@code If-Match: *} and {@code If-None-Match: *}, while a missing one matches neither.
+     *
+     * @param getOrHead    {@code true} if the request method is GET or HEAD
+     * @param exists       {@code true} if the target resource has a current representation
+     * @param etag         the current entity tag of the resource including its quotes and optional {@code W/}
+     *                     prefix, e.g. {@code "v42"}, or {@code null} if the resource has none or does not exist
+     * @param lastModified the modification time of the resource in milliseconds since the epoch, or {@code -1} if
+     *                     unknown, in which case If-Unmodified-Since and If-Modified-Since are ignored
+     * @return {@link RedirectionCodes#NOT_MODIFIED} or {@link ClientCodes#PRE_CONDITION_FAILED} if the request should
+     * be answered with that status right away, {@link SuccessCodes#OK} if the method should be performed as usual
+     */
+    public HTTPCodes evaluate(boolean getOrHead, boolean exists, byte[] etag, long lastModified) {
+        long lastModifiedSecond = !exists || lastModified < 0 ? -1 : lastModified / 1000 * 1000;
+        if (ifMatch != null) {
+            if (!matches(ifMatch, ifMatchOffset, ifMatchLength, exists, etag, true))
+                return ClientCodes.PRE_CONDITION_FAILED;
+        } else if (ifUnmodifiedSince >= 0 && lastModifiedSecond >= 0 && lastModifiedSecond > ifUnmodifiedSince)
+            return ClientCodes.PRE_CONDITION_FAILED;
+        if (ifNoneMatch != null) {
+            if (matches(ifNoneMatch, ifNoneMatchOffset, ifNoneMatchLength, exists, etag, false))
+                return getOrHead ? RedirectionCodes.NOT_MODIFIED : ClientCodes.PRE_CONDITION_FAILED;
+        } else if (getOrHead && ifModifiedSince >= 0 && lastModifiedSecond >= 0
+                && lastModifiedSecond <= ifModifiedSince)
+            return RedirectionCodes.NOT_MODIFIED;
+        return SuccessCodes.OK;
+    }
+
+    /**
+     * Checks whether a list of entity tags, or {@code *}, matches the current entity tag.
+     *
+     * @param list   the array holding the header value
+     * @param offset index of the first byte of the value
+     * @param length length of the value
+     * @param exists {@code true} if the resource exists, which is all {@code *} asks for
+     * @param etag   the current entity tag, {@code null} if the resource has none
+     * @param strong {@code true} for the strong comparison used by If-Match, {@code false} for the weak comparison used
+     *               by If-None-Match
+     * @return {@code true} if {@code *} or one of the listed tags matches
+     */
+    public static boolean matches(byte[] list, int offset, int length, boolean exists, byte[] etag, boolean strong) {
+        if (!exists)
+            return false;
+        boolean etagWeak = etag != null && isWeak(etag, 0, etag.length);
+        int etagStart = etagWeak ? 2 : 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            byte b = list[i];
+            if (b == ' ' || b == '\t' || b == ',') {
+                i++;
+                continue;
+            }
+            if (b == '*')
+                return true;
+            boolean weak = isWeak(list, i, end - i);
+            int start = weak ? i + 2 : i;
+            if (start >= end || list[start] != '"')
+                return false;
+            int close = start + 1;
+            while (close < end && list[close] != '"')
+                close++;
+            if (close == end)
+                return false;
+            if (etag != null && !(strong && (weak || etagWeak))
+                    && equal(list, start, close + 1 - start, etag, etagStart, etag.length - etagStart))
+                return true;
+            i = close + 1;
+        }
+        return false;
+    }
+
+    private static boolean isWeak(byte[] bytes, int offset, int length) {
+        return length >= 2 && bytes[offset] == 'W' && bytes[offset + 1] == '/';
+    }
+
+    private static boolean equal(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        if (aLength != bLength)
+            return false;
+        for (int i = 0; i < aLength; i++)
+            if (a[aOffset + i] != b[bOffset + i])
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,241 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.HeaderFields;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental scanner that finds the end of a request head (request line and header fields) while enforcing size
+ * limits, before any of it is turned into objects.
+ * <p>
+ * Bytes are fed as they arrive; the scanner only counts and checks the syntax byte by byte, so a client trickling an
+ * endless URI or header section is cut off at the configured limit instead of growing a buffer. The outcome is
+ * {@link ClientCodes#REQUEST_URI_TOO_LONG} for an oversized request target,
+ * {@link ClientCodes#REQ_HEADER_FIELDS_TOO_LARGE} for an oversized header section or too many fields,
+ * {@link ClientCodes#BAD_REQUEST} for a malformed request line or header field and {@link SuccessCodes#OK} once the
+ * empty line ending the head has been read within the limits.
+ * <p>
+ * The request line must be a token method, a target of visible US-ASCII and exactly {@code HTTP/1.0} or
+ * {@code HTTP/1.1}, separated by single spaces. Every field line must start with a token name directly followed by a
+ * colon, and values may not hold control characters other than HTAB, so a NUL, a bare CR or a folded line is
+ * rejected. Lines end with CRLF or a bare LF. An instance is meant to be reused per connection and is not thread-safe.
+ *
+ * @author Chirag Gupta
+ */
+public final class RequestHeadScanner {
+    private static final int MAX_METHOD_LENGTH = 32;
+    // every version but the digit after it, which must be 0 or 1
+    private static final byte[] VERSION_PREFIX = "HTTP/1.".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int S_METHOD = 0;
+    private static final int S_URI = 1;
+    private static final int S_VERSION = 2;
+    private static final int S_REQUEST_LINE_END = 3;
+    private static final int S_REQUEST_LINE_LF = 4;
+    private static final int S_LINE_START = 5;
+    private static final int S_NAME = 6;
+    private static final int S_VALUE = 7;
+    private static final int S_FIELD_LF = 8;
+    private static final int S_HEAD_LF = 9;
+
+    private final int maxUriLength;
+    private final int maxHeaderBytes;
+    private final int maxHeaderCount;
+
+    private int state;
+    private int tokenLength;
+    private int uriLength;
+    private int headerBytes;
+    private int headerCount;
+    private long scanned;
+    private HTTPCodes result;
+
+    /**
+     * @param maxUriLength   the longest request target accepted, in bytes
+     * @param maxHeaderBytes the largest header section accepted, in bytes, line ends included
+     * @param maxHeaderCount the most header fields accepted
+     */
+    public RequestHeadScanner(int maxUriLength, int maxHeaderBytes, int maxHeaderCount) {
+        if (maxUriLength <= 0 || maxHeaderBytes <= 0 || maxHeaderCount <= 0)
+            throw new IllegalArgumentException("Limits must be positive");
+        this.maxUriLength = maxUriLength;
+        this.maxHeaderBytes = maxHeaderBytes;
+        this.maxHeaderCount = maxHeaderCount;
+    }
+
+    /**
+     * Scans the remaining bytes of the buffer. The position is advanced past the bytes examined: up to the end of the
+     * head once it is found, or to the byte that broke a limit.
+     *
+     * @param buffer the bytes received so far
+     * @return {@code true} once a result is available from {@link #getResult()}
+     */
+    public boolean scan(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        while (result == null && position < limit)
+            next(buffer.get(position++));
+        buffer.position(position);
+        return result != null;
+    }
+
+    /**
+     * Scans a slice of a byte array.
+     *
+     * @param bytes  the array holding the received bytes
+     * @param offset index of the first byte to scan
+     * @param length number of bytes available
+     * @return the number of bytes examined; check {@link #getResult()} to tell whether more input is needed
+     */
+    public int scan(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int index = offset;
+        while (result == null && index < end)
+            next(bytes[index++]);
+        return index - offset;
+    }
+
+    private void next(byte b) {
+        scanned++;
+        switch (state) {
+            case S_METHOD:
+                if (b == ' ' && tokenLength > 0) {
+                    state = S_URI;
+                    tokenLength = 0;
+                } else if (!HeaderFields.isTokenChar(b) || ++tokenLength > MAX_METHOD_LENGTH)
+                    result = ClientCodes.BAD_REQUEST;
+                break;
+            case S_URI:
+                if (b == ' ' && uriLength > 0)
+                    state = S_VERSION;
+                else if (b <= ' ' || b == 0x7f)
+                    result = ClientCodes.BAD_REQUEST;
+                else if (++uriLength > maxUriLength)
+                    result = ClientCodes.REQUEST_URI_TOO_LONG;
+                break;
+            case S_VERSION:
+                if (tokenLength < VERSION_PREFIX.length) {
+                    if (b != VERSION_PREFIX[tokenLength++])
+                        result = ClientCodes.BAD_REQUEST;
+                } else if (b == '0' || b == '1')
+                    state = S_REQUEST_LINE_END;
+                else
+                    result = ClientCodes.BAD_REQUEST;
+                break;
+            case S_REQUEST_LINE_END:
+                if (b == '\r')
+                    state = S_REQUEST_LINE_LF;
+                else if (b == '\n')
+                    state = S_LINE_START;
+                else
+                    result = ClientCodes.BAD_REQUEST;
+                break;
+            case S_REQUEST_LINE_LF:
+                if (b == '\n')
+                    state = S_LINE_START;
+                else
+                    result = ClientCodes.BAD_REQUEST;
+                break;
+            case S_LINE_START:
+                if (countHeaderByte())
+                    break;
+                if (b == '\n')
+                    result = SuccessCodes.OK;
+                else if (b == '\r')
+                    state = S_HEAD_LF;
+                else if (!HeaderFields.isTokenChar(b))
+                    // also rejects obsolete line folding, a line starting with whitespace
+                    result = ClientCodes.BAD_REQUEST;
+                else if (++headerCount > maxHeaderCount)
+                    result = ClientCodes.REQ_HEADER_FIELDS_TOO_LARGE;
+                else
+                    state = S_NAME;
+                break;
+            case S_NAME:
+                if (countHeaderByte())
+                    break;
+                if (b == ':')
+                    state = S_VALUE;
+                else if (!HeaderFields.isTokenChar(b))
+                    result = ClientCodes.BAD_REQUEST;
+                break;
+            case S_VALUE:
+                if (countHeaderByte())
+                    break;
+                if (b == '\r')
+                    state = S_FIELD_LF;
+                else if (b == '\n')
+                    state = S_LINE_START;
+                else if (b >= 0 && b < ' ' && b != '\t' || b == 0x7f)
+                    // bytes above 0x7f are negative and allowed as obs-text
+                    result = ClientCodes.BAD_REQUEST;
+                break;
+            case S_FIELD_LF:
+            case S_HEAD_LF:
+                if (countHeaderByte())
+                    break;
+                if (b != '\n')
+                    result = ClientCodes.BAD_REQUEST;
+                else if (state == S_HEAD_LF)
+                    result = SuccessCodes.OK;
+                else
+                    state = S_LINE_START;
+                break;
+            default:
+                break;
+        }
+    }
+
+    // returns true if the byte pushed the header section over its limit
+    private boolean countHeaderByte() {
+        if (++headerBytes <= maxHeaderBytes)
+            return false;
+        result = ClientCodes.REQ_HEADER_FIELDS_TOO_LARGE;
+        return true;
+    }
+
+    /**
+     * @return the outcome of the scan, or {@code null} while more input is needed
+     */
+    public HTTPCodes getResult() {
+        return result;
+    }
+
+    /**
+     * @return the length of the request target seen so far
+     */
+    public int getUriLength() {
+        return uriLength;
+    }
+
+    /**
+     * @return the number of header fields seen so far
+     */
+    public int getHeaderCount() {
+        return headerCount;
+    }
+
+    /**
+     * @return the number of bytes examined since the last reset, i.e. the length of the head once it is complete
+     */
+    public long getScannedBytes() {
+        return scanned;
+    }
+
+    /**
+     * Clears the state so the instance can scan the next request head.
+     */
+    public void reset() {
+        state = S_METHOD;
+        tokenLength = 0;
+        uriLength = 0;
+        headerBytes = 0;
+        headerCount = 0;
+        scanned = 0;
+        result = null;
+    }
+}
@@ -0,0 +1,402 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.StatusClass;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.io.BufferPool;
+import com.chiragji.utils.http.util.HeaderFields;
+import com.chiragji.utils.http.util.HttpDates;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes HTTP/1.1 responses onto a channel with gathering writes.
+ * <p>
+ * The head starts from the status line cached by the {@link HTTPCodes} constant and is assembled in a direct buffer
+ * reused for every response on the connection, either owned by the writer or taken from a {@link BufferPool} and
+ * given back by {@link #release()}. The head and the body, or a chunk header, the
+ * chunk data and its line end, are then handed to {@link GatheringByteChannel#write(ByteBuffer[], int, int)} together,
+ * so a response usually leaves in a single system call and the body is never copied.
+ * <p>
+ * The writer works with non-blocking channels: every sending method returns {@code false} when the channel could not
+ * take everything, in which case the caller waits for the channel to become writable and calls {@link #flush()} until
+ * it returns {@code true} before sending anything else. The body buffers passed in must not be modified until then.
+ * One writer serves one connection and is not thread-safe.
+ * <p>
+ * Whether the connection persists is settled when the head is sent, from the last {@link #keepAlive(boolean)} choice,
+ * the version of the peer and the framing of the body: a body with neither Content-Length nor chunked coding can only
+ * be ended by closing the connection.
+ *
+ * @author Chirag Gupta
+ */
+public final class ResponseWriter {
+    /**
+     * Default capacity of the head buffer, which bounds the size of the status line plus all header fields.
+     */
+    public static final int DEFAULT_HEAD_CAPACITY = 4096;
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] COLON = {':', ' '};
+    private static final byte[] CONTENT_LENGTH = "Content-Length".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRANSFER_ENCODING_CHUNKED =
+            "Transfer-Encoding: chunked\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONNECTION_CLOSE = "Connection: close\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONNECTION_KEEP_ALIVE =
+            "Connection: keep-alive\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATE = "Date".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final GatheringByteChannel channel;
+    private final ByteBuffer head;
+    private final BufferPool pool;
+    private final ByteBuffer chunkHead = ByteBuffer.allocateDirect(18);
+    private final ByteBuffer chunkTail = ByteBuffer.allocateDirect(LAST_CHUNK.length);
+    private final ByteBuffer[] pending = new ByteBuffer[4];
+    private final byte[] dateBytes = new byte[HttpDates.IMF_FIXDATE_LENGTH];
+    private int pendingOffset;
+    private int pendingCount;
+
+    private int status;
+    private boolean headComplete;
+    private boolean headPending;
+    private boolean chunked;
+    private boolean hasLength;
+    private boolean http10;
+    private boolean keepAlive;
+
+    /**
+     * @param channel the connection to write to
+     */
+    public ResponseWriter(GatheringByteChannel channel) {
+        this(channel, DEFAULT_HEAD_CAPACITY);
+    }
+
+    /**
+     * @param channel      the connection to write to
+     * @param headCapacity the largest response head that can be written, in bytes
+     */
+    public ResponseWriter(GatheringByteChannel channel, int headCapacity) {
+        this.channel = channel;
+        this.head = ByteBuffer.allocateDirect(headCapacity);
+        this.pool = null;
+    }
+
+    /**
+     * Creates a writer whose head buffer of {@link #DEFAULT_HEAD_CAPACITY} bytes comes from a pool; it must be given
+     * back with {@link #release()} when the connection closes.
+     *
+     * @param channel the connection to write to
+     * @param pool    the pool to take the head buffer from
+     */
+    public ResponseWriter(GatheringByteChannel channel, BufferPool pool) {
+        this.channel = channel;
+        this.head = pool.acquire(DEFAULT_HEAD_CAPACITY);
+        this.pool = pool;
+    }
+
+    /**
+     * Begins a new response to an HTTP/1.1 request.
+     *
+     * @param code the status of the response
+     * @throws IllegalArgumentException if {@code code} is {@link com.chiragji.utils.http.enums.UnknownCode#UNKNOWN},
+     *                                  which has no status line to send
+     * @throws IllegalStateException    if the previous response has not been flushed
+     */
+    public void start(HTTPCodes code) {
+        start(code, false);
+    }
+
+    /**
+     * Begins a new response. An HTTP/1.0 peer closes the connection after each response by default and does not
+     * understand chunked coding, so the connection is only kept if {@link #keepAlive(boolean)} asks for it, usually
+     * because the request carried {@code Connection: keep-alive}, and a {@code Connection: keep-alive} field is then
+     * sent back.
+     *
+     * @param code   the status of the response
+     * @param http10 {@code true} if the request was HTTP/1.0
+     * @throws IllegalArgumentException if {@code code} is {@link com.chiragji.utils.http.enums.UnknownCode#UNKNOWN},
+     *                                  which has no status line to send
+     * @throws IllegalStateException    if the previous response has not been flushed
+     */
+    public void start(HTTPCodes code, boolean http10) {
+        if (code.getStatusClass() == StatusClass.UNKNOWN)
+            throw new IllegalArgumentException("Cannot send a response with an unknown status code");
+        if (pendingCount != 0)
+            throw new IllegalStateException("Previous response not flushed");
+        head.clear();
+        code.copyStatusLine(head);
+        status = code.getCode();
+        headComplete = false;
+        headPending = false;
+        chunked = false;
+        hasLength = false;
+        this.http10 = http10;
+        keepAlive = !http10;
+    }
+
+    /**
+     * Adds a header field. The name must be a token and the value ISO-8859-1 text without CR, LF or NUL, so that
+     * neither can end the field early.
+     *
+     * @param name  the field name
+     * @param value the field value
+     * @throws IllegalArgumentException if the name is not a token or the value holds a forbidden character
+     * @throws BufferOverflowException  if the head no longer fits in the head buffer
+     */
+    public void header(CharSequence name, CharSequence value) {
+        checkHeadOpen();
+        if (!HeaderFields.isToken(name))
+            throw new IllegalArgumentException("Malformed header name: " + name);
+        if (!HeaderFields.isFieldValue(value))
+            throw new IllegalArgumentException("Malformed value of header " + name);
+        putLatin1(name);
+        head.put(COLON);
+        putLatin1(value);
+        head.put(CRLF);
+    }
+
+    /**
+     * Adds a header field given as encoded bytes, checked as by {@link #header(CharSequence, CharSequence)}.
+     *
+     * @param name  the field name
+     * @param value the field value
+     * @throws IllegalArgumentException if the name is not a token or the value holds CR, LF or NUL
+     * @throws BufferOverflowException  if the head no longer fits in the head buffer
+     */
+    public void header(byte[] name, byte[] value) {
+        checkHeadOpen();
+        if (!HeaderFields.isToken(name))
+            throw new IllegalArgumentException("Malformed header name");
+        if (!HeaderFields.isFieldValue(value))
+            throw new IllegalArgumentException("Line break or NUL in a header value");
+        head.put(name).put(COLON).put(value).put(CRLF);
+    }
+
+    /**
+     * Adds a Content-Length field, for a body that is sent later with {@link #sendBody(ByteBuffer)} or for the
+     * response to a HEAD request. {@link #send(ByteBuffer)} adds it by itself.
+     *
+     * @param length the length of the body
+     */
+    public void contentLength(long length) {
+        checkHeadOpen();
+        head.put(CONTENT_LENGTH).put(COLON);
+        putDecimal(length);
+        head.put(CRLF);
+        hasLength = true;
+    }
+
+    /**
+     * Adds a Date field.
+     *
+     * @param epochMillis the time the response was generated, in milliseconds since the epoch
+     */
+    public void date(long epochMillis) {
+        checkHeadOpen();
+        HttpDates.format(epochMillis, dateBytes, 0);
+        head.put(DATE).put(COLON).put(dateBytes).put(CRLF);
+    }
+
+    /**
+     * Chooses whether the connection stays open after this response; it does by default for HTTP/1.1 peers. The last
+     * call before the head is sent wins. When the connection does not stay open, a {@code Connection: close} field is
+     * added and the caller should close the channel once the response is flushed.
+     *
+     * @param keepAlive {@code false} to close the connection after the response
+     */
+    public void keepAlive(boolean keepAlive) {
+        checkHeadOpen();
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * @return {@code true} if the connection stays open after the current response; final once the head is sent
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Sends a response with a body of known length, adding Content-Length unless the status forbids a body (1xx, 204
+     * and 304), in which case the body must be {@code null} or empty.
+     *
+     * @param body the body, or {@code null} for none
+     * @return {@code true} if the response was written completely, {@code false} if {@link #flush()} must be called
+     * @throws IOException if writing fails
+     */
+    public boolean send(ByteBuffer body) throws IOException {
+        if (!bodyForbidden())
+            contentLength(body == null ? 0 : body.remaining());
+        else if (body != null && body.hasRemaining())
+            throw new IllegalStateException("Status " + status + " must not carry a body");
+        endHead();
+        return write(body, null, null);
+    }
+
+    /**
+     * Sends only the head, e.g. for a HEAD request or before streaming the body with {@link #sendBody(ByteBuffer)}.
+     * Without a {@link #contentLength(long)} the body can only end with the connection, which is then closed.
+     *
+     * @return {@code true} if the head was written completely, {@code false} if {@link #flush()} must be called
+     * @throws IOException if writing fails
+     */
+    public boolean sendHead() throws IOException {
+        endHead();
+        return write(null, null, null);
+    }
+
+    /**
+     * Sends part of a body whose length was declared with {@link #contentLength(long)}; the head is sent along with the
+     * first part if it has not been yet. A body of undeclared length is ended by closing the connection.
+     *
+     * @param data the bytes to send
+     * @return {@code true} if everything was written, {@code false} if {@link #flush()} must be called
+     * @throws IOException if writing fails
+     */
+    public boolean sendBody(ByteBuffer data) throws IOException {
+        if (chunked)
+            throw new IllegalStateException("Use sendChunk for a chunked response");
+        endHead();
+        return write(data, null, null);
+    }
+
+    /**
+     * Sends one chunk of a chunked body. The first call adds {@code Transfer-Encoding: chunked} and sends the head
+     * along with the chunk; empty buffers are skipped, since an empty chunk would end the body.
+     *
+     * @param data the bytes of the chunk
+     * @return {@code true} if everything was written, {@code false} if {@link #flush()} must be called
+     * @throws IOException           if writing fails
+     * @throws IllegalStateException if the peer is HTTP/1.0, which has no chunked coding
+     */
+    public boolean sendChunk(ByteBuffer data) throws IOException {
+        if (!headComplete) {
+            if (http10)
+                throw new IllegalStateException("HTTP/1.0 peers do not support chunked coding");
+            head.put(TRANSFER_ENCODING_CHUNKED);
+            chunked = true;
+            endHead();
+        } else if (!chunked)
+            throw new IllegalStateException("Response is not chunked");
+        if (!data.hasRemaining())
+            return write(null, null, null);
+        chunkHead.clear();
+        int size = data.remaining();
+        for (int shift = (31 - Integer.numberOfLeadingZeros(size)) & ~3; shift >= 0; shift -= 4)
+            chunkHead.put(HEX[(size >>> shift) & 0xf]);
+        chunkHead.put(CRLF).flip();
+        chunkTail.clear();
+        chunkTail.put(CRLF).flip();
+        return write(chunkHead, data, chunkTail);
+    }
+
+    /**
+     * Ends a chunked body with the last chunk.
+     *
+     * @return {@code true} if everything was written, {@code false} if {@link #flush()} must be called
+     * @throws IOException if writing fails
+     */
+    public boolean finishChunked() throws IOException {
+        if (!chunked)
+            throw new IllegalStateException("Response is not chunked");
+        chunkTail.clear();
+        chunkTail.put(LAST_CHUNK).flip();
+        return write(chunkTail, null, null);
+    }
+
+    /**
+     * Continues writing what an earlier call could not.
+     *
+     * @return {@code true} once everything queued has been written
+     * @throws IOException if writing fails
+     */
+    public boolean flush() throws IOException {
+        while (pendingCount > 0) {
+            if (channel.write(pending, pendingOffset, pendingCount) == 0 && pending[pendingOffset].hasRemaining())
+                return false;
+            while (pendingCount > 0 && !pending[pendingOffset].hasRemaining()) {
+                pending[pendingOffset++] = null;
+                pendingCount--;
+            }
+        }
+        pendingOffset = 0;
+        return true;
+    }
+
+    /**
+     * Gives the head buffer back to the pool it came from. The writer must not be used afterwards.
+     */
+    public void release() {
+        if (pool != null)
+            pool.release(head);
+    }
+
+    private boolean write(ByteBuffer first, ByteBuffer second, ByteBuffer third) throws IOException {
+        if (pendingCount != 0)
+            throw new IllegalStateException("Previous write not flushed");
+        pendingOffset = 0;
+        if (headPending) {
+            queue(head);
+            headPending = false;
+        }
+        queue(first);
+        queue(second);
+        queue(third);
+        return flush();
+    }
+
+    private void queue(ByteBuffer buffer) {
+        if (buffer != null && buffer.hasRemaining())
+            pending[pendingCount++] = buffer;
+    }
+
+    private void endHead() {
+        if (headComplete)
+            return;
+        // nothing else delimits the body
+        if (!hasLength && !chunked && !bodyForbidden())
+            keepAlive = false;
+        if (!keepAlive)
+            head.put(CONNECTION_CLOSE);
+        else if (http10)
+            head.put(CONNECTION_KEEP_ALIVE);
+        head.put(CRLF).flip();
+        headComplete = true;
+        headPending = true;
+    }
+
+    private void checkHeadOpen() {
+        if (headComplete)
+            throw new IllegalStateException("Head already sent");
+    }
+
+    private boolean bodyForbidden() {
+        return StatusClass.of(status) == StatusClass.INFORMATIONAL || status == 204 || status == 304;
+    }
+
+    // the text has been checked to hold only ISO-8859-1 characters
+    private void putLatin1(CharSequence text) {
+        for (int i = 0; i < text.length(); i++)
+            head.put((byte) text.charAt(i));
+    }
+
+    private void putDecimal(long value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative length: " + value);
+        int digits = 1;
+        for (long rest = value; rest >= 10; rest /= 10)
+            digits++;
+        if (head.remaining() < digits)
+            throw new BufferOverflowException();
+        int end = head.position() + digits;
+        for (int i = end - 1; i >= end - digits; i--) {
+            head.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        head.position(end);
+    }
+}
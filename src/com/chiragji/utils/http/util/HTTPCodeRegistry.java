@@ -0,0 +1,74 @@
+package com.chiragji.utils.http.util;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.InformationalCode;
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.enums.UnknownCode;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.util.Arrays;
+
+/**
+ * Resolves a numeric status code, as read from the wire, to the matching {@link HTTPCodes} constant.
+ * <p>
+ * All the constants of {@link InformationalCode}, {@link SuccessCodes}, {@link RedirectionCodes}, {@link ClientCodes}
+ * and {@link ServerError} are laid out once in a flat array indexed by {@code code - 100}, so a lookup is a single
+ * bounds check and an array load. Unlike scanning {@code values()} it does not copy any array, and slots that no enum
+ * defines hold {@link UnknownCode#UNKNOWN} rather than {@code null}.
+ *
+ * @author Chirag Gupta
+ */
+public final class HTTPCodeRegistry {
+    /**
+     * Lowest status code covered by the registry.
+     */
+    public static final int MIN_CODE = 100;
+    /**
+     * Highest status code covered by the registry.
+     */
+    public static final int MAX_CODE = 599;
+
+    private static final HTTPCodes[] CODES = new HTTPCodes[MAX_CODE - MIN_CODE + 1];
+
+    static {
+        Arrays.fill(CODES, UnknownCode.UNKNOWN);
+        register(InformationalCode.values());
+        register(SuccessCodes.values());
+        register(RedirectionCodes.values());
+        register(ClientCodes.values());
+        register(ServerError.values());
+    }
+
+    private HTTPCodeRegistry() {
+    }
+
+    private static void register(HTTPCodes[] constants) {
+        for (HTTPCodes constant : constants) {
+            int index = constant.getCode() - MIN_CODE;
+            if (CODES[index] != UnknownCode.UNKNOWN)
+                throw new IllegalStateException("Duplicate status code " + constant.getCode() + ": " + constant);
+            CODES[index] = constant;
+        }
+    }
+
+    /**
+     * Returns the constant registered for the given status code.
+     *
+     * @param code the numeric status code, e.g. {@code 503}
+     * @return the matching constant, or {@link UnknownCode#UNKNOWN} when no enum defines the code
+     */
+    public static HTTPCodes resolve(int code) {
+        int index = code - MIN_CODE;
+        return index >= 0 && index < CODES.length ? CODES[index] : UnknownCode.UNKNOWN;
+    }
+
+    /**
+     * @param code the numeric status code
+     * @return {@code true} if one of the status code enums defines the given code
+     */
+    public static boolean isKnown(int code) {
+        return resolve(code) != UnknownCode.UNKNOWN;
+    }
+}
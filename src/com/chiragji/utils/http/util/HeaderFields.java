@@ -0,0 +1,80 @@
+package com.chiragji.utils.http.util;
+
+/**
+ * Checks the syntax of header field names and values before they are written out, so that no caller-supplied text
+ * can end a header line early and inject fields, or a second message, into the stream.
+ * <p>
+ * Names must be RFC 9110 tokens. Values may hold any ISO-8859-1 character except CR, LF and NUL; characters above
+ * {@code 0xFF} are rejected rather than narrowed to a byte, since narrowing could turn them into a line break.
+ *
+ * @author Chirag Gupta
+ */
+public final class HeaderFields {
+    private static final String DELIMITERS = "\"(),/:;<=>?@[\\]{}";
+
+    private HeaderFields() {
+    }
+
+    /**
+     * @param text the text to check
+     * @return {@code true} if the text is a non-empty token, i.e. visible US-ASCII without delimiters
+     */
+    public static boolean isToken(CharSequence text) {
+        if (text == null || text.length() == 0)
+            return false;
+        for (int i = 0; i < text.length(); i++)
+            if (!isTokenChar(text.charAt(i)))
+                return false;
+        return true;
+    }
+
+    /**
+     * @param bytes the encoded text to check
+     * @return {@code true} if the bytes are a non-empty token, i.e. visible US-ASCII without delimiters
+     */
+    public static boolean isToken(byte[] bytes) {
+        if (bytes == null || bytes.length == 0)
+            return false;
+        for (byte b : bytes)
+            if (!isTokenChar(b))
+                return false;
+        return true;
+    }
+
+    /**
+     * @param text the text to check
+     * @return {@code true} if the text can be sent as a field value in ISO-8859-1
+     */
+    public static boolean isFieldValue(CharSequence text) {
+        if (text == null)
+            return false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\r' || c == '\n' || c == 0 || c > 0xff)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param bytes the encoded text to check
+     * @return {@code true} if the bytes hold no CR, LF or NUL
+     */
+    public static boolean isFieldValue(byte[] bytes) {
+        if (bytes == null)
+            return false;
+        for (byte b : bytes)
+            if (b == '\r' || b == '\n' || b == 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * @param c the character to check; a byte may be passed as is, since a sign-extended byte is never a token
+     *          character
+     * @return {@code true} if the character may appear in a token
+     */
+    public static boolean isTokenChar(int c) {
+        return c > ' ' && c < 0x7f && DELIMITERS.indexOf(c) < 0;
+    }
+}
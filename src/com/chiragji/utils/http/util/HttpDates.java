@@ -0,0 +1,214 @@
+package com.chiragji.utils.http.util;
+
+/**
+ * Parses and formats HTTP-date values, as used by the Date, Expires, Last-Modified, If-Modified-Since and Retry-After
+ * headers, without creating any object.
+ * <p>
+ * Dates are always written in the preferred IMF-fixdate format ({@code Sun, 06 Nov 1994 08:49:37 GMT}), the only one
+ * senders are allowed to generate. Parsing also accepts the two obsolete formats recipients must still handle, as
+ * listed in RFC 9110 section 5.6.7: RFC 850 ({@code Sunday, 06-Nov-94 08:49:37 GMT}) and asctime
+ * ({@code Sun Nov  6 08:49:37 1994}). The format is told apart by the length of the value, and each one is a
+ * fixed-offset read of digits and names. A two-digit RFC 850 year more than 50 years in the future is taken to be in
+ * the past century.
+ *
+ * @author Chirag Gupta
+ */
+public final class HttpDates {
+    /**
+     * Length of an IMF-fixdate value.
+     */
+    public static final int IMF_FIXDATE_LENGTH = 29;
+
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+    private static final String DAYS = "MonTueWedThuFriSatSun";
+    private static final String[] DAY_NAMES = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday",
+            "Sunday"};
+    private static final int ASCTIME_LENGTH = 24;
+    // an RFC 850 date is the full day name followed by a fixed 24 characters
+    private static final int RFC_850_SUFFIX_LENGTH = 24;
+    private static final long MILLIS_PER_YEAR = 31_556_952_000L;
+
+    private HttpDates() {
+    }
+
+    /**
+     * @param value the header value
+     * @return the date in milliseconds since the epoch, or {@code -1} if it is not a valid HTTP-date
+     */
+    public static long parse(CharSequence value) {
+        return parse(value, null, 0, value.length());
+    }
+
+    /**
+     * @param bytes  the array holding the header value
+     * @param offset index of the first byte of the value
+     * @param length length of the value, surrounding whitespace excluded
+     * @return the date in milliseconds since the epoch, or {@code -1} if it is not a valid HTTP-date
+     */
+    public static long parse(byte[] bytes, int offset, int length) {
+        return parse(null, bytes, offset, length);
+    }
+
+    /**
+     * Writes a date as an IMF-fixdate.
+     *
+     * @param epochMillis the date in milliseconds since the epoch; sub-second precision is dropped
+     * @param dst         the array to write into
+     * @param offset      index of the first byte to write; {@link #IMF_FIXDATE_LENGTH} bytes are written
+     */
+    public static void format(long epochMillis, byte[] dst, int offset) {
+        long seconds = Math.floorDiv(epochMillis, 1000);
+        long days = Math.floorDiv(seconds, 86400);
+        int secondOfDay = (int) (seconds - days * 86400);
+        // 1970-01-01 was a Thursday, index 3 in DAYS
+        int dayOfWeek = (int) Math.floorMod(days + 3, 7);
+        long era = Math.floorDiv(days + 719468, 146097);
+        int dayOfEra = (int) (days + 719468 - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        putName(DAYS, dayOfWeek, dst, offset);
+        dst[offset + 3] = ',';
+        dst[offset + 4] = ' ';
+        putDigits(day, 2, dst, offset + 5);
+        dst[offset + 7] = ' ';
+        putName(MONTHS, month - 1, dst, offset + 8);
+        dst[offset + 11] = ' ';
+        putDigits((int) year, 4, dst, offset + 12);
+        dst[offset + 16] = ' ';
+        putDigits(secondOfDay / 3600, 2, dst, offset + 17);
+        dst[offset + 19] = ':';
+        putDigits(secondOfDay / 60 % 60, 2, dst, offset + 20);
+        dst[offset + 22] = ':';
+        putDigits(secondOfDay % 60, 2, dst, offset + 23);
+        dst[offset + 25] = ' ';
+        dst[offset + 26] = 'G';
+        dst[offset + 27] = 'M';
+        dst[offset + 28] = 'T';
+    }
+
+    private static void putName(String names, int index, byte[] dst, int offset) {
+        for (int i = 0; i < 3; i++)
+            dst[offset + i] = (byte) names.charAt(index * 3 + i);
+    }
+
+    private static void putDigits(int value, int count, byte[] dst, int offset) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            dst[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // exactly one of chars and bytes is set
+    private static long parse(CharSequence chars, byte[] bytes, int offset, int length) {
+        if (length == IMF_FIXDATE_LENGTH)
+            return parseImfFixdate(chars, bytes, offset);
+        if (length == ASCTIME_LENGTH)
+            return parseAsctime(chars, bytes, offset);
+        return parseRfc850(chars, bytes, offset, length - RFC_850_SUFFIX_LENGTH);
+    }
+
+    private static long parseImfFixdate(CharSequence chars, byte[] bytes, int offset) {
+        if (nameIndex(DAYS, chars, bytes, offset) < 0 || at(chars, bytes, offset + 3) != ','
+                || at(chars, bytes, offset + 4) != ' ' || at(chars, bytes, offset + 7) != ' '
+                || at(chars, bytes, offset + 11) != ' ' || at(chars, bytes, offset + 16) != ' '
+                || !isGmt(chars, bytes, offset + 25))
+            return -1;
+        return toMillis(digits(chars, bytes, offset + 12, 4), nameIndex(MONTHS, chars, bytes, offset + 8) + 1,
+                digits(chars, bytes, offset + 5, 2), chars, bytes, offset + 17);
+    }
+
+    // Sunday, 06-Nov-94 08:49:37 GMT
+    private static long parseRfc850(CharSequence chars, byte[] bytes, int offset, int nameLength) {
+        if (nameLength < 6 || nameLength > 9)
+            return -1;
+        int day = nameIndex(DAYS, chars, bytes, offset);
+        if (day < 0 || DAY_NAMES[day].length() != nameLength)
+            return -1;
+        for (int i = 3; i < nameLength; i++)
+            if (at(chars, bytes, offset + i) != DAY_NAMES[day].charAt(i))
+                return -1;
+        int start = offset + nameLength;
+        if (at(chars, bytes, start) != ',' || at(chars, bytes, start + 1) != ' ' || at(chars, bytes, start + 4) != '-'
+                || at(chars, bytes, start + 8) != '-' || at(chars, bytes, start + 11) != ' '
+                || !isGmt(chars, bytes, start + 20))
+            return -1;
+        int twoDigitYear = digits(chars, bytes, start + 9, 2);
+        if (twoDigitYear < 0)
+            return -1;
+        long now = System.currentTimeMillis();
+        int year = 2000 + twoDigitYear;
+        // the year of a date more than 50 years ahead of now is the latest past year with the same last two digits
+        if (1970 + (now + 50 * MILLIS_PER_YEAR) / MILLIS_PER_YEAR < year)
+            year -= 100;
+        return toMillis(year, nameIndex(MONTHS, chars, bytes, start + 5) + 1, digits(chars, bytes, start + 2, 2),
+                chars, bytes, start + 12);
+    }
+
+    // Sun Nov  6 08:49:37 1994
+    private static long parseAsctime(CharSequence chars, byte[] bytes, int offset) {
+        if (nameIndex(DAYS, chars, bytes, offset) < 0 || at(chars, bytes, offset + 3) != ' '
+                || at(chars, bytes, offset + 7) != ' ' || at(chars, bytes, offset + 10) != ' '
+                || at(chars, bytes, offset + 19) != ' ')
+            return -1;
+        int day = at(chars, bytes, offset + 8) == ' ' ? digits(chars, bytes, offset + 9, 1)
+                : digits(chars, bytes, offset + 8, 2);
+        return toMillis(digits(chars, bytes, offset + 20, 4), nameIndex(MONTHS, chars, bytes, offset + 4) + 1, day,
+                chars, bytes, offset + 11);
+    }
+
+    private static boolean isGmt(CharSequence chars, byte[] bytes, int offset) {
+        return at(chars, bytes, offset) == ' ' && at(chars, bytes, offset + 1) == 'G'
+                && at(chars, bytes, offset + 2) == 'M' && at(chars, bytes, offset + 3) == 'T';
+    }
+
+    // validates the date and combines it with the HH:MM:SS time of day at the given offset
+    private static long toMillis(int year, int month, int day, CharSequence chars, byte[] bytes, int time) {
+        if (at(chars, bytes, time + 2) != ':' || at(chars, bytes, time + 5) != ':')
+            return -1;
+        int hour = digits(chars, bytes, time, 2);
+        int minute = digits(chars, bytes, time + 3, 2);
+        int second = digits(chars, bytes, time + 6, 2);
+        if (day < 1 || day > 31 || month < 1 || year < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second < 0 || second > 60)
+            return -1;
+        return ((daysFromEpoch(year, month, day) * 24 + hour) * 60 + minute) * 60_000L + second * 1000L;
+    }
+
+    private static int at(CharSequence chars, byte[] bytes, int index) {
+        return chars != null ? chars.charAt(index) : bytes[index];
+    }
+
+    private static int digits(CharSequence chars, byte[] bytes, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = at(chars, bytes, i) - '0';
+            if (digit < 0 || digit > 9)
+                return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // index of the three-letter name at offset within the concatenated names, -1 if absent
+    private static int nameIndex(String names, CharSequence chars, byte[] bytes, int offset) {
+        for (int i = 0; i < names.length(); i += 3)
+            if (names.charAt(i) == at(chars, bytes, offset) && names.charAt(i + 1) == at(chars, bytes, offset + 1)
+                    && names.charAt(i + 2) == at(chars, bytes, offset + 2))
+                return i / 3;
+        return -1;
+    }
+
+    // days between 1970-01-01 and the given civil date, proleptic Gregorian calendar
+    private static long daysFromEpoch(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,47 @@
+package com.chiragji.utils.http.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link NanoClock} that only moves when told to, for driving time-based components deterministically in tests and
+ * simulations.
+ *
+ * @author Chirag Gupta
+ */
+public final class ManualNanoClock implements NanoClock {
+    private final AtomicLong now;
+
+    public ManualNanoClock() {
+        this(0);
+    }
+
+    /**
+     * @param start the initial reading of the clock
+     */
+    public ManualNanoClock(long start) {
+        this.now = new AtomicLong(start);
+    }
+
+    public long nanoTime() {
+        return now.get();
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param duration the amount of time to advance by
+     * @param unit     the unit of {@code duration}
+     * @return the new reading of the clock
+     */
+    public long advance(long duration, TimeUnit unit) {
+        return now.addAndGet(unit.toNanos(duration));
+    }
+
+    /**
+     * @param nanoTime the new reading of the clock
+     */
+    public void set(long nanoTime) {
+        now.set(nanoTime);
+    }
+}
@@ -0,0 +1,20 @@
+package com.chiragji.utils.http.util;
+
+/**
+ * Source of monotonic time, in nanoseconds, for the components that measure windows, timeouts or refill rates.
+ * Taking it as a parameter lets those components run against a virtual clock instead of {@link System#nanoTime()}.
+ *
+ * @author Chirag Gupta
+ */
+@FunctionalInterface
+public interface NanoClock {
+    /**
+     * The clock backed by {@link System#nanoTime()}.
+     */
+    NanoClock SYSTEM = System::nanoTime;
+
+    /**
+     * @return the current value of the clock; only differences between two readings are meaningful
+     */
+    long nanoTime();
+}
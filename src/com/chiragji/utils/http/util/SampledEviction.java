@@ -0,0 +1,80 @@
+package com.chiragji.utils.http.util;
+
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToLongFunction;
+
+/**
+ * Approximate LRU eviction for a bounded {@link ConcurrentHashMap}: the oldest of a small sample of entries is
+ * removed, so no shared recency list has to be maintained on every access.
+ * <p>
+ * The sample is taken from a random region of the table. The map's spliterator is split in halves, keeping a random
+ * half each time, until the region holds about the sample size, which takes a logarithmic number of splits and no
+ * scan. Every entry thus has about the same chance of being a candidate, rather than the first entries in iteration
+ * order being scanned over and over. A region with too few entries is topped up from other random regions, and a sample
+ * still short after that from the start of the map, so a recently used entry is never evicted for lack of others.
+ *
+ * @author Chirag Gupta
+ */
+public final class SampledEviction {
+    private static final int MAX_ATTEMPTS = 8;
+
+    private SampledEviction() {
+    }
+
+    /**
+     * Removes the oldest of a sample of entries.
+     *
+     * @param map        the map to evict from
+     * @param sampleSize the number of entries to compare
+     * @param timestamp  the {@link NanoClock} time of an entry, the oldest being evicted
+     * @param keep       a key never evicted, e.g. the one just inserted, or {@code null}
+     * @param <K>        the type of the keys
+     * @param <V>        the type of the values
+     * @return {@code true} if an entry was removed
+     */
+    public static <K, V> boolean evictOne(ConcurrentHashMap<K, V> map, int sampleSize,
+                                          ToLongFunction<? super V> timestamp, K keep) {
+        Oldest<K> oldest = new Oldest<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && oldest.seen < sampleSize; attempt++) {
+            Spliterator<Map.Entry<K, V>> region = map.entrySet().spliterator();
+            while (region.estimateSize() > sampleSize) {
+                Spliterator<Map.Entry<K, V>> prefix = region.trySplit();
+                if (prefix == null)
+                    break;
+                if (random.nextBoolean())
+                    region = prefix;
+            }
+            while (oldest.seen < sampleSize)
+                if (!region.tryAdvance(entry -> oldest.offer(entry, timestamp, keep)))
+                    break;
+        }
+        // regions drawn from a sparse table can be empty or hold only a busy entry, top up from the start of the map
+        if (oldest.seen < sampleSize)
+            for (Map.Entry<K, V> entry : map.entrySet())
+                if (oldest.offer(entry, timestamp, keep) && oldest.seen >= sampleSize)
+                    break;
+        return oldest.key != null && map.remove(oldest.key) != null;
+    }
+
+    private static final class Oldest<K> {
+        private K key;
+        private long timestamp;
+        private int seen;
+
+        private <V> boolean offer(Map.Entry<K, V> entry, ToLongFunction<? super V> timestamps, K keep) {
+            if (entry.getKey().equals(keep))
+                return false;
+            seen++;
+            long candidate = timestamps.applyAsLong(entry.getValue());
+            if (key == null || candidate - timestamp < 0) {
+                key = entry.getKey();
+                timestamp = candidate;
+            }
+            return true;
+        }
+    }
+}
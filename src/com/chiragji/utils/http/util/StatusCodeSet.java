@@ -0,0 +1,209 @@
+package com.chiragji.utils.http.util;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.InformationalCode;
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of numeric status codes in the 100-599 range, stored as a bitmap in eight {@code long} words.
+ * <p>
+ * Membership checks work on the primitive code, so policies such as "retry on 429, 502, 503 and 504" can be tested
+ * without boxing. Sets are combined with {@link #union(StatusCodeSet)}, {@link #intersect(StatusCodeSet)} and
+ * {@link #minus(StatusCodeSet)}, each of which returns a new set.
+ *
+ * @author Chirag Gupta
+ */
+public final class StatusCodeSet {
+    private static final int WORDS = (HTTPCodeRegistry.MAX_CODE - HTTPCodeRegistry.MIN_CODE + 64) >>> 6;
+
+    /**
+     * The set without any code.
+     */
+    public static final StatusCodeSet EMPTY = new StatusCodeSet(new long[WORDS]);
+    /**
+     * Every code defined by {@link InformationalCode}.
+     */
+    public static final StatusCodeSet INFORMATIONAL = of(InformationalCode.values());
+    /**
+     * Every code defined by {@link SuccessCodes}.
+     */
+    public static final StatusCodeSet SUCCESS = of(SuccessCodes.values());
+    /**
+     * Every code defined by {@link RedirectionCodes}.
+     */
+    public static final StatusCodeSet REDIRECTION = of(RedirectionCodes.values());
+    /**
+     * Every code defined by {@link ClientCodes}.
+     */
+    public static final StatusCodeSet CLIENT_ERROR = of(ClientCodes.values());
+    /**
+     * Every code defined by {@link ServerError}.
+     */
+    public static final StatusCodeSet SERVER_ERROR = of(ServerError.values());
+    /**
+     * Every code whose constant implements {@link com.chiragji.utils.http.interfaces.ErrorCode}.
+     */
+    public static final StatusCodeSet ERROR = CLIENT_ERROR.union(SERVER_ERROR);
+
+    private final long[] words;
+
+    private StatusCodeSet(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * @param codes the numeric status codes
+     * @return a set holding the given codes
+     * @throws IllegalArgumentException if a code is outside the 100-599 range
+     */
+    public static StatusCodeSet of(int... codes) {
+        long[] words = new long[WORDS];
+        for (int code : codes)
+            set(words, code);
+        return new StatusCodeSet(words);
+    }
+
+    /**
+     * @param codes the status code constants
+     * @return a set holding the codes of the given constants
+     * @throws IllegalArgumentException if a constant has no code in the 100-599 range
+     */
+    public static StatusCodeSet of(HTTPCodes... codes) {
+        long[] words = new long[WORDS];
+        for (HTTPCodes code : codes)
+            set(words, code.getCode());
+        return new StatusCodeSet(words);
+    }
+
+    /**
+     * Builds a set over a whole range of codes, whether or not an enum defines them, e.g. {@code range(500, 599)}.
+     *
+     * @param from the first code of the range, inclusive
+     * @param to   the last code of the range, inclusive
+     * @return a set holding every code of the range
+     * @throws IllegalArgumentException if the range is empty or not within 100-599
+     */
+    public static StatusCodeSet range(int from, int to) {
+        if (from > to)
+            throw new IllegalArgumentException("Empty range " + from + "-" + to);
+        long[] words = new long[WORDS];
+        for (int code = from; code <= to; code++)
+            set(words, code);
+        return new StatusCodeSet(words);
+    }
+
+    private static void set(long[] words, int code) {
+        int index = code - HTTPCodeRegistry.MIN_CODE;
+        if (index < 0 || code > HTTPCodeRegistry.MAX_CODE)
+            throw new IllegalArgumentException("Status code out of range: " + code);
+        words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * @param code the numeric status code
+     * @return {@code true} if the code is in this set; codes outside 100-599 are never contained
+     */
+    public boolean contains(int code) {
+        int index = code - HTTPCodeRegistry.MIN_CODE;
+        return index >= 0 && code <= HTTPCodeRegistry.MAX_CODE && (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param code the status code constant
+     * @return {@code true} if the code of the constant is in this set
+     */
+    public boolean contains(HTTPCodes code) {
+        return contains(code.getCode());
+    }
+
+    /**
+     * @param other the set to add
+     * @return a set holding the codes of both sets
+     */
+    public StatusCodeSet union(StatusCodeSet other) {
+        long[] result = new long[WORDS];
+        for (int i = 0; i < WORDS; i++)
+            result[i] = words[i] | other.words[i];
+        return new StatusCodeSet(result);
+    }
+
+    /**
+     * @param other the set to intersect with
+     * @return a set holding the codes present in both sets
+     */
+    public StatusCodeSet intersect(StatusCodeSet other) {
+        long[] result = new long[WORDS];
+        for (int i = 0; i < WORDS; i++)
+            result[i] = words[i] & other.words[i];
+        return new StatusCodeSet(result);
+    }
+
+    /**
+     * @param other the set to remove
+     * @return a set holding the codes of this set that are not in {@code other}
+     */
+    public StatusCodeSet minus(StatusCodeSet other) {
+        long[] result = new long[WORDS];
+        for (int i = 0; i < WORDS; i++)
+            result[i] = words[i] & ~other.words[i];
+        return new StatusCodeSet(result);
+    }
+
+    /**
+     * @return the number of codes in this set
+     */
+    public int size() {
+        int size = 0;
+        for (long word : words)
+            size += Long.bitCount(word);
+        return size;
+    }
+
+    /**
+     * @return {@code true} if this set holds no code
+     */
+    public boolean isEmpty() {
+        for (long word : words)
+            if (word != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Passes every code of this set, in ascending order, to the given action.
+     *
+     * @param action the action to perform on each code
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                action.accept(HTTPCodeRegistry.MIN_CODE + (i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof StatusCodeSet && Arrays.equals(words, ((StatusCodeSet) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        forEach(code -> builder.append(builder.length() == 1 ? "" : ", ").append(code));
+        return builder.append(']').toString();
+    }
+}
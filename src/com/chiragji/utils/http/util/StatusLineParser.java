@@ -0,0 +1,241 @@
+package com.chiragji.utils.http.util;
+
+import com.chiragji.utils.http.enums.UnknownCode;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental parser for a response Status-Line ({@code HTTP/x.y NNN Reason-Phrase CRLF}) read directly from bytes.
+ * <p>
+ * The parser is a small state machine that keeps only primitive fields, so it can be fed the line in as many pieces
+ * as the network delivers and never creates intermediate objects. The reason phrase is skipped, the numeric code is
+ * resolved through {@link HTTPCodeRegistry}. An instance is meant to be reused per connection and is not thread-safe;
+ * call {@link #reset()} before parsing the next response.
+ *
+ * @author Chirag Gupta
+ */
+public final class StatusLineParser {
+    /**
+     * Upper bound on the length of a status line, reason phrase included, before it is rejected as malformed.
+     */
+    public static final int MAX_LINE_LENGTH = 8192;
+
+    private static final int S_H = 0;
+    private static final int S_T1 = 1;
+    private static final int S_T2 = 2;
+    private static final int S_P = 3;
+    private static final int S_SLASH = 4;
+    private static final int S_MAJOR = 5;
+    private static final int S_DOT = 6;
+    private static final int S_MINOR = 7;
+    private static final int S_SP1 = 8;
+    private static final int S_CODE = 9;
+    private static final int S_SP2 = 10;
+    private static final int S_REASON = 11;
+    private static final int S_LF = 12;
+    private static final int S_DONE = 13;
+
+    private int state;
+    private int majorVersion;
+    private int minorVersion;
+    private int code;
+    private int digits;
+    private int length;
+
+    /**
+     * Feeds the remaining bytes of the buffer to the parser. Bytes are consumed up to and including the terminating
+     * line feed; anything after the status line is left in the buffer for the header parser.
+     *
+     * @param buffer the bytes received so far
+     * @return {@code true} once the whole status line has been read
+     * @throws IllegalArgumentException if the bytes do not form a valid status line
+     */
+    public boolean parse(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        while (state != S_DONE && position < limit)
+            next(buffer.get(position++));
+        buffer.position(position);
+        return state == S_DONE;
+    }
+
+    /**
+     * Feeds a slice of a byte array to the parser.
+     *
+     * @param bytes  the array holding the received bytes
+     * @param offset index of the first byte to read
+     * @param length number of bytes available
+     * @return the number of bytes consumed; fewer than {@code length} only when the status line ended inside the
+     * slice, check {@link #isComplete()} to tell whether more input is needed
+     * @throws IllegalArgumentException if the bytes do not form a valid status line
+     */
+    public int parse(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int index = offset;
+        while (state != S_DONE && index < end)
+            next(bytes[index++]);
+        return index - offset;
+    }
+
+    private void next(byte b) {
+        if (++length > MAX_LINE_LENGTH)
+            throw malformed("line exceeds " + MAX_LINE_LENGTH + " bytes");
+        switch (state) {
+            case S_H:
+                expect(b, 'H', S_T1);
+                break;
+            case S_T1:
+                expect(b, 'T', S_T2);
+                break;
+            case S_T2:
+                expect(b, 'T', S_P);
+                break;
+            case S_P:
+                expect(b, 'P', S_SLASH);
+                break;
+            case S_SLASH:
+                expect(b, '/', S_MAJOR);
+                break;
+            case S_MAJOR:
+                majorVersion = digit(b);
+                state = S_DOT;
+                break;
+            case S_DOT:
+                expect(b, '.', S_MINOR);
+                break;
+            case S_MINOR:
+                minorVersion = digit(b);
+                state = S_SP1;
+                break;
+            case S_SP1:
+                expect(b, ' ', S_CODE);
+                break;
+            case S_CODE:
+                code = code * 10 + digit(b);
+                if (++digits == 3)
+                    state = S_SP2;
+                break;
+            case S_SP2:
+                if (b == ' ')
+                    state = S_REASON;
+                else if (b == '\r')
+                    state = S_LF;
+                else if (b == '\n')
+                    state = S_DONE;
+                else
+                    throw malformed("expected space after status code");
+                break;
+            case S_REASON:
+                if (b == '\r')
+                    state = S_LF;
+                else if (b == '\n')
+                    state = S_DONE;
+                break;
+            case S_LF:
+                expect(b, '\n', S_DONE);
+                break;
+            default:
+                throw new IllegalStateException("Status line already parsed, reset the parser first");
+        }
+    }
+
+    private void expect(byte actual, char expected, int nextState) {
+        if (actual != expected)
+            throw malformed("expected '" + expected + "'");
+        state = nextState;
+    }
+
+    private int digit(byte b) {
+        int value = b - '0';
+        if (value < 0 || value > 9)
+            throw malformed("expected a digit");
+        return value;
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Malformed status line at byte " + length + ": " + reason);
+    }
+
+    /**
+     * @return {@code true} once the terminating line feed has been read
+     */
+    public boolean isComplete() {
+        return state == S_DONE;
+    }
+
+    /**
+     * @return the numeric status code; only meaningful once {@link #isComplete()} is {@code true}
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return the matching constant, or {@link UnknownCode#UNKNOWN} for codes no enum defines (the number is still
+     * available from {@link #getCode()})
+     */
+    public HTTPCodes getStatus() {
+        return state == S_DONE ? HTTPCodeRegistry.resolve(code) : UnknownCode.UNKNOWN;
+    }
+
+    /**
+     * @return the major protocol version, e.g. {@code 1} for HTTP/1.1
+     */
+    public int getMajorVersion() {
+        return majorVersion;
+    }
+
+    /**
+     * @return the minor protocol version, e.g. {@code 0} for HTTP/1.0
+     */
+    public int getMinorVersion() {
+        return minorVersion;
+    }
+
+    /**
+     * Clears the parsed state so the instance can read the next status line.
+     */
+    public void reset() {
+        state = S_H;
+        majorVersion = 0;
+        minorVersion = 0;
+        code = 0;
+        digits = 0;
+        length = 0;
+    }
+
+    /**
+     * Parses a complete status line held in a single array slice, without keeping any state.
+     *
+     * @param bytes  the array holding the status line
+     * @param offset index of the first byte of the line
+     * @param length number of bytes available
+     * @return the numeric status code, or {@code -1} if the slice does not start with a valid, complete status line
+     */
+    public static int parseCode(byte[] bytes, int offset, int length) {
+        // "HTTP/x.y NNN" is 12 bytes, the code sits at offsets 9-11
+        if (length < 13 || bytes[offset] != 'H' || bytes[offset + 1] != 'T' || bytes[offset + 2] != 'T'
+                || bytes[offset + 3] != 'P' || bytes[offset + 4] != '/' || !isDigit(bytes[offset + 5])
+                || bytes[offset + 6] != '.' || !isDigit(bytes[offset + 7]) || bytes[offset + 8] != ' ')
+            return -1;
+        int code = 0;
+        for (int i = offset + 9; i < offset + 12; i++) {
+            if (!isDigit(bytes[i]))
+                return -1;
+            code = code * 10 + bytes[i] - '0';
+        }
+        byte next = bytes[offset + 12];
+        if (next != ' ' && next != '\r' && next != '\n')
+            return -1;
+        int end = offset + Math.min(length, MAX_LINE_LENGTH);
+        for (int i = offset + 12; i < end; i++)
+            if (bytes[i] == '\n')
+                return code;
+        return -1;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,54 @@
+package com.chiragji.utils.http.util;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds and copies the encoded HTTP/1.1 Status-Line ({@code HTTP-Version SP Status-Code SP Reason-Phrase CRLF})
+ * cached by each status code constant.
+ *
+ * @author Chirag Gupta
+ * @see com.chiragji.utils.http.interfaces.HTTPCodes#getStatusLine()
+ */
+public final class StatusLines {
+    /**
+     * The protocol version written at the start of every cached status line.
+     */
+    public static final String HTTP_VERSION = "HTTP/1.1";
+
+    private StatusLines() {
+    }
+
+    /**
+     * Encodes a status line once, for caching by a status code constant.
+     *
+     * @param code         the three digit status code
+     * @param reasonPhrase the canonical reason phrase
+     * @return a read-only direct buffer holding the encoded line, positioned at zero
+     */
+    public static ByteBuffer encode(int code, String reasonPhrase) {
+        if (code < 100 || code > 999)
+            throw new IllegalArgumentException("Status code must have three digits: " + code);
+        byte[] bytes = (HTTP_VERSION + ' ' + code + ' ' + reasonPhrase + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies a cached status line into the destination buffer using absolute reads, so neither the cached buffer's
+     * position nor the heap is touched.
+     *
+     * @param statusLine the cached status line
+     * @param dst        the buffer to write into; its position is advanced by the length of the line
+     * @throws BufferOverflowException if {@code dst} does not have enough space remaining
+     */
+    public static void copy(ByteBuffer statusLine, ByteBuffer dst) {
+        int length = statusLine.limit();
+        if (dst.remaining() < length)
+            throw new BufferOverflowException();
+        for (int i = 0; i < length; i++)
+            dst.put(statusLine.get(i));
+    }
+}
@@ -0,0 +1,73 @@
+package com.chiragji.utils.http.util;
+
+import com.chiragji.utils.http.enums.UnknownCode;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+/**
+ * Stable one-byte numbering of the status codes defined by the five status code enums, for compact binary formats.
+ * <p>
+ * Ordinals are assigned by a fixed table rather than by the enums' {@code ordinal()}, so data written today still
+ * decodes after constants are added, removed or reordered. Codes are only ever appended to the table; ordinal
+ * {@code 0} is reserved for codes without an ordinal, which a format has to store some other way.
+ *
+ * @author Chirag Gupta
+ */
+public final class StatusOrdinals {
+    /**
+     * The ordinal of codes that have none.
+     */
+    public static final int NONE = 0;
+
+    // never reorder or remove entries, append new codes at the end
+    private static final short[] CODES = {
+            100, 101, 102,
+            200, 201, 202, 203, 204, 205, 206, 207, 208, 226,
+            300, 301, 302, 303, 304, 305, 306, 307, 308,
+            400, 401, 402, 403, 404, 405, 406, 407, 408, 409, 410, 411, 412, 413, 414, 415, 416, 417, 418, 420, 422,
+            423, 424, 425, 426, 428, 429, 431, 444, 449, 450, 451, 499,
+            500, 501, 502, 503, 504, 505, 506, 507, 508, 509, 510, 511, 598, 599
+    };
+    private static final byte[] ORDINALS = new byte[HTTPCodeRegistry.MAX_CODE - HTTPCodeRegistry.MIN_CODE + 1];
+    private static final HTTPCodes[] CONSTANTS = new HTTPCodes[256];
+
+    static {
+        if (CODES.length > 255)
+            throw new IllegalStateException("Status ordinals exceed one byte");
+        CONSTANTS[NONE] = UnknownCode.UNKNOWN;
+        for (int i = 0; i < CODES.length; i++) {
+            int ordinal = i + 1;
+            ORDINALS[CODES[i] - HTTPCodeRegistry.MIN_CODE] = (byte) ordinal;
+            CONSTANTS[ordinal] = HTTPCodeRegistry.resolve(CODES[i]);
+        }
+        for (int i = CODES.length + 1; i < CONSTANTS.length; i++)
+            CONSTANTS[i] = UnknownCode.UNKNOWN;
+    }
+
+    private StatusOrdinals() {
+    }
+
+    /**
+     * @param code the numeric status code
+     * @return the ordinal, from 1 to 255, or {@link #NONE} if the code has none
+     */
+    public static int toOrdinal(int code) {
+        int index = code - HTTPCodeRegistry.MIN_CODE;
+        return index >= 0 && index < ORDINALS.length ? ORDINALS[index] & 0xff : NONE;
+    }
+
+    /**
+     * @param code the status code constant
+     * @return the ordinal, from 1 to 255, or {@link #NONE} if the code has none
+     */
+    public static int toOrdinal(HTTPCodes code) {
+        return toOrdinal(code.getCode());
+    }
+
+    /**
+     * @param ordinal an ordinal read back, from 0 to 255
+     * @return the constant, or {@link UnknownCode#UNKNOWN} for {@link #NONE} or an ordinal not assigned
+     */
+    public static HTTPCodes fromOrdinal(int ordinal) {
+        return CONSTANTS[ordinal & 0xff];
+    }
+}
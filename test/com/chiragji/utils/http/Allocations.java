@@ -0,0 +1,46 @@
+package com.chiragji.utils.http;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the heap allocated by the current thread, for tests that check a hot path allocates nothing.
+ *
+ * @author Chirag Gupta
+ */
+public final class Allocations {
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private Allocations() {
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported())
+            return null;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    /**
+     * @return {@code true} if the JVM can report the bytes allocated by a thread
+     */
+    public static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * @param action the code to measure
+     * @return the bytes the current thread allocated while running the action, or {@code -1} if the JVM cannot tell
+     */
+    public static long measure(Runnable action) {
+        if (THREADS == null) {
+            action.run();
+            return -1;
+        }
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        action.run();
+        return THREADS.getCurrentThreadAllocatedBytes() - before;
+    }
+}
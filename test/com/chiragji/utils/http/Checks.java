@@ -0,0 +1,21 @@
+package com.chiragji.utils.http;
+
+/**
+ * Assertions shared by the main-based tests, which run without a test framework.
+ *
+ * @author Chirag Gupta
+ */
+public final class Checks {
+    private Checks() {
+    }
+
+    /**
+     * @param condition the condition that must hold
+     * @param message   the failure message
+     * @throws AssertionError if the condition does not hold
+     */
+    public static void check(boolean condition, String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}
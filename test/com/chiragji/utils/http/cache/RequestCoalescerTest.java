@@ -0,0 +1,150 @@
+package com.chiragji.utils.http.cache;
+
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.ManualNanoClock;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Checks that concurrent identical calls collapse into one upstream call whatever its outcome, and that no entry is
+ * left behind afterwards. Throws {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class RequestCoalescerTest {
+    private static final int CALLERS = 64;
+    private static final String KEY = "GET http://example.com/";
+
+    private RequestCoalescerTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            concurrentCallsShareOneUpstreamCall(executor);
+            serverErrorIsSharedButNotKept(executor);
+            failureIsSharedButNotKept(executor);
+            hungLeaderTimesOutAndIsReplaced(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.println("RequestCoalescerTest passed");
+    }
+
+    private static SharedResponse response(HTTPCodes status) {
+        return new SharedResponse(status, new HashMap<>(), ByteBuffer.wrap(new byte[]{1, 2, 3}));
+    }
+
+    // the leader holds its upstream call until every other caller waits for it
+    private static RequestCoalescer.Upstream waitingForFollowers(RequestCoalescer coalescer,
+                                                                 RequestCoalescer.Upstream then) {
+        return () -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coalescer.getCoalesced() < CALLERS - 1) {
+                check(System.nanoTime() < deadline, "callers did not join the running call");
+                Thread.yield();
+            }
+            return then.call();
+        };
+    }
+
+    private static List<Future<SharedResponse>> callAll(ExecutorService executor, RequestCoalescer coalescer,
+                                                        RequestCoalescer.Upstream upstream) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SharedResponse>> results = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++)
+            results.add(executor.submit(() -> {
+                start.await();
+                return coalescer.execute(KEY, upstream);
+            }));
+        start.countDown();
+        return results;
+    }
+
+    private static void concurrentCallsShareOneUpstreamCall(ExecutorService executor) throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(5, TimeUnit.SECONDS);
+        SharedResponse response = response(SuccessCodes.OK);
+        for (Future<SharedResponse> result : callAll(executor, coalescer, waitingForFollowers(coalescer,
+                () -> response)))
+            check(result.get() == response, "every caller should get the leader's response");
+        check(coalescer.getUpstreamCalls() == 1, "identical calls should collapse into one upstream call, made "
+                + coalescer.getUpstreamCalls());
+        check(coalescer.getCoalesced() == CALLERS - 1, "all other callers should be coalesced");
+        check(coalescer.getInFlight() == 0, "finished call must not stay in flight");
+    }
+
+    private static void serverErrorIsSharedButNotKept(ExecutorService executor) throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(5, TimeUnit.SECONDS);
+        for (Future<SharedResponse> result : callAll(executor, coalescer, waitingForFollowers(coalescer,
+                () -> response(ServerError.SERVICE_UNAVAILABLE))))
+            check(result.get().getStatus() == ServerError.SERVICE_UNAVAILABLE, "waiters should get the 503");
+        check(coalescer.getUpstreamCalls() == 1, "the 503 should come from a single upstream call");
+        check(coalescer.getInFlight() == 0, "503 must not stay in flight");
+        SharedResponse next = coalescer.execute(KEY, () -> response(SuccessCodes.OK));
+        check(next.getStatus() == SuccessCodes.OK && coalescer.getUpstreamCalls() == 2,
+                "a later caller must make its own upstream call");
+    }
+
+    private static void failureIsSharedButNotKept(ExecutorService executor) throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(5, TimeUnit.SECONDS);
+        IOException failure = new IOException("connection reset");
+        for (Future<SharedResponse> result : callAll(executor, coalescer, waitingForFollowers(coalescer, () -> {
+            throw failure;
+        }))) {
+            try {
+                result.get();
+                throw new AssertionError("every caller should see the failure");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                check(cause == failure || cause.getCause() == failure, "the leader's failure should be passed on");
+            }
+        }
+        check(coalescer.getUpstreamCalls() == 1, "the failure should come from a single upstream call");
+        check(coalescer.getInFlight() == 0, "failed call must not stay in flight");
+    }
+
+    private static void hungLeaderTimesOutAndIsReplaced(ExecutorService executor) throws Exception {
+        ManualNanoClock clock = new ManualNanoClock();
+        RequestCoalescer coalescer = new RequestCoalescer(100, TimeUnit.MILLISECONDS, clock);
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        Future<SharedResponse> hung = executor.submit(() -> coalescer.execute(KEY, () -> {
+            called.countDown();
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return response(SuccessCodes.OK);
+        }));
+        check(called.await(5, TimeUnit.SECONDS), "leader should have started");
+        try {
+            coalescer.execute(KEY, () -> response(SuccessCodes.OK));
+            throw new AssertionError("waiting for a hung leader should time out");
+        } catch (IOException expected) {
+            check(coalescer.getUpstreamCalls() == 1, "a timed out waiter must not call upstream");
+        }
+        clock.advance(100, TimeUnit.MILLISECONDS);
+        SharedResponse replacement = coalescer.execute(KEY, () -> response(SuccessCodes.OK));
+        check(replacement.getStatus() == SuccessCodes.OK && coalescer.getUpstreamCalls() == 2,
+                "a caller after the timeout should replace the hung call");
+        unblock.countDown();
+        hung.get(5, TimeUnit.SECONDS);
+        check(coalescer.getInFlight() == 0, "timed out call must not stay in flight");
+    }
+}
@@ -0,0 +1,217 @@
+package com.chiragji.utils.http.client;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.server.ResponseWriter;
+import com.chiragji.utils.http.util.NanoClock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Sends {@value #TASKS} requests, each from its own task, through one client to a local stand-in server. Checks that
+ * every response resolves to the expected constant with the expected body, that the server never gets more
+ * connections than the pool allows and that the heap is back where it was afterwards, then reports the requests per
+ * second and the latency percentiles. The tasks run on virtual threads where the JVM has them, all in flight at once,
+ * and otherwise queue for a bounded pool of platform threads. Throws {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class HttpClientTest {
+    private static final int TASKS = 100_000;
+    private static final int MAX_CONNECTIONS = 64;
+    private static final int PLATFORM_THREADS = 256;
+    private static final int MAX_BODY = 2048;
+    // every thousandth response is a 502, after which the pool closes the connection
+    private static final int DROP_EVERY = 1000;
+    private static final HTTPCodes[] STATUSES = {SuccessCodes.OK, SuccessCodes.CREATED, ClientCodes.NOT_FOUND,
+            ServerError.INTERNAL_ERROR};
+    private static final long MAX_RETAINED_BYTES = 16 << 20;
+
+    private HttpClientTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (StandInServer server = new StandInServer()) {
+            loadTest(server);
+        }
+        System.out.println("HttpClientTest passed");
+    }
+
+    private static HTTPCodes status(int request) {
+        return request % DROP_EVERY == 0 ? ServerError.BAD_GATEWAY : STATUSES[request % STATUSES.length];
+    }
+
+    private static ExecutorService executor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // no virtual threads before Java 21, so the tasks wait in the queue of a bounded pool
+            return Executors.newFixedThreadPool(PLATFORM_THREADS);
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void loadTest(StandInServer server) throws Exception {
+        ConnectionPool pool = new ConnectionPool(MAX_CONNECTIONS, MAX_CONNECTIONS, 60, 60, TimeUnit.SECONDS,
+                ConnectionPool.DEFAULT_DROP_CODES, NanoClock.SYSTEM);
+        HttpClient client = new HttpClient(10_000, 30_000, MAX_BODY, pool);
+        String base = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ':' + server.port() + '/';
+        long[] latencies = new long[TASKS];
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(TASKS);
+        long before = usedHeap();
+        ExecutorService executor = executor();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < TASKS; i++) {
+                int request = i;
+                executor.execute(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        long sent = System.nanoTime();
+                        HttpResponse response = client.get(URI.create(base + request));
+                        latencies[request] = System.nanoTime() - sent;
+                        byte[] body = response.getBody();
+                        check(response.getStatus() == status(request), "request " + request + " resolved to "
+                                + response.getStatus());
+                        check(body.length == request % MAX_BODY && (body.length == 0
+                                || body[body.length - 1] == (byte) request), "request " + request + ": wrong body");
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.decrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+            check(done.await(5, TimeUnit.MINUTES), done.getCount() + " requests did not finish");
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (failure.get() != null)
+            throw new AssertionError("a request failed", failure.get());
+        // the idle connections stay in the pool, the rest of what the requests used must be garbage by now
+        long retained = usedHeap() - before;
+        client.close();
+        Arrays.sort(latencies);
+        System.out.printf("%d requests, at most %d in flight: %.0f requests/s, p50 %d us, p99 %d us, "
+                        + "%d connections opened, %d KiB retained%n", TASKS, maxInFlight.get(), TASKS * 1e9 / elapsed,
+                TimeUnit.NANOSECONDS.toMicros(latencies[TASKS / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[TASKS * 99 / 100]), server.accepted.get(), retained >> 10);
+        check(server.accepted.get() <= MAX_CONNECTIONS + TASKS / DROP_EVERY, "the server got "
+                + server.accepted.get() + " connections, the pool allows " + MAX_CONNECTIONS + " at a time");
+        check(retained < MAX_RETAINED_BYTES, retained + " bytes of heap were retained after the requests");
+    }
+
+    /**
+     * Answers {@code GET /<n>} with the status for {@code n} and {@code n % MAX_BODY} bytes of {@code (byte) n}, with a
+     * Content-Length for even {@code n} and chunked for odd, on one platform thread per connection.
+     */
+    private static final class StandInServer implements Closeable {
+        private final ServerSocketChannel channel = ServerSocketChannel.open();
+        private final ExecutorService threads = Executors.newCachedThreadPool();
+        private final AtomicInteger accepted = new AtomicInteger();
+
+        private StandInServer() throws IOException {
+            channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2 * MAX_CONNECTIONS);
+            threads.execute(this::accept);
+        }
+
+        private int port() throws IOException {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        }
+
+        private void accept() {
+            try {
+                while (true) {
+                    SocketChannel connection = channel.accept();
+                    accepted.incrementAndGet();
+                    threads.execute(() -> serve(connection));
+                }
+            } catch (IOException e) {
+                // the server was closed
+            }
+        }
+
+        private static void serve(SocketChannel connection) {
+            try (SocketChannel open = connection) {
+                open.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                ResponseWriter writer = new ResponseWriter(open);
+                ByteBuffer input = ByteBuffer.allocate(8192);
+                byte[] body = new byte[MAX_BODY];
+                int request;
+                while ((request = readRequest(open, input)) >= 0) {
+                    int length = request % MAX_BODY;
+                    Arrays.fill(body, 0, length, (byte) request);
+                    writer.start(status(request));
+                    if ((request & 1) == 0)
+                        writer.send(ByteBuffer.wrap(body, 0, length));
+                    else {
+                        writer.sendChunk(ByteBuffer.wrap(body, 0, length));
+                        writer.finishChunked();
+                    }
+                }
+            } catch (IOException e) {
+                // the client or the end of the test closed the connection
+            }
+        }
+
+        // returns the number in the target of the next request, or -1 once the client has closed the connection
+        private static int readRequest(SocketChannel connection, ByteBuffer input) throws IOException {
+            while (true) {
+                int end = headEnd(input);
+                if (end >= 0) {
+                    int request = 0;
+                    for (int i = "GET /".length(); input.get(i) != ' '; i++)
+                        request = request * 10 + input.get(i) - '0';
+                    input.flip().position(end);
+                    input.compact();
+                    return request;
+                }
+                if (connection.read(input) < 0)
+                    return -1;
+            }
+        }
+
+        private static int headEnd(ByteBuffer input) {
+            for (int i = 3; i < input.position(); i++)
+                if (input.get(i - 3) == '\r' && input.get(i - 2) == '\n' && input.get(i - 1) == '\r'
+                        && input.get(i) == '\n')
+                    return i + 1;
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.chiragji.utils.http.io;
+
+import com.chiragji.utils.http.Allocations;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Checks the pool's bookkeeping, then compares the time and heap allocation of acquiring and releasing pooled buffers
+ * with plain {@link ByteBuffer#allocateDirect(int)}. Throws {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class BufferPoolTest {
+    private static final int[] SIZES = {4096, 65536};
+    private static final int POOLED_ROUNDS = 200_000;
+    private static final int DIRECT_ROUNDS = 20_000;
+
+    private BufferPoolTest() {
+    }
+
+    public static void main(String[] args) {
+        reusesReleasedBuffers();
+        rejectsForeignAndDoubleReleases();
+        enforcesTheCap();
+        tracksLeaksInDebugMode();
+        for (int size : SIZES)
+            poolBeatsAllocateDirect(size);
+        System.out.println("BufferPoolTest passed");
+    }
+
+    private static void reusesReleasedBuffers() {
+        BufferPool pool = new BufferPool();
+        ByteBuffer first = pool.acquire(1000);
+        check(first.isDirect() && first.capacity() == 1024 && first.limit() == 1000 && first.position() == 0,
+                "a request should be rounded up to its size class");
+        check(pool.getOutstanding() == 1 && pool.getReservedBytes() == 1024, "the buffer should be accounted for");
+        first.put((byte) 1);
+        pool.release(first);
+        ByteBuffer second = pool.acquire(600);
+        check(second == first && second.position() == 0 && second.limit() == 600,
+                "a released buffer of the same class should be handed out again, cleared");
+        check(pool.getHits() == 1 && pool.getMisses() == 1 && pool.getHitRate() == 0.5, "hit rate should be 0.5");
+        pool.release(second);
+        ByteBuffer huge = pool.acquire((1 << 20) + 1);
+        pool.release(huge);
+        check(pool.getReservedBytes() == 1024 && pool.getOutstanding() == 0,
+                "a buffer bigger than every class should be dropped on release");
+    }
+
+    private static void rejectsForeignAndDoubleReleases() {
+        BufferPool pool = new BufferPool();
+        ByteBuffer buffer = pool.acquire(256);
+        pool.release(buffer);
+        try {
+            pool.release(buffer);
+            throw new AssertionError("a second release should be rejected");
+        } catch (IllegalStateException expected) {
+            check(pool.getOutstanding() == 0, "a rejected release must not change the count");
+        }
+        try {
+            pool.release(ByteBuffer.allocateDirect(256));
+            throw new AssertionError("a buffer from elsewhere should be rejected");
+        } catch (IllegalStateException expected) {
+            check(pool.acquire(256) == buffer, "the foreign buffer must not have been cached");
+        }
+    }
+
+    private static void enforcesTheCap() {
+        BufferPool pool = new BufferPool(1 << 20, 0, 4, 8192, false);
+        ByteBuffer first = pool.acquire(4096);
+        ByteBuffer second = pool.acquire(4096);
+        try {
+            pool.acquire(1);
+            throw new AssertionError("allocating past the cap should fail");
+        } catch (IllegalStateException expected) {
+            check(pool.getReservedBytes() == 8192, "a failed acquire must not reserve memory");
+        }
+        pool.release(first);
+        check(pool.acquire(4096) == first, "a cached buffer may be reused at the cap");
+        pool.release(first);
+        pool.release(second);
+    }
+
+    private static void tracksLeaksInDebugMode() {
+        BufferPool pool = new BufferPool(1 << 20, 2, 4, 1 << 20, true);
+        ByteBuffer kept = pool.acquire(512);
+        pool.release(pool.acquire(512));
+        check(pool.leaks().size() == 1, "the unreleased buffer should be listed, found " + pool.leaks().size());
+        pool.release(kept);
+        check(pool.leaks().isEmpty(), "no buffer should be listed once all are released");
+        try {
+            new BufferPool().leaks();
+            throw new AssertionError("leaks need debug mode");
+        } catch (IllegalStateException expected) {
+            // leak tracking is off by default
+        }
+    }
+
+    /**
+     * Runs {@code rounds} acquire and release pairs, writing one byte to each buffer so it is really used, and returns
+     * the best time and the heap allocation per pair out of three runs.
+     */
+    private static long[] measure(int rounds, IntFunction<ByteBuffer> acquire, Consumer<ByteBuffer> release,
+                                  int size) {
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int run = 0; run < 4; run++) {
+            long[] nanos = new long[1];
+            long bytes = Allocations.measure(() -> {
+                long start = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    ByteBuffer buffer = acquire.apply(size);
+                    buffer.put(i % size, (byte) i);
+                    release.accept(buffer);
+                }
+                nanos[0] = System.nanoTime() - start;
+            });
+            // the first run warms up and is not counted
+            if (run == 0)
+                continue;
+            bestNanos = Math.min(bestNanos, nanos[0] / rounds);
+            bestBytes = Math.min(bestBytes, bytes / rounds);
+        }
+        return new long[]{bestNanos, bestBytes};
+    }
+
+    private static void poolBeatsAllocateDirect(int size) {
+        long[] direct = measure(DIRECT_ROUNDS, ByteBuffer::allocateDirect, buffer -> {
+        }, size);
+        BufferPool sharedPool = new BufferPool();
+        long[] shared = measure(POOLED_ROUNDS, sharedPool::acquire, sharedPool::release, size);
+        BufferPool cachingPool = new BufferPool(1 << 20, 4, 256, 256L << 20, false);
+        long[] cached = measure(POOLED_ROUNDS, cachingPool::acquire, cachingPool::release, size);
+        System.out.printf("%d byte buffers: allocateDirect %d ns %d B, shared pool %d ns %d B, "
+                        + "thread cache %d ns %d B per pair%n", size, direct[0], direct[1], shared[0], shared[1],
+                cached[0], cached[1]);
+        check(shared[0] < direct[0] && cached[0] < direct[0], "pooled buffers should be faster than allocateDirect");
+        check(cachingPool.getOutstanding() == 0 && cachingPool.getHitRate() > 0.99, "the pool should reuse buffers");
+        if (!Allocations.isSupported())
+            return;
+        check(cached[1] == 0, "the thread-cached pool should not allocate on the heap, took " + cached[1]
+                + " bytes per pair");
+        check(direct[1] > shared[1], "allocateDirect should allocate more heap than the shared pool");
+    }
+}
@@ -0,0 +1,163 @@
+package com.chiragji.utils.http.log;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.InformationalCode;
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.enums.UnknownCode;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Writes records for every status constant and for an undefined code, reads them back, and compares the size and
+ * write time of the binary records with the equivalent text lines. Throws {@link AssertionError} on the first failed
+ * check.
+ *
+ * @author Chirag Gupta
+ */
+public final class AccessLogTest {
+    private static final long START_MILLIS = 1_700_000_000_000L;
+    private static final int UNDEFINED_CODE = 299;
+    private static final int BENCHMARK_RECORDS = 200_000;
+
+    private AccessLogTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("access-log-test");
+        try {
+            everyStatusRoundTrips(directory.resolve("round-trip"));
+            binaryIsSmallerAndFasterThanText(directory.resolve("benchmark"));
+        } finally {
+            deleteRecursively(directory);
+        }
+        System.out.println("AccessLogTest passed");
+    }
+
+    private static List<HTTPCodes> allStatuses() {
+        List<HTTPCodes> statuses = new ArrayList<>();
+        statuses.addAll(Arrays.asList(InformationalCode.values()));
+        statuses.addAll(Arrays.asList(SuccessCodes.values()));
+        statuses.addAll(Arrays.asList(RedirectionCodes.values()));
+        statuses.addAll(Arrays.asList(ClientCodes.values()));
+        statuses.addAll(Arrays.asList(ServerError.values()));
+        return statuses;
+    }
+
+    private static void everyStatusRoundTrips(Path directory) throws IOException {
+        List<HTTPCodes> statuses = allStatuses();
+        try (AccessLogWriter writer = new AccessLogWriter(directory)) {
+            for (int i = 0; i < statuses.size(); i++)
+                writer.append(START_MILLIS + i, statuses.get(i), TimeUnit.MICROSECONDS.toNanos(i * 1000L + 7), i,
+                        i * 100_000L);
+            writer.append(START_MILLIS - 1, UNDEFINED_CODE, 0, 0, 0);
+        }
+        List<Path> segments = AccessLogWriter.segments(directory);
+        check(segments.size() == 1, "records should fit in one segment");
+        try (AccessLogReader reader = AccessLogReader.open(segments.get(0))) {
+            for (int i = 0; i < statuses.size(); i++) {
+                HTTPCodes status = statuses.get(i);
+                check(reader.next(), "record of " + status + " missing");
+                check(reader.getStatus() == status, "expected " + status + ", read " + reader.getStatus());
+                check(reader.getCode() == status.getCode(), "code of " + status + " changed");
+                check(reader.getTimestamp() == START_MILLIS + i, "timestamp of " + status + " changed");
+                check(reader.getLatencyMicros() == i * 1000L + 7, "latency of " + status + " changed");
+                check(reader.getBytesReceived() == i, "bytes received of " + status + " changed");
+                check(reader.getBytesSent() == i * 100_000L, "bytes sent of " + status + " changed");
+            }
+            check(reader.next(), "record of the undefined code missing");
+            check(reader.getCode() == UNDEFINED_CODE, "undefined code should be kept, read " + reader.getCode());
+            check(reader.getStatus() == UnknownCode.UNKNOWN, "undefined code should resolve to UNKNOWN");
+            check(reader.getTimestamp() == START_MILLIS - 1, "negative timestamp offset should round-trip");
+            check(!reader.next(), "no record should follow");
+        }
+    }
+
+    private static String textLine(long epochMillis, HTTPCodes status, long latencyMicros, long received, long sent) {
+        return epochMillis + " " + status.getCode() + ' ' + status.getReasonPhrase() + ' ' + latencyMicros + ' '
+                + received + ' ' + sent + '\n';
+    }
+
+    private static void binaryIsSmallerAndFasterThanText(Path directory) throws IOException {
+        List<HTTPCodes> statuses = allStatuses();
+        byte[] record = new byte[AccessLogWriter.MAX_RECORD_SIZE];
+        long binaryBytes = 0;
+        long textBytes = 0;
+        for (int i = 0; i < BENCHMARK_RECORDS; i++) {
+            HTTPCodes status = statuses.get(i % statuses.size());
+            long latencyMicros = 200 + i % 50_000;
+            long sent = 512 + i % 65_536;
+            binaryBytes += 1 + AccessLogWriter.encode(record, i, status.getCode(),
+                    TimeUnit.MICROSECONDS.toNanos(latencyMicros), 300, sent);
+            textBytes += textLine(START_MILLIS + i, status, latencyMicros, 300, sent).length();
+        }
+        check(binaryBytes * 3 < textBytes, "binary records should take under a third of the text, took "
+                + binaryBytes + " against " + textBytes + " bytes");
+
+        // the best of three runs each, so the first, which also warms both paths up, does not decide
+        long binaryNanos = Long.MAX_VALUE;
+        long textNanos = Long.MAX_VALUE;
+        for (int pass = 0; pass < 3; pass++) {
+            binaryNanos = Math.min(binaryNanos, writeBinary(directory.resolve("binary-" + pass), statuses));
+            textNanos = Math.min(textNanos, writeText(directory.resolve("text-" + pass), statuses));
+        }
+        System.out.printf("%d records: binary %d bytes in %d ms, text %d bytes in %d ms%n", BENCHMARK_RECORDS,
+                binaryBytes, TimeUnit.NANOSECONDS.toMillis(binaryNanos), textBytes,
+                TimeUnit.NANOSECONDS.toMillis(textNanos));
+        check(binaryNanos < textNanos, "binary records should be faster to write than text, took "
+                + binaryNanos + " against " + textNanos + " ns");
+    }
+
+    private static long writeBinary(Path directory, List<HTTPCodes> statuses) throws IOException {
+        long start = System.nanoTime();
+        try (AccessLogWriter writer = new AccessLogWriter(directory)) {
+            for (int i = 0; i < BENCHMARK_RECORDS; i++)
+                writer.append(START_MILLIS + i, statuses.get(i % statuses.size()),
+                        TimeUnit.MICROSECONDS.toNanos(200 + i % 50_000), 300, 512 + i % 65_536);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long writeText(Path directory, List<HTTPCodes> statuses) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        try (FileChannel channel = FileChannel.open(directory.resolve("access.log"), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.US_ASCII.newEncoder(),
+                    8192));
+            for (int i = 0; i < BENCHMARK_RECORDS; i++)
+                writer.write(textLine(START_MILLIS + i, statuses.get(i % statuses.size()), 200 + i % 50_000, 300,
+                        512 + i % 65_536));
+            writer.flush();
+            // as durable as the binary segment, which is forced out on close
+            channel.force(false);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (Files.isDirectory(path))
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(path)) {
+                for (Path child : children)
+                    deleteRecursively(child);
+            }
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,132 @@
+package com.chiragji.utils.http.metrics;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.InformationalCode;
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.StatusClass;
+import com.chiragji.utils.http.enums.SuccessCodes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Has 1 to {@link #MAX_WRITERS} threads record at once, checks that no count is lost, also while snapshots reset the
+ * histogram, and reports the recording rate next to a {@code ConcurrentHashMap} of {@code AtomicLong}s. Throws
+ * {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class StatusCodeHistogramTest {
+    private static final int MAX_WRITERS = 8;
+    private static final int RECORDS = 500_000;
+    // a traffic-like mix with one code of every class and one out of range
+    private static final int[] CODES = {200, 200, 200, 200, 304, 404, 200, 503, 101, 200, 429, 204, 200, 302, 500, 999};
+
+    private StatusCodeHistogramTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_WRITERS + 1);
+        try {
+            countsEveryClass();
+            for (int writers = 1; writers <= MAX_WRITERS; writers *= 2)
+                concurrentWritersLoseNothing(executor, writers);
+            resetWhileWritingLosesNothing(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.println("StatusCodeHistogramTest passed");
+    }
+
+    private static void countsEveryClass() {
+        StatusCodeHistogram histogram = new StatusCodeHistogram();
+        histogram.record(InformationalCode.CONTINUE);
+        histogram.record(SuccessCodes.OK);
+        histogram.record(299);
+        histogram.record(RedirectionCodes.values()[0]);
+        histogram.add(ClientCodes.TOO_MANY_REQ.getCode(), 5);
+        histogram.record(ServerError.BAD_GATEWAY);
+        histogram.record(99);
+        histogram.record(600);
+        StatusCodeHistogram.Snapshot snapshot = histogram.snapshot();
+        check(snapshot.count(StatusClass.INFORMATIONAL) == 1 && snapshot.count(StatusClass.SUCCESS) == 2
+                        && snapshot.count(StatusClass.REDIRECTION) == 1 && snapshot.count(StatusClass.CLIENT_ERROR) == 5
+                        && snapshot.count(StatusClass.SERVER_ERROR) == 1,
+                "class counts should include undefined codes of the class");
+        check(snapshot.getOutOfRange() == 2 && snapshot.count(StatusClass.UNKNOWN) == 2 && snapshot.total() == 12,
+                "codes outside 100-599 should be counted apart");
+        check(snapshot.count(ClientCodes.TOO_MANY_REQ) == 5 && histogram.count(299) == 1, "single counts are wrong");
+        histogram.reset();
+        check(histogram.snapshot().total() == 0 && snapshot.total() == 12, "reset should not change a snapshot");
+    }
+
+    // runs the recording loop on the given number of threads at once and returns the elapsed nanoseconds
+    private static long race(ExecutorService executor, int writers, IntConsumer record) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>(writers);
+        for (int w = 0; w < writers; w++)
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < RECORDS; i++)
+                    record.accept(CODES[i & 15]);
+                return null;
+            }));
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results)
+            result.get(60, TimeUnit.SECONDS);
+        return System.nanoTime() - begin;
+    }
+
+    private static void concurrentWritersLoseNothing(ExecutorService executor, int writers) throws Exception {
+        long histogramNanos = Long.MAX_VALUE;
+        long mapNanos = Long.MAX_VALUE;
+        // the best of three runs each, the first also warms both up
+        for (int run = 0; run < 3; run++) {
+            StatusCodeHistogram histogram = new StatusCodeHistogram();
+            histogramNanos = Math.min(histogramNanos, race(executor, writers, histogram::record));
+            long expected = (long) writers * RECORDS;
+            StatusCodeHistogram.Snapshot snapshot = histogram.snapshot();
+            check(snapshot.total() == expected, writers + " writers recorded " + expected + ", counted "
+                    + snapshot.total());
+            check(snapshot.count(200) == expected * 7 / 16 && snapshot.getOutOfRange() == expected / 16,
+                    writers + " writers: per-code counts are wrong");
+            ConcurrentHashMap<Integer, AtomicLong> map = new ConcurrentHashMap<>();
+            mapNanos = Math.min(mapNanos, race(executor, writers,
+                    code -> map.computeIfAbsent(code, key -> new AtomicLong()).incrementAndGet()));
+            check(map.get(200).get() == expected * 7 / 16, "the map baseline lost counts");
+        }
+        double records = (double) writers * RECORDS;
+        System.out.printf("%d writers: histogram %.1f million/s, map %.1f million/s%n", writers,
+                records * 1e3 / histogramNanos, records * 1e3 / mapNanos);
+        check(histogramNanos < mapNanos, writers + " writers: the histogram should record faster than the map");
+    }
+
+    private static void resetWhileWritingLosesNothing(ExecutorService executor) throws Exception {
+        StatusCodeHistogram histogram = new StatusCodeHistogram();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Future<Long> reader = executor.submit(() -> {
+            long drained = 0;
+            while (writing.get())
+                drained += histogram.snapshotAndReset().total();
+            return drained;
+        });
+        race(executor, MAX_WRITERS, histogram::record);
+        writing.set(false);
+        long drained = reader.get(60, TimeUnit.SECONDS) + histogram.snapshotAndReset().total();
+        check(drained == (long) MAX_WRITERS * RECORDS, "snapshots taken while writing added up to " + drained
+                + " of " + (long) MAX_WRITERS * RECORDS);
+    }
+}
@@ -0,0 +1,199 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.util.ManualNanoClock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Checks that outcomes only count towards the phase that permitted the call, and that trial permits which never
+ * report do not hold the breaker half-open. Throws {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class CircuitBreakerTest {
+    private CircuitBreakerTest() {
+    }
+
+    public static void main(String[] args) {
+        opensAndClosesThroughTrial();
+        lateSuccessFromClosedPhaseDoesNotCloseHalfOpen();
+        lateFailureFromClosedPhaseDoesNotReopenHalfOpen();
+        lateTrialOutcomeIsIgnoredAfterReopen();
+        releasedTrialLetsAnotherThrough();
+        trialIsReleasedOnlyOnce();
+        unreportedTrialIsAbandonedAfterOpenDuration();
+        concurrentTrialRequestsDoNotLoseReleasedPermit();
+        System.out.println("CircuitBreakerTest passed");
+    }
+
+    private static CircuitBreaker breaker(ManualNanoClock clock) {
+        return new CircuitBreaker(CircuitBreaker.DEFAULT_TRIP_CODES, 2, 10, TimeUnit.SECONDS, 1, clock);
+    }
+
+    private static void trip(CircuitBreaker breaker) {
+        for (int i = 0; i < 2; i++)
+            breaker.onResult(breaker.tryAcquire(), ServerError.SERVICE_UNAVAILABLE);
+        check(breaker.getState() == CircuitBreaker.State.OPEN, "breaker should be open");
+    }
+
+    private static void opensAndClosesThroughTrial() {
+        ManualNanoClock clock = new ManualNanoClock();
+        CircuitBreaker breaker = breaker(clock);
+        trip(breaker);
+        check(breaker.tryAcquire() == CircuitBreaker.REJECTED, "open breaker should reject");
+        clock.advance(10, TimeUnit.SECONDS);
+        long trial = breaker.tryAcquire();
+        check(trial != CircuitBreaker.REJECTED, "half-open breaker should permit a trial");
+        check(breaker.tryAcquire() == CircuitBreaker.REJECTED, "only one trial should be permitted");
+        breaker.onResult(trial, SuccessCodes.OK);
+        check(breaker.getState() == CircuitBreaker.State.CLOSED, "successful trial should close the breaker");
+    }
+
+    private static void lateSuccessFromClosedPhaseDoesNotCloseHalfOpen() {
+        ManualNanoClock clock = new ManualNanoClock();
+        CircuitBreaker breaker = breaker(clock);
+        long slow = breaker.tryAcquire();
+        trip(breaker);
+        clock.advance(10, TimeUnit.SECONDS);
+        long trial = breaker.tryAcquire();
+        check(breaker.getState() == CircuitBreaker.State.HALF_OPEN, "breaker should be half-open");
+        breaker.onResult(slow, SuccessCodes.OK);
+        check(breaker.getState() == CircuitBreaker.State.HALF_OPEN, "stale success must not close the breaker");
+        breaker.onResult(trial, SuccessCodes.OK);
+        check(breaker.getState() == CircuitBreaker.State.CLOSED, "trial success should close the breaker");
+    }
+
+    private static void lateFailureFromClosedPhaseDoesNotReopenHalfOpen() {
+        ManualNanoClock clock = new ManualNanoClock();
+        CircuitBreaker breaker = breaker(clock);
+        long slow = breaker.tryAcquire();
+        trip(breaker);
+        clock.advance(10, TimeUnit.SECONDS);
+        long trial = breaker.tryAcquire();
+        breaker.onFailure(slow);
+        check(breaker.getState() == CircuitBreaker.State.HALF_OPEN, "stale failure must not reopen the breaker");
+        breaker.onResult(trial, SuccessCodes.OK);
+        check(breaker.getState() == CircuitBreaker.State.CLOSED, "trial success should close the breaker");
+    }
+
+    private static void lateTrialOutcomeIsIgnoredAfterReopen() {
+        ManualNanoClock clock = new ManualNanoClock();
+        CircuitBreaker breaker = new CircuitBreaker(CircuitBreaker.DEFAULT_TRIP_CODES, 2, 10, TimeUnit.SECONDS, 2,
+                clock);
+        trip(breaker);
+        clock.advance(10, TimeUnit.SECONDS);
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        breaker.onFailure(first);
+        check(breaker.getState() == CircuitBreaker.State.OPEN, "failed trial should reopen the breaker");
+        clock.advance(10, TimeUnit.SECONDS);
+        long next = breaker.tryAcquire();
+        breaker.onResult(second, SuccessCodes.OK);
+        breaker.onResult(second, SuccessCodes.OK);
+        check(breaker.getState() == CircuitBreaker.State.HALF_OPEN,
+                "trial of an earlier half-open phase must not count");
+        breaker.onResult(next, SuccessCodes.OK);
+        check(breaker.getState() == CircuitBreaker.State.HALF_OPEN, "two trials are needed to close");
+    }
+
+    private static void releasedTrialLetsAnotherThrough() {
+        ManualNanoClock clock = new ManualNanoClock();
+        CircuitBreaker breaker = breaker(clock);
+        trip(breaker);
+        clock.advance(10, TimeUnit.SECONDS);
+        long cancelled = breaker.tryAcquire();
+        check(breaker.tryAcquire() == CircuitBreaker.REJECTED, "only one trial should be permitted");
+        breaker.release(cancelled);
+        long trial = breaker.tryAcquire();
+        check(trial != CircuitBreaker.REJECTED, "released trial permit should be handed out again");
+        breaker.onResult(trial, SuccessCodes.OK);
+        check(breaker.getState() == CircuitBreaker.State.CLOSED, "trial success should close the breaker");
+        breaker.release(cancelled);
+        check(breaker.getState() == CircuitBreaker.State.CLOSED, "stale release must be ignored");
+    }
+
+    private static void trialIsReleasedOnlyOnce() {
+        ManualNanoClock clock = new ManualNanoClock();
+        CircuitBreaker breaker = new CircuitBreaker(CircuitBreaker.DEFAULT_TRIP_CODES, 2, 10, TimeUnit.SECONDS, 2,
+                clock);
+        trip(breaker);
+        clock.advance(10, TimeUnit.SECONDS);
+        long cancelled = breaker.tryAcquire();
+        long pending = breaker.tryAcquire();
+        check(pending != CircuitBreaker.REJECTED, "two trials should be permitted");
+        breaker.release(cancelled);
+        breaker.release(cancelled);
+        check(breaker.tryAcquire() != CircuitBreaker.REJECTED, "released trial permit should be handed out again");
+        check(breaker.tryAcquire() == CircuitBreaker.REJECTED, "a second release must not add a trial");
+        breaker.onResult(pending, SuccessCodes.OK);
+        breaker.release(pending);
+        check(breaker.tryAcquire() == CircuitBreaker.REJECTED, "release after the outcome must not add a trial");
+        breaker.onResult(pending, SuccessCodes.OK);
+        check(breaker.getState() == CircuitBreaker.State.HALF_OPEN, "a trial must count only once");
+    }
+
+    private static void unreportedTrialIsAbandonedAfterOpenDuration() {
+        ManualNanoClock clock = new ManualNanoClock();
+        CircuitBreaker breaker = breaker(clock);
+        trip(breaker);
+        clock.advance(10, TimeUnit.SECONDS);
+        long lost = breaker.tryAcquire();
+        check(lost != CircuitBreaker.REJECTED, "half-open breaker should permit a trial");
+        clock.advance(9, TimeUnit.SECONDS);
+        check(breaker.tryAcquire() == CircuitBreaker.REJECTED, "outstanding trial should still be waited for");
+        clock.advance(1, TimeUnit.SECONDS);
+        long trial = breaker.tryAcquire();
+        check(trial != CircuitBreaker.REJECTED, "unreported trial should be replaced after the open duration");
+        breaker.onFailure(lost);
+        check(breaker.getState() == CircuitBreaker.State.HALF_OPEN, "abandoned trial must not reopen the breaker");
+        breaker.onResult(trial, SuccessCodes.OK);
+        check(breaker.getState() == CircuitBreaker.State.CLOSED, "new trial success should close the breaker");
+    }
+
+    private static void concurrentTrialRequestsDoNotLoseReleasedPermit() {
+        for (int round = 0; round < 500; round++) {
+            ManualNanoClock clock = new ManualNanoClock();
+            CircuitBreaker breaker = breaker(clock);
+            trip(breaker);
+            clock.advance(10, TimeUnit.SECONDS);
+            // every racer asks for the single trial at once; the losers must not take the permit count below zero
+            long[] permits = new long[8];
+            Thread[] racers = new Thread[permits.length];
+            CountDownLatch start = new CountDownLatch(1);
+            for (int i = 0; i < racers.length; i++) {
+                int racer = i;
+                racers[i] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    permits[racer] = breaker.tryAcquire();
+                });
+                racers[i].start();
+            }
+            start.countDown();
+            long trial = CircuitBreaker.REJECTED;
+            int granted = 0;
+            for (int i = 0; i < racers.length; i++) {
+                try {
+                    racers[i].join();
+                } catch (InterruptedException e) {
+                    throw new AssertionError("interrupted", e);
+                }
+                if (permits[i] != CircuitBreaker.REJECTED) {
+                    trial = permits[i];
+                    granted++;
+                }
+            }
+            check(granted == 1, "exactly one racer should get the trial, " + granted + " did");
+            breaker.release(trial);
+            check(breaker.tryAcquire() != CircuitBreaker.REJECTED, "released trial permit should be handed out again");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+import com.chiragji.utils.http.util.ManualNanoClock;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Drives the limiter against a synthetic backend on a manual clock and checks that the limit settles near the
+ * backend's capacity, and that overload statuses and failures cut it. Throws {@link AssertionError} on the first
+ * failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class ConcurrencyLimiterTest {
+    private static final long WINDOW_MILLIS = 100;
+    private static final double SERVICE_MILLIS = 10;
+
+    private ConcurrencyLimiterTest() {
+    }
+
+    public static void main(String[] args) {
+        settlesNearCapacity(50);
+        settlesNearCapacity(200);
+        overloadStatusesCutTheLimit();
+        failureCutsTheLimit();
+        System.out.println("ConcurrencyLimiterTest passed");
+    }
+
+    private static ConcurrencyLimiter limiter(int initialLimit, ManualNanoClock clock) {
+        return new ConcurrencyLimiter(ConcurrencyLimiter.DEFAULT_DROP_CODES, ServerError.SERVICE_UNAVAILABLE,
+                initialLimit, 1, 1000, WINDOW_MILLIS, TimeUnit.MILLISECONDS, clock);
+    }
+
+    /**
+     * Runs a backend that serves {@code capacity} calls at a time in {@link #SERVICE_MILLIS} each and shares itself
+     * between the calls beyond that, so latency grows with the queue, under more demand than the limit ever allows.
+     */
+    private static void settlesNearCapacity(int capacity) {
+        ManualNanoClock clock = new ManualNanoClock();
+        ConcurrencyLimiter limiter = limiter(20, clock);
+        List<Call> calls = new ArrayList<>();
+        int windows = 500;
+        double settled = 0;
+        for (long millis = 0; millis < windows * WINDOW_MILLIS; millis++) {
+            while (limiter.tryAcquire())
+                calls.add(new Call(clock.nanoTime()));
+            clock.advance(1, TimeUnit.MILLISECONDS);
+            double progress = Math.min(1.0, (double) capacity / calls.size());
+            for (Iterator<Call> it = calls.iterator(); it.hasNext(); ) {
+                Call call = it.next();
+                call.remainingMillis -= progress;
+                if (call.remainingMillis <= 0) {
+                    it.remove();
+                    limiter.onResult(clock.nanoTime() - call.startNanos, SuccessCodes.OK);
+                }
+            }
+            // average over the last fifth of the run
+            if (millis >= windows * WINDOW_MILLIS * 4 / 5)
+                settled += (double) limiter.getLimit() / (windows * WINDOW_MILLIS / 5);
+        }
+        check(settled >= capacity * 0.95 && settled <= capacity * 1.25,
+                "limit should settle near a capacity of " + capacity + ", settled at " + settled);
+    }
+
+    private static void overloadStatusesCutTheLimit() {
+        HTTPCodes[] drops = {ServerError.SERVICE_UNAVAILABLE, ServerError.GATEWAY_TIMEOUT,
+                ServerError.NETWORK_READ_TIMEOUT_ERROR};
+        for (HTTPCodes status : drops) {
+            ManualNanoClock clock = new ManualNanoClock();
+            ConcurrencyLimiter limiter = limiter(100, clock);
+            check(limiter.tryAcquire(), "limiter should permit a call");
+            clock.advance(WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+            limiter.onResult(TimeUnit.MILLISECONDS.toNanos(5), status);
+            check(limiter.getLimit() == 90, status.getCode() + " should cut the limit, now " + limiter.getLimit());
+        }
+        ManualNanoClock clock = new ManualNanoClock();
+        ConcurrencyLimiter limiter = limiter(100, clock);
+        check(limiter.tryAcquire(), "limiter should permit a call");
+        clock.advance(WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        limiter.onResult(TimeUnit.MILLISECONDS.toNanos(5), ServerError.BAD_GATEWAY);
+        check(limiter.getLimit() == 100, "502 is not an overload signal");
+    }
+
+    private static void failureCutsTheLimit() {
+        ManualNanoClock clock = new ManualNanoClock();
+        ConcurrencyLimiter limiter = limiter(100, clock);
+        check(limiter.tryAcquire(), "limiter should permit a call");
+        clock.advance(WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        limiter.onFailure();
+        check(limiter.getLimit() == 90, "a failed call should cut the limit, now " + limiter.getLimit());
+        check(limiter.getInFlight() == 0, "the failed call should free its slot");
+    }
+
+    private static final class Call {
+        private final long startNanos;
+        private double remainingMillis = SERVICE_MILLIS;
+
+        private Call(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+}
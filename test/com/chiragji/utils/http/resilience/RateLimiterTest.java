@@ -0,0 +1,151 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.util.ManualNanoClock;
+import com.chiragji.utils.http.util.NanoClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Checks per-key limits and Retry-After delays, that the key map stays bounded without dropping a busy key, and that
+ * racing threads never get more than the configured tokens, then reports the decisions per second. Throws
+ * {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class RateLimiterTest {
+    private static final int THREADS = 8;
+    private static final int KEYS = 1000;
+    private static final long BENCHMARK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private RateLimiterTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            limitsEachKeyAndComputesRetryAfter();
+            boundsTheKeysButKeepsABusyOne();
+            dropsIdleKeys();
+            racingThreadsGetNoMoreThanTheBurst(executor);
+            reportThroughput(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.println("RateLimiterTest passed");
+    }
+
+    private static void limitsEachKeyAndComputesRetryAfter() {
+        ManualNanoClock clock = new ManualNanoClock();
+        RateLimiter<String> limiter = new RateLimiter<>(10, 5, 100, 1, TimeUnit.MINUTES, clock);
+        for (int i = 0; i < 5; i++)
+            check(limiter.tryAcquire("a") == 0, "the burst should be allowed");
+        long delay = limiter.tryAcquire("a");
+        check(delay == TimeUnit.MILLISECONDS.toNanos(100), "the next token comes in 100 ms, not " + delay + " ns");
+        check(RateLimiter.retryAfterSeconds(delay) == 1, "Retry-After should round up to whole seconds");
+        check(RateLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(2)) == 2, "whole seconds should not round up");
+        check(limiter.tryAcquire("b") == 0, "another key has its own bucket");
+        clock.advance(100, TimeUnit.MILLISECONDS);
+        check(limiter.tryAcquire("a") == 0 && limiter.tryAcquire("a") > 0, "one token should have been refilled");
+    }
+
+    private static void boundsTheKeysButKeepsABusyOne() {
+        ManualNanoClock clock = new ManualNanoClock();
+        // one token an hour, so a busy key that was dropped would come back with a full bucket and be allowed again
+        RateLimiter<Integer> limiter = new RateLimiter<>(1.0 / 3600, 1, 100, 16, TimeUnit.MILLISECONDS, clock);
+        check(limiter.tryAcquire(-1) == 0, "the first request of the busy key should be allowed");
+        for (int key = 0; key < 10_000; key++) {
+            clock.advance(1, TimeUnit.MILLISECONDS);
+            check(limiter.tryAcquire(-1) > 0, "the busy key was dropped after " + key + " other keys");
+            limiter.tryAcquire(key);
+            check(limiter.size() <= 100, "the map grew to " + limiter.size() + " keys");
+        }
+    }
+
+    private static void dropsIdleKeys() {
+        ManualNanoClock clock = new ManualNanoClock();
+        RateLimiter<String> limiter = new RateLimiter<>(1, 1, 100, 1, TimeUnit.SECONDS, clock);
+        limiter.tryAcquire("idle");
+        clock.advance(500, TimeUnit.MILLISECONDS);
+        limiter.tryAcquire("busy");
+        clock.advance(600, TimeUnit.MILLISECONDS);
+        limiter.evictExpired();
+        check(limiter.size() == 1, "only the key idle for over the TTL should be dropped");
+    }
+
+    // runs the task on every thread at once and adds up what they return
+    private static long race(ExecutorService executor, Callable<Long> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++)
+            results.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        start.countDown();
+        long total = 0;
+        for (Future<Long> result : results)
+            total += result.get(30, TimeUnit.SECONDS);
+        return total;
+    }
+
+    private static String[] keys() {
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++)
+            keys[i] = "client-" + i;
+        return keys;
+    }
+
+    private static void racingThreadsGetNoMoreThanTheBurst(ExecutorService executor) throws Exception {
+        String[] keys = keys();
+        RateLimiter<String> limiter = new RateLimiter<>(1, 50, KEYS, 1, TimeUnit.MINUTES, new ManualNanoClock());
+        // every thread walks all the keys, so new keys are inserted by several threads at once
+        long allowed = race(executor, () -> {
+            long count = 0;
+            for (int round = 0; round < 60; round++)
+                for (String key : keys)
+                    if (limiter.tryAcquire(key) == 0)
+                        count++;
+            return count;
+        });
+        check(allowed == KEYS * 50L, KEYS + " keys with a burst of 50 allowed " + allowed + " requests");
+    }
+
+    private static void reportThroughput(ExecutorService executor) throws Exception {
+        String[] keys = keys();
+        double rate = 1000;
+        double best = 0;
+        // the best of three runs, the first also warms the limiter up
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            RateLimiter<String> limiter = new RateLimiter<>(rate, 10, KEYS, 1, TimeUnit.MINUTES, NanoClock.SYSTEM);
+            LongAdder decisions = new LongAdder();
+            long allowed = race(executor, () -> {
+                long count = 0;
+                long tries = 0;
+                long deadline = start + BENCHMARK_NANOS;
+                while ((tries & 0xff) != 0 || System.nanoTime() < deadline) {
+                    if (limiter.tryAcquire(keys[(int) (tries % KEYS)]) == 0)
+                        count++;
+                    tries++;
+                }
+                decisions.add(tries);
+                return count;
+            });
+            long elapsed = System.nanoTime() - start;
+            double limit = KEYS * (10 + rate * elapsed / TimeUnit.SECONDS.toNanos(1));
+            check(allowed <= limit, "allowed " + allowed + " requests, the keys' rates allow " + limit);
+            best = Math.max(best, decisions.sum() * 1e3 / elapsed);
+        }
+        System.out.printf("%d threads over %d keys: %.1f million decisions/s%n", THREADS, KEYS, best);
+    }
+}
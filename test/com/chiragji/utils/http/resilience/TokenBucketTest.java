@@ -0,0 +1,138 @@
+package com.chiragji.utils.http.resilience;
+
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.util.ManualNanoClock;
+import com.chiragji.utils.http.util.NanoClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Has many threads withdraw from and deposit into one bucket at once and checks that no token is lost or handed out
+ * twice, that the retry budget caps retries at its ratio of requests, and reports the contended throughput. Throws
+ * {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class TokenBucketTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 50_000;
+    private static final long BENCHMARK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private TokenBucketTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            fullBucketHandsOutExactlyItsCapacity(executor);
+            concurrentDepositsAreNotLost(executor);
+            retryBudgetCapsRetriesUnderContention(executor);
+            refillRateHoldsUnderContention(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.println("TokenBucketTest passed");
+    }
+
+    // runs the task on every thread at once and adds up what they return
+    private static long race(ExecutorService executor, Callable<Long> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++)
+            results.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        start.countDown();
+        long total = 0;
+        for (Future<Long> result : results)
+            total += result.get(30, TimeUnit.SECONDS);
+        return total;
+    }
+
+    private static void fullBucketHandsOutExactlyItsCapacity(ExecutorService executor) throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 100_000, new ManualNanoClock());
+        long taken = race(executor, () -> {
+            long count = 0;
+            while (bucket.tryAcquire())
+                count++;
+            return count;
+        });
+        check(taken == 100_000, "a frozen bucket of 100000 tokens handed out " + taken);
+        check(bucket.available() == 0, "the bucket should be empty");
+    }
+
+    private static void concurrentDepositsAreNotLost(ExecutorService executor) throws Exception {
+        ManualNanoClock clock = new ManualNanoClock();
+        // large enough that no deposit is capped, so every credit must show up
+        TokenBucket bucket = new TokenBucket(1, THREADS * ROUNDS * 2, clock);
+        check(bucket.tryAcquire(THREADS * ROUNDS * 2), "the new bucket should be full");
+        long taken = race(executor, () -> {
+            long count = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                bucket.deposit(0.5);
+                bucket.deposit(0.5);
+                if (bucket.tryAcquire())
+                    count++;
+            }
+            return count;
+        });
+        long deposited = (long) THREADS * ROUNDS;
+        check(taken + bucket.available() == deposited, "deposited " + deposited + " tokens but " + taken
+                + " were taken and " + bucket.available() + " are left");
+    }
+
+    private static void retryBudgetCapsRetriesUnderContention(ExecutorService executor) throws Exception {
+        TokenBucket budget = new TokenBucket(10, 100, new ManualNanoClock());
+        RetryPolicy policy = new RetryPolicy(RetryPolicy.DEFAULT_RETRYABLE, RetryPolicy.DEFAULT_RETRY_AFTER, 3, 100,
+                1000, TimeUnit.MILLISECONDS, 0.1, budget);
+        long retries = race(executor, () -> {
+            long count = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                policy.onRequest();
+                if (policy.shouldRetry(1, ServerError.SERVICE_UNAVAILABLE))
+                    count++;
+            }
+            return count;
+        });
+        long requests = (long) THREADS * ROUNDS;
+        // the initial 100 tokens plus a tenth of a token per request, less the deposits made while the budget was full
+        check(retries <= requests / 10 + 100 && retries >= requests / 10, requests + " requests with a 10% budget "
+                + "allowed " + retries + " retries");
+    }
+
+    private static void refillRateHoldsUnderContention(ExecutorService executor) throws Exception {
+        double rate = 1_000_000;
+        long start = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(rate, 1000, NanoClock.SYSTEM);
+        LongAdder decisions = new LongAdder();
+        long taken = race(executor, () -> {
+            long count = 0;
+            long tries = 0;
+            long deadline = start + BENCHMARK_NANOS;
+            // reads the clock every 256 tries so the loop measures the bucket rather than the clock
+            while ((tries & 0xff) != 0 || System.nanoTime() < deadline) {
+                tries++;
+                if (bucket.tryAcquire())
+                    count++;
+            }
+            decisions.add(tries);
+            return count;
+        });
+        long elapsed = System.nanoTime() - start;
+        double allowed = 1000 + rate * elapsed / TimeUnit.SECONDS.toNanos(1);
+        System.out.printf("%d threads: %.1f million decisions/s, %d granted of %.0f allowed%n", THREADS,
+                decisions.sum() * 1e3 / elapsed, taken, allowed);
+        check(taken <= allowed, "granted " + taken + " tokens, the rate allows " + allowed);
+    }
+}
@@ -0,0 +1,162 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Checks which Range headers select a 206, a 416 or the whole file, and that single and multipart bodies hold the
+ * selected bytes with the announced length. Throws {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class ByteRangeRequestTest {
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final long LENGTH = CONTENT.length();
+    private static final byte[] BOUNDARY = "THIS_STRING_SEPARATES".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_TYPE = "text/plain".getBytes(StandardCharsets.US_ASCII);
+
+    private ByteRangeRequestTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        satisfiableRangesArePartial();
+        suffixRangesCountFromTheEnd();
+        unsatisfiableRangesAreRejected();
+        malformedHeadersAreIgnored();
+        Path file = Files.createTempFile("byte-range-test", ".txt");
+        try {
+            Files.write(file, CONTENT.getBytes(StandardCharsets.US_ASCII));
+            singleRangeIsSentAsIs(file);
+            severalRangesAreSentAsMultipart(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("ByteRangeRequestTest passed");
+    }
+
+    private static HTTPCodes evaluate(ByteRangeRequest request, String header, long length) {
+        if (header == null)
+            return request.evaluate(null, 0, 0, length);
+        // surround the value so the offset and length are honoured
+        byte[] bytes = ("Range: " + header + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        return request.evaluate(bytes, 7, header.length(), length);
+    }
+
+    private static void expectRanges(String header, long... startsAndEnds) {
+        ByteRangeRequest request = new ByteRangeRequest();
+        check(evaluate(request, header, LENGTH) == SuccessCodes.PARTIAL_CONTENT, header + " should be partial");
+        check(request.getRangeCount() == startsAndEnds.length / 2, header + " selected " + request.getRangeCount()
+                + " ranges");
+        for (int i = 0; i < request.getRangeCount(); i++)
+            check(request.getStart(i) == startsAndEnds[2 * i] && request.getEnd(i) == startsAndEnds[2 * i + 1],
+                    header + " range " + i + " is " + request.getContentRange(i));
+    }
+
+    private static void expectStatus(String header, long length, HTTPCodes expected) {
+        ByteRangeRequest request = new ByteRangeRequest();
+        HTTPCodes status = evaluate(request, header, length);
+        check(status == expected, header + " should give " + expected + ", gave " + status);
+        if (status != SuccessCodes.PARTIAL_CONTENT)
+            check(request.getRangeCount() == 0, header + " should leave no ranges");
+    }
+
+    private static void satisfiableRangesArePartial() {
+        expectRanges("bytes=0-9", 0, 9);
+        expectRanges("BYTES=0-9", 0, 9);
+        expectRanges("bytes=10-", 10, 35);
+        expectRanges("bytes=30-1000", 30, 35);
+        expectRanges("bytes=0-0,35-35", 0, 0, 35, 35);
+        expectRanges("bytes=0-1 , 5-9\t,\t20-", 0, 1, 5, 9, 20, 35);
+        expectRanges("bytes=, 0-1,,", 0, 1);
+        // unsatisfiable specs are dropped while the rest are kept
+        expectRanges("bytes=100-200,0-4", 0, 4);
+        expectRanges("bytes=0-4,-0", 0, 4);
+    }
+
+    private static void suffixRangesCountFromTheEnd() {
+        expectRanges("bytes=-1", 35, 35);
+        expectRanges("bytes=-6", 30, 35);
+        expectRanges("bytes=-36", 0, 35);
+        expectRanges("bytes=-1000", 0, 35);
+        expectRanges("bytes=0-0,-1", 0, 0, 35, 35);
+    }
+
+    private static void unsatisfiableRangesAreRejected() {
+        HTTPCodes unsatisfiable = ClientCodes.REQ_RANGE_NOT_SATISFIABLE;
+        expectStatus("bytes=36-", LENGTH, unsatisfiable);
+        expectStatus("bytes=36-40,100-", LENGTH, unsatisfiable);
+        expectStatus("bytes=-0", LENGTH, unsatisfiable);
+        expectStatus("bytes=0-", 0, unsatisfiable);
+        expectStatus("bytes=-5", 0, unsatisfiable);
+        expectStatus("bytes=99999999999999999999999-", LENGTH, unsatisfiable);
+        ByteRangeRequest request = new ByteRangeRequest();
+        evaluate(request, "bytes=40-", LENGTH);
+        check(request.getUnsatisfiedContentRange().equals("bytes */" + LENGTH), "416 Content-Range is wrong");
+    }
+
+    private static void malformedHeadersAreIgnored() {
+        String[] malformed = {null, "", "bytes=", "bytes=,", "bytes=-", "items=0-1", "bytes 0-1", "bytes=a-1",
+                "bytes=1-a", "bytes=5-1", "bytes=0-1-2", "bytes=0-1 5-9", "bytes=0-1,5-9x", "bytes=0-1;5-9",
+                "bytes=0-1, 3", "bytes=--1"};
+        for (String header : malformed)
+            expectStatus(header, LENGTH, SuccessCodes.OK);
+        StringBuilder tooMany = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= ByteRangeRequest.MAX_RANGES; i++)
+            tooMany.append(',').append(i).append('-').append(i);
+        expectStatus(tooMany.toString(), LENGTH, SuccessCodes.OK);
+        // a reused instance forgets the ranges of the previous evaluation
+        ByteRangeRequest request = new ByteRangeRequest();
+        evaluate(request, "bytes=0-1", LENGTH);
+        check(evaluate(request, "bytes=0-1-2", LENGTH) == SuccessCodes.OK && request.getRangeCount() == 0,
+                "a reused instance should drop old ranges");
+    }
+
+    private static String transfer(ByteRangeRequest request, Path file) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (FileChannel channel = FileChannel.open(file)) {
+            long written = request.transfer(channel, Channels.newChannel(body), BOUNDARY, CONTENT_TYPE);
+            check(written == body.size(), "transfer reported " + written + " bytes but wrote " + body.size());
+        }
+        check(request.contentLength(BOUNDARY, CONTENT_TYPE) == body.size(), "Content-Length should be "
+                + body.size() + ", computed " + request.contentLength(BOUNDARY, CONTENT_TYPE));
+        return body.toString(StandardCharsets.US_ASCII.name());
+    }
+
+    private static void singleRangeIsSentAsIs(Path file) throws IOException {
+        ByteRangeRequest request = new ByteRangeRequest();
+        evaluate(request, "bytes=-6", LENGTH);
+        check(transfer(request, file).equals("uvwxyz"), "a single range should be sent without part headers");
+        check(request.getContentRange(0).equals("bytes 30-35/36"), "Content-Range is " + request.getContentRange(0));
+    }
+
+    private static void severalRangesAreSentAsMultipart(Path file) throws IOException {
+        ByteRangeRequest request = new ByteRangeRequest();
+        evaluate(request, "bytes=0-1, 10-12, -2", LENGTH);
+        String expected = "\r\n--THIS_STRING_SEPARATES\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 0-1/36\r\n\r\n"
+                + "01"
+                + "\r\n--THIS_STRING_SEPARATES\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 10-12/36\r\n\r\n"
+                + "abc"
+                + "\r\n--THIS_STRING_SEPARATES\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 34-35/36\r\n\r\n"
+                + "yz"
+                + "\r\n--THIS_STRING_SEPARATES--\r\n";
+        String body = transfer(request, file);
+        check(body.equals(expected), "multipart body differs:\n" + body);
+    }
+}
@@ -0,0 +1,97 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.enums.SuccessCodes;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Checks the handling of the date preconditions and of {@code *} against resources with and without an entity tag.
+ * Throws {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class ConditionalRequestEvaluatorTest {
+    private static final byte[] DATE = "Sun, 06 Nov 1994 08:49:37 GMT".getBytes(StandardCharsets.US_ASCII);
+    private static final long DATE_MILLIS = 784111777000L;
+
+    private ConditionalRequestEvaluatorTest() {
+    }
+
+    public static void main(String[] args) {
+        ifUnmodifiedSinceIgnoredWhenDateUnknown();
+        ifUnmodifiedSinceFailsWhenModifiedLater();
+        ifUnmodifiedSincePassesWhenNotModified();
+        ifModifiedSinceIgnoredWhenDateUnknown();
+        obsoleteDateFormatsAreAccepted();
+        ifNoneMatchAnyMatchesExistingResourceWithoutEtag();
+        ifMatchAnyFailsForMissingResource();
+        System.out.println("ConditionalRequestEvaluatorTest passed");
+    }
+
+    private static ConditionalRequestEvaluator ifUnmodifiedSince() {
+        ConditionalRequestEvaluator evaluator = new ConditionalRequestEvaluator();
+        evaluator.ifUnmodifiedSince(DATE, 0, DATE.length);
+        return evaluator;
+    }
+
+    private static void ifUnmodifiedSinceIgnoredWhenDateUnknown() {
+        check(ifUnmodifiedSince().evaluate(false, null, -1) == SuccessCodes.OK,
+                "If-Unmodified-Since must be ignored without a modification date");
+    }
+
+    private static void ifUnmodifiedSinceFailsWhenModifiedLater() {
+        check(ifUnmodifiedSince().evaluate(false, null, DATE_MILLIS + 1000) == ClientCodes.PRE_CONDITION_FAILED,
+                "a later modification must fail If-Unmodified-Since");
+    }
+
+    private static void ifUnmodifiedSincePassesWhenNotModified() {
+        check(ifUnmodifiedSince().evaluate(false, null, DATE_MILLIS + 999) == SuccessCodes.OK,
+                "a modification within the same second must pass If-Unmodified-Since");
+    }
+
+    private static void ifModifiedSinceIgnoredWhenDateUnknown() {
+        ConditionalRequestEvaluator evaluator = new ConditionalRequestEvaluator();
+        evaluator.ifModifiedSince(DATE, 0, DATE.length);
+        check(evaluator.evaluate(true, null, -1) == SuccessCodes.OK,
+                "If-Modified-Since must be ignored without a modification date");
+        check(evaluator.evaluate(true, null, DATE_MILLIS) == RedirectionCodes.NOT_MODIFIED,
+                "an unmodified resource must answer Not Modified");
+    }
+
+    private static void obsoleteDateFormatsAreAccepted() {
+        String[] dates = {"Sunday, 06-Nov-94 08:49:37 GMT", "Sun Nov  6 08:49:37 1994"};
+        for (String date : dates) {
+            byte[] value = date.getBytes(StandardCharsets.US_ASCII);
+            ConditionalRequestEvaluator evaluator = new ConditionalRequestEvaluator();
+            evaluator.ifModifiedSince(value, 0, value.length);
+            check(evaluator.evaluate(true, null, DATE_MILLIS) == RedirectionCodes.NOT_MODIFIED,
+                    "If-Modified-Since must accept " + date);
+        }
+    }
+
+    private static void ifNoneMatchAnyMatchesExistingResourceWithoutEtag() {
+        byte[] any = {'*'};
+        ConditionalRequestEvaluator evaluator = new ConditionalRequestEvaluator();
+        evaluator.ifNoneMatch(any, 0, any.length);
+        check(evaluator.evaluate(true, true, null, -1) == RedirectionCodes.NOT_MODIFIED,
+                "If-None-Match: * must match an existing resource without an entity tag");
+        check(evaluator.evaluate(false, true, null, -1) == ClientCodes.PRE_CONDITION_FAILED,
+                "If-None-Match: * must fail a PUT to an existing resource");
+        check(evaluator.evaluate(false, false, null, -1) == SuccessCodes.OK,
+                "If-None-Match: * must pass for a missing resource");
+    }
+
+    private static void ifMatchAnyFailsForMissingResource() {
+        byte[] any = {'*'};
+        ConditionalRequestEvaluator evaluator = new ConditionalRequestEvaluator();
+        evaluator.ifMatch(any, 0, any.length);
+        check(evaluator.evaluate(false, true, null, -1) == SuccessCodes.OK,
+                "If-Match: * must pass for an existing resource without an entity tag");
+        check(evaluator.evaluate(false, false, null, -1) == ClientCodes.PRE_CONDITION_FAILED,
+                "If-Match: * must fail for a missing resource");
+    }
+}
@@ -0,0 +1,265 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Checks the scanner against fixed heads, truncations, limits broken at every split point and randomly mutated heads
+ * compared with a regular expression of the accepted grammar, then reports how many bytes it scans per second.
+ * Throws {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class RequestHeadScannerTest {
+    private static final int LARGE = 1 << 20;
+    private static final long SEED = 0x5eed_14L;
+    private static final int MUTATIONS = 200_000;
+    private static final int BENCHMARK_HEADS = 200_000;
+
+    private static final String TOKEN_CHARS = "!#$%&'*+-.^_`|~0123456789"
+            + "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final String TOKEN = "[!#$%&'*+\\-.^_`|~0-9A-Za-z]";
+    // the grammar the scanner accepts, over bytes read as ISO-8859-1
+    private static final Pattern HEAD = Pattern.compile(TOKEN + "{1,32} [\\x21-\\x7e]+ HTTP/1\\.[01]\\r?\\n"
+            + "(?:" + TOKEN + "+:[\\t\\x20-\\x7e\\x80-\\xff]*\\r?\\n)*\\r?\\n");
+    private static final byte[] INTERESTING = {0, '\t', '\n', '\r', ' ', ':', '/', '1', 'a', 0x1f, 0x7f, (byte) 0x80,
+            (byte) 0xff};
+
+    private static final String SAMPLE = "GET /index.html?q=1 HTTP/1.1\r\n"
+            + "Host: example.com\r\n"
+            + "User-Agent: test/1.0\r\n"
+            + "Accept: text/html,\t*/*;q=0.8\r\n"
+            + "X-Empty:\r\n"
+            + "\r\n";
+
+    private RequestHeadScannerTest() {
+    }
+
+    public static void main(String[] args) {
+        acceptsValidHeads();
+        rejectsMalformedHeads();
+        truncatedHeadsNeedMoreInput();
+        limitsHoldAtEverySplitPoint();
+        mutatedHeadsMatchTheGrammar();
+        reportThroughput();
+        System.out.println("RequestHeadScannerTest passed");
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static RequestHeadScanner scanner() {
+        return new RequestHeadScanner(LARGE, LARGE, LARGE);
+    }
+
+    // feeds the head in two pieces split at the given offset
+    private static HTTPCodes scan(RequestHeadScanner scanner, byte[] head, int split) {
+        scanner.reset();
+        int examined = scanner.scan(head, 0, split);
+        if (scanner.getResult() == null)
+            examined += scanner.scan(head, split, head.length - split);
+        check(examined == scanner.getScannedBytes(), "examined bytes and scanned count differ");
+        return scanner.getResult();
+    }
+
+    private static void acceptsValidHeads() {
+        String[] heads = {SAMPLE, "GET / HTTP/1.0\r\n\r\n", "GET / HTTP/1.1\n\n", "OPTIONS * HTTP/1.1\r\nA:\r\n\n",
+                "M-SEARCH * HTTP/1.1\nX:  spaced \t value \r\n\r\n", "GET / HTTP/1.1\r\nObs: caf\u00e9\r\n\r\n"};
+        RequestHeadScanner scanner = scanner();
+        for (String text : heads) {
+            byte[] head = bytes(text + "trailing body");
+            int length = text.length();
+            for (int split = 0; split <= head.length; split++) {
+                check(scan(scanner, head, split) == SuccessCodes.OK, "should accept " + text.trim());
+                check(scanner.getScannedBytes() == length, "should stop at the end of the head");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(head);
+            scanner.reset();
+            check(scanner.scan(buffer) && buffer.position() == length, "buffer should be left after the head");
+        }
+    }
+
+    private static void rejectsMalformedHeads() {
+        String[] heads = {
+                " GET / HTTP/1.1\r\n\r\n", "GET  / HTTP/1.1\r\n\r\n", "GET / HTTP/1.1 \r\n\r\n",
+                "GET / HTTP/2.0\r\n\r\n", "GET / HTTP/1.2\r\n\r\n", "GET / http/1.1\r\n\r\n", "GET / HTTP/1.11\r\n\r\n",
+                "GET / HTTP/1.1x\r\n\r\n", "GET / HTTP/1.1\r\r\n\r\n", "GET /\u0000 HTTP/1.1\r\n\r\n",
+                "G(T / HTTP/1.1\r\n\r\n", "ABCDEFGHIJKLMNOPQRSTUVWXYZABCDEFG / HTTP/1.1\r\n\r\n",
+                "GET / HTTP/1.1\r\nno colon\r\n\r\n", "GET / HTTP/1.1\r\nHost : a\r\n\r\n",
+                "GET / HTTP/1.1\r\n: empty name\r\n\r\n", "GET / HTTP/1.1\r\nHost: a\rb\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: a\u0000\r\n\r\n", "GET / HTTP/1.1\r\nHost: a\u0001\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: a\u007f\r\n\r\n", "GET / HTTP/1.1\r\nHost: a\r\n folded\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: a\r\n\tfolded\r\n\r\n", "GET / HTTP/1.1\r\nHo\u00e9st: a\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: a\r\n\rx"};
+        RequestHeadScanner scanner = scanner();
+        for (String text : heads) {
+            byte[] head = bytes(text);
+            check(!HEAD.matcher(text).lookingAt(), "grammar should reject " + text);
+            for (int split = 0; split <= head.length; split++)
+                check(scan(scanner, head, split) == ClientCodes.BAD_REQUEST, "should reject "
+                        + text.replace("\r", "\\r").replace("\n", "\\n"));
+        }
+    }
+
+    private static void truncatedHeadsNeedMoreInput() {
+        byte[] head = bytes(SAMPLE);
+        RequestHeadScanner scanner = scanner();
+        for (int length = 0; length < head.length; length++) {
+            scanner.reset();
+            check(scanner.scan(head, 0, length) == length && scanner.getResult() == null,
+                    "a head cut to " + length + " bytes should need more input");
+        }
+    }
+
+    private static void limitsHoldAtEverySplitPoint() {
+        byte[] head = bytes(SAMPLE);
+        int lineLength = SAMPLE.indexOf('\n') + 1;
+        int uriLength = SAMPLE.indexOf(' ', 4) - 4;
+        int headerBytes = head.length - lineLength;
+        for (int limit = 1; limit <= headerBytes; limit++) {
+            RequestHeadScanner scanner = new RequestHeadScanner(LARGE, limit, LARGE);
+            for (int split = 0; split <= head.length; split++) {
+                HTTPCodes result = scan(scanner, head, split);
+                if (limit == headerBytes)
+                    check(result == SuccessCodes.OK, "a header section at its limit should pass");
+                else
+                    check(result == ClientCodes.REQ_HEADER_FIELDS_TOO_LARGE
+                                    && scanner.getScannedBytes() == lineLength + limit + 1,
+                            "header limit " + limit + " split at " + split + " should stop on the first byte over");
+            }
+        }
+        for (int limit = 1; limit <= uriLength; limit++) {
+            RequestHeadScanner scanner = new RequestHeadScanner(limit, LARGE, LARGE);
+            for (int split = 0; split <= head.length; split++) {
+                HTTPCodes result = scan(scanner, head, split);
+                if (limit == uriLength)
+                    check(result == SuccessCodes.OK, "a target at its limit should pass");
+                else
+                    check(result == ClientCodes.REQUEST_URI_TOO_LONG && scanner.getScannedBytes() == 4 + limit + 1,
+                            "target limit " + limit + " split at " + split + " should stop on the first byte over");
+            }
+        }
+        for (int limit = 1; limit <= 4; limit++) {
+            RequestHeadScanner scanner = new RequestHeadScanner(LARGE, LARGE, limit);
+            for (int split = 0; split <= head.length; split++) {
+                HTTPCodes result = scan(scanner, head, split);
+                check(result == (limit == 4 ? SuccessCodes.OK : ClientCodes.REQ_HEADER_FIELDS_TOO_LARGE)
+                        && scanner.getHeaderCount() == Math.min(limit + 1, 4), "field count limit " + limit);
+            }
+        }
+    }
+
+    private static String randomToken(Random random, int maxLength) {
+        StringBuilder token = new StringBuilder();
+        for (int i = 1 + random.nextInt(maxLength); i > 0; i--)
+            token.append(TOKEN_CHARS.charAt(random.nextInt(TOKEN_CHARS.length())));
+        return token.toString();
+    }
+
+    private static String randomHead(Random random) {
+        StringBuilder head = new StringBuilder(randomToken(random, 8)).append(" /").append(randomToken(random, 20))
+                .append(" HTTP/1.").append(random.nextInt(2)).append(random.nextBoolean() ? "\r\n" : "\n");
+        for (int i = random.nextInt(6); i > 0; i--) {
+            head.append(randomToken(random, 12)).append(':');
+            for (int j = random.nextInt(24); j > 0; j--) {
+                int c = random.nextInt(8) == 0 ? 0x80 + random.nextInt(0x80) : 0x20 + random.nextInt(0x5f);
+                head.append((char) c);
+            }
+            head.append(random.nextBoolean() ? "\r\n" : "\n");
+        }
+        return head.append(random.nextBoolean() ? "\r\n" : "\n").toString();
+    }
+
+    private static byte randomByte(Random random) {
+        return random.nextBoolean() ? INTERESTING[random.nextInt(INTERESTING.length)] : (byte) random.nextInt(256);
+    }
+
+    private static byte[] mutate(Random random, byte[] head) {
+        byte[] mutated = head;
+        for (int i = 1 + random.nextInt(3); i > 0 && mutated.length > 0; i--) {
+            int at = random.nextInt(mutated.length);
+            byte[] next;
+            switch (random.nextInt(4)) {
+                case 0:
+                    next = mutated.clone();
+                    next[at] = randomByte(random);
+                    break;
+                case 1:
+                    next = new byte[mutated.length - 1];
+                    System.arraycopy(mutated, 0, next, 0, at);
+                    System.arraycopy(mutated, at + 1, next, at, next.length - at);
+                    break;
+                case 2:
+                    next = new byte[mutated.length + 1];
+                    System.arraycopy(mutated, 0, next, 0, at);
+                    next[at] = randomByte(random);
+                    System.arraycopy(mutated, at, next, at + 1, mutated.length - at);
+                    break;
+                default:
+                    next = new byte[at];
+                    System.arraycopy(mutated, 0, next, 0, at);
+                    break;
+            }
+            mutated = next;
+        }
+        return mutated;
+    }
+
+    private static void mutatedHeadsMatchTheGrammar() {
+        Random random = new Random(SEED);
+        RequestHeadScanner scanner = scanner();
+        int accepted = 0;
+        int rejected = 0;
+        for (int i = 0; i < MUTATIONS; i++) {
+            byte[] head = mutate(random, bytes(randomHead(random)));
+            String text = new String(head, StandardCharsets.ISO_8859_1);
+            Matcher matcher = HEAD.matcher(text);
+            HTTPCodes expected;
+            if (matcher.lookingAt())
+                expected = SuccessCodes.OK;
+            else
+                // a prefix that could still grow into a head needs more input
+                expected = matcher.hitEnd() ? null : ClientCodes.BAD_REQUEST;
+            HTTPCodes result = scan(scanner, head, random.nextInt(head.length + 1));
+            if (result != expected)
+                throw new AssertionError("seed " + SEED + ", mutation " + i + ": expected " + expected + ", got "
+                        + result + " for " + text.replace("\r", "\\r").replace("\n", "\\n"));
+            if (expected == SuccessCodes.OK) {
+                check(scanner.getScannedBytes() == matcher.end(), "should stop at the end of the head");
+                accepted++;
+            } else if (expected != null)
+                rejected++;
+        }
+        check(accepted > MUTATIONS / 20 && rejected > MUTATIONS / 4, "mutations should both keep and break heads, "
+                + accepted + " kept and " + rejected + " broken");
+    }
+
+    private static void reportThroughput() {
+        byte[] head = bytes(SAMPLE);
+        RequestHeadScanner scanner = new RequestHeadScanner(8192, 8192, 100);
+        long best = Long.MAX_VALUE;
+        for (int pass = 0; pass < 3; pass++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_HEADS; i++) {
+                scanner.reset();
+                scanner.scan(head, 0, head.length);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            check(scanner.getResult() == SuccessCodes.OK, "benchmark head should be accepted");
+        }
+        double bytesPerSecond = (double) BENCHMARK_HEADS * head.length * TimeUnit.SECONDS.toNanos(1) / best;
+        System.out.printf("scanned %d heads of %d bytes at %.1f MB/s%n", BENCHMARK_HEADS, head.length,
+                bytesPerSecond / 1e6);
+    }
+}
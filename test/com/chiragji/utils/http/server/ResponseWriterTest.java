@@ -0,0 +1,295 @@
+package com.chiragji.utils.http.server;
+
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.io.BufferPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Checks the bytes written for fixed-length, chunked and HTTP/1.0 responses, also through a channel that takes a few
+ * bytes at a time, then serves keep-alive requests over loopback and reports responses per second and the latency
+ * percentiles. Throws {@link AssertionError} on the first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class ResponseWriterTest {
+    private static final byte[] BODY = "hello, world".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] REQUEST = "GET /hello HTTP/1.1\r\nHost: localhost\r\n\r\n"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final int WARM_UP_REQUESTS = 5_000;
+    private static final int BENCHMARK_REQUESTS = 20_000;
+
+    private ResponseWriterTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        fixedLengthResponse();
+        chunkedResponse();
+        http10ClosesUnlessAsked();
+        partialWritesAreFlushed();
+        invalidUseIsRejected();
+        loopbackBenchmark();
+        System.out.println("ResponseWriterTest passed");
+    }
+
+    private static String text(RecordingChannel channel) {
+        return new String(channel.bytes.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static void fixedLengthResponse() throws IOException {
+        RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+        ResponseWriter writer = new ResponseWriter(channel);
+        writer.start(SuccessCodes.OK);
+        writer.header("Content-Type", "text/plain");
+        writer.date(784111777000L);
+        check(writer.send(ByteBuffer.wrap(BODY)), "a blocking channel should take the whole response");
+        check(text(channel).equals("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\n"
+                + "Date: Sun, 06 Nov 1994 08:49:37 GMT\r\nContent-Length: 12\r\n\r\nhello, world"),
+                "fixed-length response differs:\n" + text(channel));
+        check(writer.isKeepAlive() && channel.writes == 1, "head and body should leave in one gathering write");
+        channel.bytes.reset();
+        writer.start(SuccessCodes.NO_CONTENT);
+        writer.send(null);
+        check(text(channel).equals("HTTP/1.1 204 No Content\r\n\r\n") && writer.isKeepAlive(),
+                "a 204 carries no Content-Length and keeps the connection: " + text(channel));
+    }
+
+    private static void chunkedResponse() throws IOException {
+        RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+        ResponseWriter writer = new ResponseWriter(channel);
+        writer.start(SuccessCodes.OK);
+        writer.sendChunk(ByteBuffer.wrap(BODY));
+        writer.sendChunk(ByteBuffer.allocate(0));
+        writer.sendChunk(ByteBuffer.wrap(new byte[300]));
+        writer.finishChunked();
+        String expected = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nc\r\nhello, world\r\n12c\r\n"
+                + new String(new byte[300], StandardCharsets.ISO_8859_1) + "\r\n0\r\n\r\n";
+        check(text(channel).equals(expected), "chunked response differs:\n" + text(channel));
+        check(writer.isKeepAlive(), "a chunked body keeps the connection");
+    }
+
+    private static void http10ClosesUnlessAsked() throws IOException {
+        RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+        ResponseWriter writer = new ResponseWriter(channel);
+        writer.start(SuccessCodes.OK, true);
+        writer.send(ByteBuffer.wrap(BODY));
+        check(text(channel).startsWith("HTTP/1.1 200 OK\r\nContent-Length: 12\r\nConnection: close\r\n\r\n")
+                && !writer.isKeepAlive(), "an HTTP/1.0 peer should be closed by default: " + text(channel));
+        channel.bytes.reset();
+        writer.start(SuccessCodes.OK, true);
+        writer.keepAlive(true);
+        writer.send(ByteBuffer.wrap(BODY));
+        check(text(channel).startsWith("HTTP/1.1 200 OK\r\nContent-Length: 12\r\nConnection: keep-alive\r\n\r\n")
+                && writer.isKeepAlive(), "an HTTP/1.0 peer asking for keep-alive should be told: " + text(channel));
+        channel.bytes.reset();
+        writer.start(SuccessCodes.OK);
+        writer.sendHead();
+        check(text(channel).equals("HTTP/1.1 200 OK\r\nConnection: close\r\n\r\n") && !writer.isKeepAlive(),
+                "a body without framing can only end with the connection: " + text(channel));
+    }
+
+    private static void partialWritesAreFlushed() throws IOException {
+        RecordingChannel whole = new RecordingChannel(Integer.MAX_VALUE);
+        ResponseWriter reference = new ResponseWriter(whole);
+        reference.start(ClientCodes.NOT_FOUND);
+        reference.header("X-Request-Id", "42");
+        reference.send(ByteBuffer.wrap(BODY));
+        for (int budget = 1; budget <= 7; budget++) {
+            RecordingChannel channel = new RecordingChannel(budget);
+            ResponseWriter writer = new ResponseWriter(channel, new BufferPool());
+            writer.start(ClientCodes.NOT_FOUND);
+            writer.header("X-Request-Id", "42");
+            boolean done = writer.send(ByteBuffer.wrap(BODY));
+            int flushes = 0;
+            while (!done) {
+                channel.refill();
+                done = writer.flush();
+                flushes++;
+            }
+            check(flushes > 0 && text(channel).equals(text(whole)), budget + " bytes per write: response differs");
+            writer.release();
+        }
+    }
+
+    private static void invalidUseIsRejected() throws IOException {
+        ResponseWriter writer = new ResponseWriter(new RecordingChannel(Integer.MAX_VALUE));
+        writer.start(SuccessCodes.OK);
+        String[][] headers = {{"X-Bad", "a\r\nSet-Cookie: x=1"}, {"X-Bad", "a\u0000"}, {"X Bad", "a"},
+                {"X-Bad:", "a"}, {"X-Bad", "\u0100"}};
+        for (String[] header : headers) {
+            try {
+                writer.header(header[0], header[1]);
+                throw new AssertionError("header " + header[0] + " should be rejected");
+            } catch (IllegalArgumentException expected) {
+                // nothing was added to the head
+            }
+        }
+        writer.start(SuccessCodes.NO_CONTENT);
+        try {
+            writer.send(ByteBuffer.wrap(BODY));
+            throw new AssertionError("a 204 must not carry a body");
+        } catch (IllegalStateException expected) {
+            // the status forbids a body
+        }
+        writer.start(SuccessCodes.OK, true);
+        try {
+            writer.sendChunk(ByteBuffer.wrap(BODY));
+            throw new AssertionError("HTTP/1.0 has no chunked coding");
+        } catch (IllegalStateException expected) {
+            // the peer could not decode the body
+        }
+    }
+
+    /**
+     * Serves keep-alive requests on a loopback connection, one at a time, with the head found by
+     * {@link RequestHeadScanner} and the response written by a pooled {@link ResponseWriter}.
+     */
+    private static void loopbackBenchmark() throws Exception {
+        RecordingChannel expected = new RecordingChannel(Integer.MAX_VALUE);
+        ResponseWriter encoder = new ResponseWriter(expected);
+        encoder.start(SuccessCodes.OK);
+        encoder.header("Content-Type", "text/plain");
+        encoder.send(ByteBuffer.wrap(BODY));
+        byte[] response = expected.bytes.toByteArray();
+        int requests = WARM_UP_REQUESTS + BENCHMARK_REQUESTS;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            Future<Integer> served = executor.submit(() -> serve(server, requests));
+            long[] latencies = new long[BENCHMARK_REQUESTS];
+            long elapsed;
+            try (SocketChannel client = SocketChannel.open(server.getLocalAddress())) {
+                client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                ByteBuffer request = ByteBuffer.wrap(REQUEST);
+                ByteBuffer received = ByteBuffer.allocate(response.length);
+                long start = 0;
+                for (int i = 0; i < requests; i++) {
+                    if (i == WARM_UP_REQUESTS)
+                        start = System.nanoTime();
+                    long sent = System.nanoTime();
+                    request.clear();
+                    while (request.hasRemaining())
+                        client.write(request);
+                    received.clear();
+                    while (received.hasRemaining())
+                        if (client.read(received) < 0)
+                            throw new AssertionError("server closed after " + i + " responses");
+                    if (i >= WARM_UP_REQUESTS)
+                        latencies[i - WARM_UP_REQUESTS] = System.nanoTime() - sent;
+                    check(Arrays.equals(received.array(), response), "response " + i + " differs");
+                }
+                elapsed = System.nanoTime() - start;
+            }
+            check(served.get(30, TimeUnit.SECONDS) == requests, "the server should answer every request");
+            Arrays.sort(latencies);
+            System.out.printf("loopback: %.0f responses/s, p50 %d us, p99 %d us%n",
+                    BENCHMARK_REQUESTS * 1e9 / elapsed, TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length / 2]),
+                    TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length * 99 / 100]));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int serve(ServerSocketChannel server, int requests) throws IOException {
+        BufferPool pool = new BufferPool(1 << 20, 4, 16, 1 << 20, false);
+        try (SocketChannel connection = server.accept()) {
+            connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ResponseWriter writer = new ResponseWriter(connection, pool);
+            RequestHeadScanner scanner = new RequestHeadScanner(8192, 8192, 100);
+            ByteBuffer input = ByteBuffer.allocateDirect(8192);
+            ByteBuffer body = ByteBuffer.allocateDirect(BODY.length).put(BODY);
+            int answered = 0;
+            try {
+                while (answered < requests) {
+                    scanner.reset();
+                    input.flip();
+                    while (!scanner.scan(input)) {
+                        input.compact();
+                        if (connection.read(input) < 0)
+                            return answered;
+                        input.flip();
+                    }
+                    input.compact();
+                    check(scanner.getResult() == SuccessCodes.OK, "request " + answered + " was "
+                            + scanner.getResult());
+                    writer.start(SuccessCodes.OK);
+                    writer.header("Content-Type", "text/plain");
+                    body.clear();
+                    check(writer.send(body), "a blocking socket should take the whole response");
+                    answered++;
+                }
+            } finally {
+                writer.release();
+            }
+            check(pool.getOutstanding() == 0, "the head buffer should be back in the pool");
+            return answered;
+        }
+    }
+
+    // collects what is written, taking at most budget bytes until refilled, as a congested socket would
+    private static final class RecordingChannel implements GatheringByteChannel {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final int budget;
+        private int left;
+        private int writes;
+
+        private RecordingChannel(int budget) {
+            this.budget = budget;
+            this.left = budget;
+        }
+
+        private void refill() {
+            left = budget;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            writes++;
+            long written = 0;
+            for (int i = offset; i < offset + length && left > 0; i++) {
+                while (srcs[i].hasRemaining() && left > 0) {
+                    bytes.write(srcs[i].get());
+                    left--;
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            return (int) write(new ByteBuffer[]{src}, 0, 1);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.chiragji.utils.http.util;
+
+import com.chiragji.utils.http.Allocations;
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.InformationalCode;
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.enums.UnknownCode;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.util.function.IntFunction;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Checks that every code resolves to its constant and every other number to {@link UnknownCode#UNKNOWN}, then compares
+ * the time and allocation of a lookup with scanning {@code values()} of each enum. Throws {@link AssertionError} on the
+ * first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class HTTPCodeRegistryTest {
+    private static final int LOOKUPS = 2_000_000;
+
+    private HTTPCodeRegistryTest() {
+    }
+
+    public static void main(String[] args) {
+        resolvesEveryCode();
+        registryBeatsValuesScan();
+        System.out.println("HTTPCodeRegistryTest passed");
+    }
+
+    // what callers did before the registry: copy and scan the constants of every enum
+    private static HTTPCodes scanValues(int code) {
+        for (HTTPCodes status : InformationalCode.values())
+            if (status.getCode() == code)
+                return status;
+        for (HTTPCodes status : SuccessCodes.values())
+            if (status.getCode() == code)
+                return status;
+        for (HTTPCodes status : RedirectionCodes.values())
+            if (status.getCode() == code)
+                return status;
+        for (HTTPCodes status : ClientCodes.values())
+            if (status.getCode() == code)
+                return status;
+        for (HTTPCodes status : ServerError.values())
+            if (status.getCode() == code)
+                return status;
+        return UnknownCode.UNKNOWN;
+    }
+
+    private static void resolvesEveryCode() {
+        for (int code = -1000; code <= 1000; code++) {
+            HTTPCodes expected = scanValues(code);
+            check(HTTPCodeRegistry.resolve(code) == expected, code + " resolved to " + HTTPCodeRegistry.resolve(code)
+                    + " instead of " + expected);
+            check(HTTPCodeRegistry.isKnown(code) == (expected != UnknownCode.UNKNOWN), code + " known wrongly");
+        }
+        check(HTTPCodeRegistry.resolve(Integer.MIN_VALUE) == UnknownCode.UNKNOWN
+                && HTTPCodeRegistry.resolve(Integer.MAX_VALUE) == UnknownCode.UNKNOWN, "extremes should be unknown");
+    }
+
+    // the best time and allocation per lookup over three runs after a warm-up run, codes spread like real traffic
+    private static long[] measure(IntFunction<HTTPCodes> resolve) {
+        int[] codes = {200, 200, 200, 304, 404, 200, 503, 301, 200, 429, 500, 204, 299, 200, 401, 502};
+        long best = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        int[] sum = new int[1];
+        for (int run = 0; run < 4; run++) {
+            long[] nanos = new long[1];
+            long bytes = Allocations.measure(() -> {
+                long start = System.nanoTime();
+                for (int i = 0; i < LOOKUPS; i++)
+                    sum[0] += resolve.apply(codes[i & 15]).getCode();
+                nanos[0] = System.nanoTime() - start;
+            });
+            if (run == 0)
+                continue;
+            best = Math.min(best, nanos[0]);
+            bestBytes = Math.min(bestBytes, bytes);
+        }
+        check(sum[0] != 0, "lookups should resolve something");
+        return new long[]{best, bestBytes};
+    }
+
+    private static void registryBeatsValuesScan() {
+        long[] registry = measure(HTTPCodeRegistry::resolve);
+        long[] scan = measure(HTTPCodeRegistryTest::scanValues);
+        System.out.printf("%d lookups: registry %.1f ns and %d bytes, values() scan %.1f ns and %d bytes%n", LOOKUPS,
+                (double) registry[0] / LOOKUPS, registry[1], (double) scan[0] / LOOKUPS, scan[1]);
+        check(registry[0] < scan[0], "the registry should be faster than scanning values()");
+        if (Allocations.isSupported())
+            check(registry[1] < 1024 && scan[1] > registry[1], "the registry should not allocate, took "
+                    + registry[1] + " bytes against " + scan[1] + " for the scan");
+    }
+}
@@ -0,0 +1,176 @@
+package com.chiragji.utils.http.util;
+
+import com.chiragji.utils.http.Allocations;
+import com.chiragji.utils.http.enums.ClientCodes;
+import com.chiragji.utils.http.enums.InformationalCode;
+import com.chiragji.utils.http.enums.RedirectionCodes;
+import com.chiragji.utils.http.enums.ServerError;
+import com.chiragji.utils.http.enums.SuccessCodes;
+import com.chiragji.utils.http.enums.UnknownCode;
+import com.chiragji.utils.http.interfaces.HTTPCodes;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.chiragji.utils.http.Checks.check;
+
+/**
+ * Feeds status lines of every defined and some undefined codes split at every byte offset, checks that malformed
+ * lines are rejected wherever they are split, and that parsing allocates nothing. Throws {@link AssertionError} on the
+ * first failed check.
+ *
+ * @author Chirag Gupta
+ */
+public final class StatusLineParserTest {
+    private static final int[] UNDEFINED_CODES = {0, 99, 199, 299, 427, 600, 999};
+    private static final String NEXT = "Content-Length: 0\r\n";
+    private static final int ALLOCATION_ROUNDS = 100_000;
+
+    private StatusLineParserTest() {
+    }
+
+    public static void main(String[] args) {
+        everyCodeParsesAtEverySplit();
+        lineEndsAndReasonsVary();
+        malformedLinesAreRejectedAtEverySplit();
+        parsingDoesNotAllocate();
+        System.out.println("StatusLineParserTest passed");
+    }
+
+    private static List<HTTPCodes> allStatuses() {
+        List<HTTPCodes> statuses = new ArrayList<>();
+        statuses.addAll(Arrays.asList(InformationalCode.values()));
+        statuses.addAll(Arrays.asList(SuccessCodes.values()));
+        statuses.addAll(Arrays.asList(RedirectionCodes.values()));
+        statuses.addAll(Arrays.asList(ClientCodes.values()));
+        statuses.addAll(Arrays.asList(ServerError.values()));
+        return statuses;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String pad(int code) {
+        return String.format("%03d", code);
+    }
+
+    // feeds the line and what follows it in two pieces, then checks the parser stopped right after the line
+    private static void parseSplit(StatusLineParser parser, String line, int major, int minor, int code) {
+        byte[] input = bytes(line + NEXT);
+        for (int split = 0; split <= input.length; split++) {
+            parser.reset();
+            int consumed = parser.parse(input, 0, split);
+            check(parser.isComplete() == split >= line.length(), line.trim() + " split at " + split
+                    + " completed too early or too late");
+            if (!parser.isComplete())
+                consumed += parser.parse(input, split, input.length - split);
+            check(parser.isComplete() && consumed == line.length(), line.trim() + " split at " + split
+                    + " consumed " + consumed + " bytes");
+            check(parser.getMajorVersion() == major && parser.getMinorVersion() == minor, line.trim()
+                    + " split at " + split + " read the wrong version");
+            check(parser.getCode() == code, line.trim() + " split at " + split + " read " + parser.getCode());
+            check(parser.getStatus() == HTTPCodeRegistry.resolve(code), line.trim() + " resolved to "
+                    + parser.getStatus());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(input);
+        parser.reset();
+        check(parser.parse(buffer) && buffer.position() == line.length(), line.trim()
+                + " should leave the headers in the buffer");
+        check(StatusLineParser.parseCode(input, 0, input.length) == code, line.trim() + " parseCode disagrees");
+    }
+
+    private static void everyCodeParsesAtEverySplit() {
+        StatusLineParser parser = new StatusLineParser();
+        for (int minor = 0; minor <= 1; minor++) {
+            for (HTTPCodes status : allStatuses()) {
+                parseSplit(parser, "HTTP/1." + minor + ' ' + status.getCode() + ' ' + status.getReasonPhrase()
+                        + "\r\n", 1, minor, status.getCode());
+                check(parser.getStatus() == status, status + " resolved to " + parser.getStatus());
+            }
+            for (int code : UNDEFINED_CODES) {
+                parseSplit(parser, "HTTP/1." + minor + ' ' + pad(code) + " Whatever\r\n", 1, minor, code);
+                check(parser.getStatus() == UnknownCode.UNKNOWN && parser.getCode() == code,
+                        code + " should resolve to UNKNOWN and keep its number");
+            }
+        }
+    }
+
+    private static void lineEndsAndReasonsVary() {
+        StatusLineParser parser = new StatusLineParser();
+        parseSplit(parser, "HTTP/1.1 204\r\n", 1, 1, 204);
+        parseSplit(parser, "HTTP/1.0 404\n", 1, 0, 404);
+        parseSplit(parser, "HTTP/1.1 200 \r\n", 1, 1, 200);
+        parseSplit(parser, "HTTP/1.0 503 Service  Unavailable\t(try later)\n", 1, 0, 503);
+        parseSplit(parser, "HTTP/2.0 200 OK\r\n", 2, 0, 200);
+        parser.reset();
+        check(parser.getStatus() == UnknownCode.UNKNOWN, "an unfinished line should not resolve a status");
+    }
+
+    private static void malformedLinesAreRejectedAtEverySplit() {
+        String[] malformed = {"HTTX/1.1 200 OK\r\n", "http/1.1 200 OK\r\n", "HTTP/x.1 200 OK\r\n",
+                "HTTP/1,1 200 OK\r\n", "HTTP/1.1  200 OK\r\n", "HTTP/1.1 20 OK\r\n", "HTTP/1.1 2000 OK\r\n",
+                "HTTP/1.1 2x0 OK\r\n", "HTTP/1.1 200\rX\n", "HTTP/1.1 200 OK\r\r\n", " HTTP/1.1 200 OK\r\n"};
+        StatusLineParser parser = new StatusLineParser();
+        for (String line : malformed) {
+            byte[] input = bytes(line);
+            for (int split = 0; split <= input.length; split++) {
+                parser.reset();
+                try {
+                    parser.parse(input, 0, split);
+                    parser.parse(input, split, input.length - split);
+                    throw new AssertionError(line.trim() + " split at " + split + " should be rejected");
+                } catch (IllegalArgumentException expected) {
+                    check(!parser.isComplete(), line.trim() + " should not complete");
+                }
+            }
+        }
+        byte[] endless = new byte[StatusLineParser.MAX_LINE_LENGTH + 1];
+        Arrays.fill(endless, (byte) 'x');
+        System.arraycopy(bytes("HTTP/1.1 200 "), 0, endless, 0, 13);
+        parser.reset();
+        try {
+            parser.parse(endless, 0, endless.length);
+            throw new AssertionError("a line over " + StatusLineParser.MAX_LINE_LENGTH + " bytes should be rejected");
+        } catch (IllegalArgumentException expected) {
+            check(!parser.isComplete(), "an endless line should not complete");
+        }
+    }
+
+    private static void parsingDoesNotAllocate() {
+        if (!Allocations.isSupported()) {
+            System.out.println("allocation check skipped, the JVM cannot measure thread allocation");
+            return;
+        }
+        byte[] input = bytes("HTTP/1.1 503 Service Unavailable\r\n" + NEXT);
+        ByteBuffer buffer = ByteBuffer.wrap(input);
+        StatusLineParser parser = new StatusLineParser();
+        int[] wrong = new int[1];
+        Runnable rounds = () -> {
+            for (int i = 0; i < ALLOCATION_ROUNDS; i++) {
+                parser.reset();
+                parser.parse(input, 0, i % 20);
+                parser.parse(input, i % 20, input.length - i % 20);
+                if (parser.getStatus() != ServerError.SERVICE_UNAVAILABLE)
+                    wrong[0]++;
+                parser.reset();
+                buffer.clear();
+                parser.parse(buffer);
+                if (StatusLineParser.parseCode(input, 0, input.length) != 503)
+                    wrong[0]++;
+            }
+        };
+        // the first run is interpreted and may allocate while it is compiled; the best later run decides
+        Allocations.measure(rounds);
+        long allocated = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++)
+            allocated = Math.min(allocated, Allocations.measure(rounds));
+        check(wrong[0] == 0, "every round should read 503");
+        System.out.printf("parsed %d status lines with %d bytes allocated%n", 3 * ALLOCATION_ROUNDS, allocated);
+        // a single object per line would be megabytes; allow for the measurement itself
+        check(allocated < 1024, "parsing should not allocate, allocated " + allocated + " bytes");
+    }
+}